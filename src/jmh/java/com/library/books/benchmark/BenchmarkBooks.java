@@ -0,0 +1,50 @@
+package com.library.books.benchmark;
+
+import com.library.books.repository.entity.Book;
+import com.library.books.service.dto.BookDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.library.books.service.dto.BookMapper.mapToBookDTO;
+
+// realistic, deterministic test data shared by the benchmarks
+public class BenchmarkBooks {
+
+    private static final String[] PUBLISHERS = {"Penguin Random House", "HarperCollins", "Simon & Schuster", "Macmillan", "Hachette"};
+
+    // a list of size books with distinct, valid ISBNs
+    public static List<Book> books(int size) {
+        List<Book> books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Book book = new Book();
+            book.setId((long) i + 1);
+            book.setBookTitle("The Collected Works, Volume " + i);
+            book.setAuthors("Jane Austen; Charles Dickens");
+            book.setPublisher(PUBLISHERS[i % PUBLISHERS.length]);
+            book.setIsbn(isbn(i));
+            book.setYearPublished(1900 + i % 125);
+            book.setPrice(9.99 + i % 50);
+            books.add(book);
+        }// end of for loop
+        return books;
+    }// end of books method
+
+    // the same books mapped to DTOs
+    public static List<BookDTO> bookDTOs(int size) {
+        return books(size).stream().map(book -> mapToBookDTO(book, new BookDTO())).toList();
+    }// end of bookDTOs method
+
+    // the canonical ISBN-13 978-0-XXXX-XXXX-C built from the index
+    public static String isbn(long index) {
+        String digits = String.format("978%09d", index);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }// end of for loop
+        digits += (10 - sum % 10) % 10;
+        return digits.substring(0, 3) + "-" + digits.charAt(3) + "-" + digits.substring(4, 8)
+                + "-" + digits.substring(8, 12) + "-" + digits.charAt(12);
+    }// end of isbn method
+
+}// end of BenchmarkBooks class
@@ -0,0 +1,75 @@
+package com.library.books.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.books.benchmark.BenchmarkBooks;
+import com.library.books.service.dto.BookDTO;
+import com.library.books.service.dto.BulkInsertResultDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.library.books.service.dto.BookMapper.copyBookDTO;
+
+/*
+ * BookController.addLinksToBooks over a list of books, inside a request as in add-books:, and the compact link mode.
+ * Every operation starts from fresh DTOs, BookMapperBenchmark gives the cost of that copy.
+ */
+@State(Scope.Thread) // setup runs on the benchmark thread, which holds the request context
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class BookControllerLinksBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private BookController bookController;
+    private BookLinks bookLinks;
+    private List<BookDTO> bookDTOS;
+
+    @Setup
+    public void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/books/add-books:");
+        request.setServerName("localhost");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        bookLinks = new BookLinks();
+        bookController = new BookController(null, new ObjectMapper(), bookLinks, null, null, null, null, null, null);
+        bookDTOS = BenchmarkBooks.bookDTOs(size);
+    }// end of setUp method
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }// end of tearDown method
+
+    @Benchmark
+    public List<BookDTO> addLinksToBooks() {
+        List<BookDTO> linked = new ArrayList<>(bookDTOS.size());
+        for (BookDTO bookDTO : bookDTOS) {
+            linked.add(copyBookDTO(bookDTO, new BookDTO()));
+        }// end of for loop
+        bookController.addLinksToBooks(linked);
+        return linked;
+    }// end of addLinksToBooks method
+
+    // compact link mode of add-books:, the templates are added once to the result instead of to every book
+    @Benchmark
+    public BulkInsertResultDTO addTemplatedLinks() {
+        List<BookDTO> added = new ArrayList<>(bookDTOS.size());
+        for (BookDTO bookDTO : bookDTOS) {
+            added.add(copyBookDTO(bookDTO, new BookDTO()));
+        }// end of for loop
+        BulkInsertResultDTO result = new BulkInsertResultDTO(added, List.of());
+        bookLinks.addTemplatedLinks(result);
+        return result;
+    }// end of addTemplatedLinks method
+
+}// end of BookControllerLinksBenchmark class
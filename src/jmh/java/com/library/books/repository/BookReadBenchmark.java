@@ -0,0 +1,120 @@
+package com.library.books.repository;
+
+import com.library.books.BooksApplication;
+import com.library.books.benchmark.BenchmarkBooks;
+import com.library.books.repository.entity.Book;
+import com.library.books.repository.projection.BookRow;
+import com.library.books.service.dto.BookDTO;
+import com.library.books.service.dto.BookMapper;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Reading one page of books from H2 and mapping it to DTOs, as getAllBooks and the finders do.
+ * The entity and projection variants run the same query, only the select clause differs: managed entities
+ * in a read-write and in a read-only transaction, against BookRow records built by a constructor expression.
+ * The repository variant reads the same page through BookRepository.findAllBy, as getAllBooks does.
+ * Run with -prof gc, gc.alloc.rate.norm divided by the page size gives the bytes allocated per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class BookReadBenchmark {
+
+    @Param({"20", "1000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        // the controllers need the web context, arguments rather than default properties override application.yml
+        context = new SpringApplicationBuilder(BooksApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:read-benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        bookRepository = context.getBean(BookRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        List<Book> books = BenchmarkBooks.books(10_000);
+        books.forEach(book -> book.setId(null)); // generated on insert
+        bookRepository.saveAllInBatches(books, 500);
+    }// end of setUp method
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }// end of tearDown method
+
+    // managed entities, snapshotted for dirty checking
+    @Benchmark
+    public List<BookDTO> entitiesReadWrite() {
+        return readWrite.execute(status -> mapEntities());
+    }// end of entitiesReadWrite method
+
+    // managed entities, loaded read-only so that Hibernate keeps no snapshot
+    @Benchmark
+    public List<BookDTO> entitiesReadOnly() {
+        return readOnly.execute(status -> mapEntities());
+    }// end of entitiesReadOnly method
+
+    // BookRow projections selected with a constructor expression, by the same query as the entities
+    @Benchmark
+    public List<BookDTO> projections() {
+        return readOnly.execute(status -> mapRows(entityManager.createQuery(
+                        "select new com.library.books.repository.projection.BookRow(b.id, b.bookTitle, b.authors, " +
+                                "b.publisher, b.isbn, b.yearPublished, b.price, b.version) from Book b order by b.id", BookRow.class)
+                .setMaxResults(size + 1) // the page and the row telling if there is a following one, as a slice reads
+                .getResultList()));
+    }// end of projections method
+
+    // the same projections read through the repository, with its proxy, transaction and slice handling
+    @Benchmark
+    public List<BookDTO> repositoryProjections() {
+        return readOnly.execute(status -> mapRows(bookRepository.findAllBy(PageRequest.of(0, size, Sort.by("id"))).getContent()));
+    }// end of repositoryProjections method
+
+    private List<BookDTO> mapEntities() {
+        List<Book> books = entityManager.createQuery("select b from Book b order by b.id", Book.class)
+                .setMaxResults(size + 1) // the page and the row telling if there is a following one, as a slice reads
+                .getResultList();
+        List<BookDTO> bookDTOS = new ArrayList<>(books.size());
+        for (Book book : books.subList(0, Math.min(size, books.size()))) {
+            bookDTOS.add(BookMapper.mapToBookDTO(book, new BookDTO()));
+        }// end of for loop
+        return bookDTOS;
+    }// end of mapEntities method
+
+    private List<BookDTO> mapRows(List<BookRow> rows) {
+        List<BookDTO> bookDTOS = new ArrayList<>(rows.size());
+        for (BookRow row : rows.subList(0, Math.min(size, rows.size()))) {
+            bookDTOS.add(BookMapper.mapToBookDTO(row, new BookDTO()));
+        }// end of for loop
+        return bookDTOS;
+    }// end of mapRows method
+
+}// end of BookReadBenchmark class
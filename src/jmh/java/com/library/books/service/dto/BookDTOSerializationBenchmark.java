@@ -0,0 +1,38 @@
+package com.library.books.service.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.books.benchmark.BenchmarkBooks;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson serialization of a BookDTO list, configured like the Spring MVC message converter
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class BookDTOSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<BookDTO> bookDTOS;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        bookDTOS = BenchmarkBooks.bookDTOs(size);
+    }// end of setUp method
+
+    @Benchmark
+    public byte[] serializeBookDTOs() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookDTOS);
+    }// end of serializeBookDTOs method
+
+}// end of BookDTOSerializationBenchmark class
@@ -0,0 +1,39 @@
+package com.library.books.service.dto;
+
+import com.library.books.benchmark.BenchmarkBooks;
+import com.library.books.repository.entity.Book;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// mapping a list of Book entities to BookDTOs, as every read endpoint does
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class BookMapperBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private List<Book> books;
+
+    @Setup
+    public void setUp() {
+        books = BenchmarkBooks.books(size);
+    }// end of setUp method
+
+    @Benchmark
+    public List<BookDTO> mapToBookDTO() {
+        List<BookDTO> bookDTOS = new ArrayList<>(books.size());
+        for (Book book : books) {
+            bookDTOS.add(BookMapper.mapToBookDTO(book, new BookDTO()));
+        }// end of for loop
+        return bookDTOS;
+    }// end of mapToBookDTO method
+
+}// end of BookMapperBenchmark class
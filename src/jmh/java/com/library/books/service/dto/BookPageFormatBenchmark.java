@@ -0,0 +1,103 @@
+package com.library.books.service.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.books.benchmark.BenchmarkBooks;
+import com.library.books.repository.entity.Book;
+import com.library.books.utility.BookColumns;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.library.books.service.dto.BookMapper.mapToBook;
+
+/*
+ * A page of 10k books written in each response format, and the same books read back as the body of add-books:,
+ * with and without gzip. The time per operation is the CPU cost of the format; the bytes it puts on the wire
+ * are printed once per trial, as "bytes per 10000 books", since JMH only reports times.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class BookPageFormatBenchmark {
+
+    private static final int BOOKS = 10_000;
+
+    @Param({"json", "cbor", "smile", "columns"})
+    private String format;
+
+    @Param({"none", "gzip"})
+    private String compression;
+
+    private ObjectMapper objectMapper; // null for the columns
+    private BookPageDTO page;
+    private byte[] books; // the books as an add-books: body
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> null;
+        };
+        page = new BookPageDTO(BenchmarkBooks.bookDTOs(BOOKS), 0, BOOKS, true, null);
+        books = write(out -> {
+            if (objectMapper == null) {
+                BookColumns.write(page.getContent(), out);
+            } else {
+                objectMapper.writeValue(out, page.getContent());
+            }// end of if-else block
+        });
+        System.out.printf("%n%s, %s: %d bytes per %d books in a page, %d in an add-books: body%n",
+                format, compression, writePage().length, BOOKS, books.length);
+    }// end of setUp method
+
+    @Benchmark
+    public byte[] writePage() throws IOException {
+        return write(out -> {
+            if (objectMapper == null) {
+                BookColumns.write(page, out);
+            } else {
+                objectMapper.writeValue(out, page);
+            }// end of if-else block
+        });
+    }// end of writePage method
+
+    // the books of an add-books: body, read as the message converters do
+    @Benchmark
+    public List<Book> readBooks() throws IOException {
+        try (InputStream in = compression.equals("gzip") ? new GZIPInputStream(new ByteArrayInputStream(books), 8192) : new ByteArrayInputStream(books)) {
+            if (objectMapper == null) {
+                return BookColumns.read(in).getContent().stream().map(bookDTO -> mapToBook(bookDTO, new Book())).toList();
+            }// end of if block
+            return objectMapper.readValue(in, new TypeReference<>() {});
+        }// end of try-with-resources block
+    }// end of readBooks method
+
+    private interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }// end of Body interface
+
+    // helper method to write a body, compressed as the server does when the client accepts gzip
+    private byte[] write(Body body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+        try (OutputStream out = compression.equals("gzip") ? new GZIPOutputStream(bytes, 8192) : bytes) {
+            body.writeTo(out);
+        }// end of try-with-resources block
+        return bytes.toByteArray();
+    }// end of write method
+
+}// end of BookPageFormatBenchmark class
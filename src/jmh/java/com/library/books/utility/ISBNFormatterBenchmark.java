@@ -0,0 +1,57 @@
+package com.library.books.utility;
+
+import com.library.books.benchmark.BenchmarkBooks;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// formatISBN over a batch of ISBNs, for each spelling a client may send
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class ISBNFormatterBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    @Param({"canonical", "compact", "isbn10"})
+    private String spelling;
+
+    private String[] isbns;
+
+    @Setup
+    public void setUp() {
+        isbns = new String[size];
+        for (int i = 0; i < size; i++) {
+            String canonical = BenchmarkBooks.isbn(i);
+            isbns[i] = switch (spelling) {
+                case "canonical" -> canonical; // 978-0-0000-0001-9
+                case "compact" -> canonical.replace("-", ""); // 9780000000019
+                default -> isbn10(canonical); // 0-000-00001-X
+            };
+        }// end of for loop
+    }// end of setUp method
+
+    @Benchmark
+    public void formatISBN(Blackhole blackhole) {
+        for (String isbn : isbns) {
+            blackhole.consume(ISBNFormatter.formatISBN(isbn));
+        }// end of for loop
+    }// end of formatISBN method
+
+    // the ISBN-10 spelling of a 978 ISBN-13, with its own check digit
+    private static String isbn10(String isbn13) {
+        String body = isbn13.replace("-", "").substring(3, 12);
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += (10 - i) * (body.charAt(i) - '0');
+        }// end of for loop
+        int check = (11 - sum % 11) % 11;
+        return body.charAt(0) + "-" + body.substring(1, 4) + "-" + body.substring(4, 9) + "-" + (check == 10 ? "X" : check);
+    }// end of isbn10 method
+
+}// end of ISBNFormatterBenchmark class
@@ -0,0 +1,116 @@
+package com.library.books.load;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * End-to-end load test of the whole stack: Tomcat, Jackson, HATEOAS, Hibernate and H2, on a random port.
+ * Seeds the books, runs the mix from the concurrent clients for the warm-up and then for the measured duration,
+ * and writes throughput and latency percentiles, overall and per operation, to the result file as JSON.
+ * Only runs with the load-test profile: ./mvnw -Pload-test test (settings in LoadSettings)
+ */
+@Tag("load-test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "logging.level.org.hibernate.SQL=off"})
+class BookLoadTests {
+
+    private static final int SEED_CHUNK = 1000;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void readWriteMix() throws Exception {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        String baseUri = "http://localhost:" + port;
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        AtomicLong nextIndex = new AtomicLong(settings.books());
+
+        LoadClient seeder = new LoadClient(httpClient, baseUri, settings.books(), nextIndex, settings.seed());
+        for (long first = 0; first < settings.books(); first += SEED_CHUNK) {
+            int count = (int) Math.min(SEED_CHUNK, settings.books() - first);
+            assertEquals(201, seeder.seed(first, count).status(), "seeding books from " + first);
+        }// end of for loop
+
+        String[] operations = settings.mix().keySet().toArray(String[]::new);
+        int[] cumulativeWeights = new int[operations.length];
+        int totalWeight = 0;
+        for (int i = 0; i < operations.length; i++) {
+            totalWeight += settings.mix().get(operations[i]);
+            cumulativeWeights[i] = totalWeight;
+        }// end of for loop
+
+        LoadReport report = new LoadReport();
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmUp().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(settings.clients());
+        List<Future<?>> clients = new ArrayList<>();
+        for (int c = 0; c < settings.clients(); c++) {
+            LoadClient client = new LoadClient(httpClient, baseUri, settings.books(), nextIndex, settings.seed() + c + 1);
+            Random random = new Random(settings.seed() - c - 1);
+            int weights = totalWeight;
+            clients.add(executor.submit(() -> {
+                for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+                    int pick = random.nextInt(weights), i = 0;
+                    while (cumulativeWeights[i] <= pick) {
+                        i++;
+                    }// end of while loop
+                    LoadClient.Outcome outcome = client.run(operations[i]);
+                    if (now >= measureFrom) {
+                        report.record(outcome, System.nanoTime() - now);
+                    }// end of if block
+                }// end of for loop
+                return null;
+            }));
+        }// end of for loop
+        for (Future<?> client : clients) {
+            client.get(); // rethrows the failure of a client, a refused connection for instance
+        }// end of for loop
+        executor.shutdown();
+        Duration measured = Duration.ofNanos(System.nanoTime() - measureFrom);
+
+        Map<String, Object> summary = report.summary(settings, measured);
+        Path resultFile = Path.of(settings.resultFile());
+        report.write(summary, resultFile);
+
+        Histogram total = report.total();
+        double throughput = total.getTotalCount() * 1000.0 / measured.toMillis();
+        double errorRate = report.errors() / (double) Math.max(1, total.getTotalCount());
+        double p99 = LoadReport.millis(total, 99);
+        System.out.printf("Load test: %d requests, %.1f req/s, p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, %d errors -> %s%n",
+                total.getTotalCount(), throughput, LoadReport.millis(total, 50), p99, LoadReport.millis(total, 99.9),
+                report.errors(), resultFile.toAbsolutePath());
+
+        assertTrue(total.getTotalCount() > 0, "no request completed in the measured window");
+        assertTrue(errorRate <= settings.maxErrorRate(), "error rate " + errorRate + " above " + settings.maxErrorRate());
+        if (settings.maxP99Millis() > 0) {
+            assertTrue(p99 <= settings.maxP99Millis(), "p99 " + p99 + " ms above " + settings.maxP99Millis() + " ms");
+        }// end of if block
+        if (settings.minThroughput() > 0) {
+            assertTrue(throughput >= settings.minThroughput(), "throughput " + throughput + " req/s below " + settings.minThroughput());
+        }// end of if block
+    }// end of readWriteMix method
+
+}// end of BookLoadTests class
@@ -0,0 +1,205 @@
+package com.library.books.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * One simulated client: runs the operations of the mix against the BookController endpoints over HTTP,
+ * reading every response body in full as a real client would. The books of index 0 to books - 1 are seeded
+ * before the run, the ones a client adds get fresh indexes and only that client deletes them again,
+ * so that no two clients ever race on the same book and every request is expected to succeed.
+ */
+public class LoadClient {
+
+    private static final String[] FIRST_NAMES = {"Ada", "Alan", "Barbara", "Claude", "Donald", "Edsger", "Frances", "Grace",
+            "John", "Ken", "Leslie", "Margaret", "Niklaus", "Radia", "Robin", "Shafi", "Tim", "Tony", "Vint", "Whitfield"};
+    private static final String[] LAST_NAMES = {"Lovelace", "Turing", "Liskov", "Shannon", "Knuth", "Dijkstra", "Allen",
+            "Hopper", "Backus", "Thompson", "Lamport", "Hamilton", "Wirth", "Perlman", "Milner", "Goldwasser", "Berners-Lee",
+            "Hoare", "Cerf", "Diffie", "Ritchie", "Kay", "Codd", "Gray", "Stonebraker"};
+    private static final String[] ADJECTIVES = {"Silent", "Crimson", "Hidden", "Last", "Distant", "Broken", "Golden",
+            "Forgotten", "Endless", "Quiet", "Burning", "Winter"};
+    private static final String[] NOUNS = {"Garden", "River", "Kingdom", "Letter", "Harbour", "Mountain", "Library",
+            "Compiler", "Machine", "Voyage", "Archive", "Orchard"};
+    private static final int PUBLISHERS = 50, YEARS = 75, PRICES = 40, PAGE_SIZE = 20, PAGES = 50, BATCH = 10;
+
+    private final HttpClient httpClient;
+    private final String baseUri;
+    private final int books;
+    private final AtomicLong nextIndex; // shared by the clients, the next index of a book to add
+    private final Random random;
+    private final Deque<Long> added = new ArrayDeque<>(); // books added by this client and not deleted yet
+
+    public LoadClient(HttpClient httpClient, String baseUri, int books, AtomicLong nextIndex, long seed) {
+        this.httpClient = httpClient;
+        this.baseUri = baseUri;
+        this.books = books;
+        this.nextIndex = nextIndex;
+        this.random = new Random(seed);
+    }// end of LoadClient constructor
+
+    // status of a request, recorded under the operation that actually ran
+    public record Outcome(String operation, int status) {
+
+        public boolean succeeded() {
+            return status >= 200 && status < 300;
+        }// end of succeeded method
+
+    }// end of Outcome record
+
+    public Outcome run(String operation) throws IOException, InterruptedException {
+        return switch (operation) {
+            case "getBookByISBN" -> get(operation, "/books/getBookByISBN:?isbn=" + isbn(seeded()));
+            case "getAllBooks" -> get(operation, "/books/getAllBooks:?size=" + PAGE_SIZE + "&page=" + random.nextInt(PAGES));
+            case "getAllBooksByAuthors" -> get(operation, "/books/getAllBooksByAuthors:?authors=" + encode(authors(seeded())));
+            case "getBookByBookTitle" -> get(operation, "/books/getBookByBookTitle:?bookTitle=" + encode(title(seeded())));
+            case "getAllBooksByPublisher" -> get(operation, "/books/getAllBooksByPublisher:?publishers=" + encode(publisher(seeded())));
+            case "getAllBooksByYearPublished" -> get(operation, "/books/getAllBooksByYearPublished:?yearPublished=" + year(seeded()));
+            case "getAllBooksByPrice" -> get(operation, "/books/getAllBooksByPrice:?price=" + price(seeded()));
+            case "filter" -> {
+                long index = seeded();
+                yield get(operation, "/books/filter:?publisher=" + encode(publisher(index))
+                        + "&minYearPublished=" + year(index) + "&maxPrice=" + price(index));
+            }
+            case "search" -> get(operation, "/books/search:?q=" + encode(NOUNS[random.nextInt(NOUNS.length)].toLowerCase()));
+            case "cacheStats" -> get(operation, "/books/cache-stats:");
+            case "export" -> get(operation, "/books/export:");
+            case "addBook" -> addBook();
+            case "addBooks" -> addBooks();
+            case "updateBook" -> {
+                long index = seeded();
+                yield send(operation, "PUT", "/books/update-book:isbn=" + isbn(index),
+                        bookJson(index, price(random.nextInt(PRICES))));
+            }
+            case "patchBooks" -> {
+                List<String> patches = new ArrayList<>(BATCH);
+                for (int i = 0; i < BATCH; i++) {
+                    patches.add("{\"isbn\":\"" + isbn(seeded()) + "\",\"price\":" + price(random.nextInt(PRICES)) + "}");
+                }// end of for loop
+                yield send(operation, "PATCH", "/books/update-books:", "[" + String.join(",", patches) + "]");
+            }
+            case "deleteBookByISBN" -> added.isEmpty() ? addBook()
+                    : send(operation, "DELETE", "/books/delete-book:isbn=" + isbn(added.poll()), null);
+            case "deleteBooks" -> {
+                if (added.isEmpty()) {
+                    yield addBook();
+                }// end of if block
+                List<String> isbns = new ArrayList<>();
+                while (!added.isEmpty() && isbns.size() < BATCH / 2) {
+                    isbns.add("\"" + isbn(added.poll()) + "\"");
+                }// end of while loop
+                yield send(operation, "POST", "/books/delete-books:batch", "[" + String.join(",", isbns) + "]");
+            }
+            case "deleteBookByBookTitle" -> added.isEmpty() ? addBook()
+                    : send(operation, "DELETE", "/books/delete-book:bookTitle=" + encode(title(added.poll())).replace("+", "%20"), null);
+            default -> throw new IllegalArgumentException("Unknown load-test operation: " + operation);
+        };
+    }// end of run method
+
+    // add the books of index first to first + count - 1 through the bulk endpoint
+    public Outcome seed(long first, int count) throws IOException, InterruptedException {
+        List<String> books = new ArrayList<>(count);
+        for (long index = first; index < first + count; index++) {
+            books.add(bookJson(index, price(index)));
+        }// end of for loop
+        return send("seed", "POST", "/books/add-books:", "[" + String.join(",", books) + "]");
+    }// end of seed method
+
+    private Outcome addBook() throws IOException, InterruptedException {
+        long index = nextIndex.getAndIncrement();
+        Outcome outcome = send("addBook", "POST", "/books/add-book:", bookJson(index, price(index)));
+        if (outcome.succeeded()) {
+            added.add(index);
+        }// end of if block
+        return outcome;
+    }// end of addBook method
+
+    private Outcome addBooks() throws IOException, InterruptedException {
+        long first = nextIndex.getAndAdd(BATCH);
+        List<String> books = new ArrayList<>(BATCH);
+        for (long index = first; index < first + BATCH; index++) {
+            books.add(bookJson(index, price(index)));
+        }// end of for loop
+        Outcome outcome = send("addBooks", "POST", "/books/add-books:", "[" + String.join(",", books) + "]");
+        if (outcome.succeeded()) {
+            for (long index = first; index < first + BATCH; index++) {
+                added.add(index);
+            }// end of for loop
+        }// end of if block
+        return outcome;
+    }// end of addBooks method
+
+    private Outcome get(String operation, String path) throws IOException, InterruptedException {
+        return send(operation, "GET", path, null);
+    }// end of get method
+
+    private Outcome send(String operation, String method, String path, String json) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUri + path))
+                .header("Accept", "application/json, application/x-ndjson");
+        if (json == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(json));
+        }// end of if-else block
+        HttpResponse<Void> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+        return new Outcome(operation, response.statusCode());
+    }// end of send method
+
+    private long seeded() {
+        return random.nextInt(books);
+    }// end of seeded method
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }// end of encode method
+
+    // the deterministic fields of the book of the given index
+    static String title(long index) {
+        return "The " + ADJECTIVES[(int) (index % ADJECTIVES.length)] + " " + NOUNS[(int) (index / ADJECTIVES.length % NOUNS.length)] + " " + index;
+    }// end of title method
+
+    static String authors(long index) {
+        return FIRST_NAMES[(int) (index % FIRST_NAMES.length)] + " " + LAST_NAMES[(int) (index / FIRST_NAMES.length % LAST_NAMES.length)];
+    }// end of authors method
+
+    static String publisher(long index) {
+        return "Publisher " + index % PUBLISHERS;
+    }// end of publisher method
+
+    static int year(long index) {
+        return 1950 + (int) (index % YEARS);
+    }// end of year method
+
+    static double price(long index) {
+        return (index % PRICES * 100 + 99) / 100.0;
+    }// end of price method
+
+    static String bookJson(long index, double price) {
+        return "{\"bookTitle\":\"" + title(index) + "\",\"authors\":\"" + authors(index) + "\",\"publisher\":\"" + publisher(index)
+                + "\",\"isbn\":\"" + isbn(index) + "\",\"yearPublished\":" + year(index) + ",\"price\":" + price + "}";
+    }// end of bookJson method
+
+    // the canonical ISBN-13 978-0-XXXX-XXXX-C built from the index
+    static String isbn(long index) {
+        String digits = String.format("978%09d", index);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }// end of for loop
+        digits += (10 - sum % 10) % 10;
+        return digits.substring(0, 3) + "-" + digits.charAt(3) + "-" + digits.substring(4, 8)
+                + "-" + digits.substring(8, 12) + "-" + digits.charAt(12);
+    }// end of isbn method
+
+}// end of LoadClient class
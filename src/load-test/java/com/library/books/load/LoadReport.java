@@ -0,0 +1,103 @@
+package com.library.books.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Latencies of the measured requests, one HdrHistogram per operation, in microseconds up to a minute
+ * with 3 significant digits. The clients are closed loop: a slow response delays the next request of its client,
+ * so the percentiles are those the clients saw, not those of a fixed arrival rate.
+ */
+public class LoadReport {
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    private record Operation(Histogram latencies, LongAdder errors) {
+    }// end of Operation record
+
+    public void record(LoadClient.Outcome outcome, long nanos) {
+        Operation operation = operations.computeIfAbsent(outcome.operation(),
+                name -> new Operation(new ConcurrentHistogram(HIGHEST_MICROS, 3), new LongAdder()));
+        operation.latencies().recordValue(Math.min(HIGHEST_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        if (!outcome.succeeded()) {
+            operation.errors().increment();
+        }// end of if block
+    }// end of record method
+
+    public Histogram total() {
+        Histogram total = new Histogram(HIGHEST_MICROS, 3);
+        operations.values().forEach(operation -> total.add(operation.latencies()));
+        return total;
+    }// end of total method
+
+    public long errors() {
+        return operations.values().stream().mapToLong(operation -> operation.errors().sum()).sum();
+    }// end of errors method
+
+    // the summary of the run, with the same figures for every operation
+    public Map<String, Object> summary(LoadSettings settings, Duration measured) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("books", settings.books());
+        summary.put("clients", settings.clients());
+        summary.put("warmUpSeconds", settings.warmUp().toSeconds());
+        summary.put("durationSeconds", measured.toMillis() / 1000.0);
+        summary.put("mix", settings.mix());
+        summary.putAll(figures(total(), errors(), measured));
+        Map<String, Object> byOperation = new LinkedHashMap<>();
+        settings.mix().keySet().stream()
+                .filter(operations::containsKey)
+                .forEach(name -> byOperation.put(name, figures(operations.get(name).latencies(), operations.get(name).errors().sum(), measured)));
+        operations.keySet().stream() // operations run in place of another one, an add when there was nothing to delete
+                .filter(name -> !byOperation.containsKey(name))
+                .forEach(name -> byOperation.put(name, figures(operations.get(name).latencies(), operations.get(name).errors().sum(), measured)));
+        summary.put("operations", byOperation);
+        return summary;
+    }// end of summary method
+
+    public void write(Map<String, Object> summary, Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }// end of if block
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), summary);
+    }// end of write method
+
+    private static Map<String, Object> figures(Histogram latencies, long errors, Duration measured) {
+        Map<String, Object> figures = new LinkedHashMap<>();
+        long requests = latencies.getTotalCount();
+        figures.put("requests", requests);
+        figures.put("errors", errors);
+        figures.put("throughput", round(requests * 1000.0 / Math.max(1, measured.toMillis())));
+        Map<String, Object> millis = new LinkedHashMap<>();
+        millis.put("mean", round(latencies.getMean() / 1000.0));
+        millis.put("p50", millis(latencies, 50));
+        millis.put("p90", millis(latencies, 90));
+        millis.put("p99", millis(latencies, 99));
+        millis.put("p999", millis(latencies, 99.9));
+        millis.put("max", round(latencies.getMaxValue() / 1000.0));
+        figures.put("latencyMillis", millis);
+        return figures;
+    }// end of figures method
+
+    static double millis(Histogram latencies, double percentile) {
+        return round(latencies.getValueAtPercentile(percentile) / 1000.0);
+    }// end of millis method
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }// end of round method
+
+}// end of LoadReport class
@@ -0,0 +1,63 @@
+package com.library.books.load;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Settings of a load-test run, read from the "load.*" system properties, e.g.
+ * ./mvnw -Pload-test test -Dload.clients=200 -Dload.duration=PT2M -Dload.mix=getBookByISBN=80,updateBook=20
+ * The mix weighs the operations of LoadClient, the ones left out of it are not run.
+ * The max-/min- settings gate the run: the test fails when the result breaks one of them.
+ */
+public record LoadSettings(int books,
+                           int clients,
+                           Duration warmUp,
+                           Duration duration,
+                           Map<String, Integer> mix,
+                           long seed,
+                           String resultFile,
+                           double maxP99Millis, // 0 for no gate
+                           double minThroughput, // 0 for no gate
+                           double maxErrorRate) {
+
+    // about 85% reads and 15% writes, every endpoint but the delete of the whole catalog and the file import
+    static final String DEFAULT_MIX = "getBookByISBN=30,getAllBooks=10,getAllBooksByAuthors=8,getBookByBookTitle=5,"
+            + "getAllBooksByPublisher=5,getAllBooksByYearPublished=5,getAllBooksByPrice=4,filter=8,search=8,"
+            + "cacheStats=1,export=1,addBook=4,addBooks=1,updateBook=3,patchBooks=2,deleteBookByISBN=3,"
+            + "deleteBooks=1,deleteBookByBookTitle=1";
+
+    public static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                Integer.getInteger("load.books", 10_000),
+                Integer.getInteger("load.clients", 50),
+                Duration.parse(System.getProperty("load.warm-up", "PT10S")),
+                Duration.parse(System.getProperty("load.duration", "PT30S")),
+                parseMix(System.getProperty("load.mix", DEFAULT_MIX)),
+                Long.getLong("load.seed", 42),
+                System.getProperty("load.result-file", "target/load-test-result.json"),
+                Double.parseDouble(System.getProperty("load.max-p99-millis", "0")),
+                Double.parseDouble(System.getProperty("load.min-throughput", "0")),
+                Double.parseDouble(System.getProperty("load.max-error-rate", "0")));
+    }// end of fromSystemProperties method
+
+    // "operation=weight,..." in the order given
+    static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("load.mix entry is not operation=weight: " + entry);
+            }// end of if block
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(parts[0].trim(), weight);
+            }// end of if block
+        }// end of for loop
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no operation with a positive weight");
+        }// end of if block
+        return weights;
+    }// end of parseMix method
+
+}// end of LoadSettings record
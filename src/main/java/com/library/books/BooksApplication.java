@@ -2,8 +2,10 @@ package com.library.books;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class BooksApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(BooksApplication.class, args);
@@ -0,0 +1,124 @@
+package com.library.books.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// externalised settings of the books service, bound from the "library.books" prefix
+@Data
+@ConfigurationProperties(prefix = "library.books")
+public class BooksProperties {
+
+    private Bulk bulk = new Bulk(); // settings of the bulk insert path
+    private Paging paging = new Paging(); // settings of the paginated list endpoints
+    private Cache cache = new Cache(); // settings of the ISBN read-through cache
+    private Search search = new Search(); // settings of the full-text search index
+    private FileImport fileImport = new FileImport(); // settings of the CSV / JSONL file import
+    private SecondLevelCache secondLevelCache = new SecondLevelCache(); // settings of the Hibernate entity and query cache
+    private Ingest ingest = new Ingest(); // settings of the asynchronous add-book queue
+    private ChangeFeed changeFeed = new ChangeFeed(); // settings of the server-sent change feed
+    private Statistics statistics = new Statistics(); // settings of the catalog statistics
+    private RequestCompression requestCompression = new RequestCompression(); // settings of the gzip request bodies
+    private Replication replication = new Replication(); // settings of the read replicas
+
+    @Data
+    public static class Bulk {
+        // number of rows sent to the database in one JDBC batch and per ISBN lookup
+        private int batchSize = 500;
+    }// end of Bulk class
+
+    @Data
+    public static class Paging {
+        private int defaultSize = 20; // page size used when the client does not ask for one
+        private int maxSize = 1000; // largest page size a client may ask for
+    }// end of Paging class
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private long maximumSize = 10_000; // books kept before the least valuable ones are evicted
+        private Duration expireAfterWrite; // no expiry when not set
+    }// end of Cache class
+
+    @Data
+    public static class Search {
+        private int minPrefixLength = 3; // shorter query terms only match whole words
+        private int minFuzzyLength = 4; // shorter query terms are not corrected for typos
+        private int maxExpansions = 50; // indexed terms a query term may expand to by prefix or by typo
+    }// end of Search class
+
+    @Data
+    public static class FileImport {
+        private String directory = "imports"; // only files below this directory can be imported
+        private int chunkSize = 5000; // rows committed in one transaction, and between two checkpoints
+        private Duration progressInterval = Duration.ofSeconds(10); // time between two progress log lines
+        private int maxRejections = 100; // rejected rows listed in the import status, the others are only counted
+    }// end of FileImport class
+
+    @Data
+    public static class Ingest {
+        private int queueCapacity = 10_000; // books waiting for the worker, more are refused with 429
+        private int maxBatchSize = 500; // books inserted in one transaction
+        private Duration maxDelay = Duration.ofMillis(20); // time a batch waits for more books before it is inserted
+        private Duration retryAfter = Duration.ofSeconds(1); // Retry-After sent with a 429 or a 503
+        private Duration ticketRetention = Duration.ofMinutes(10); // time a ticket can be looked up after it is issued
+        private long maxTickets = 1_000_000; // tickets kept before the oldest ones are forgotten
+    }// end of Ingest class
+
+    @Data
+    public static class ChangeFeed {
+        private int capacity = 50_000; // latest changes kept for replay, a client further behind is sent a reset
+        private int maxBatchSize = 500; // changes written to a client in one flush
+        private Duration heartbeat = Duration.ofSeconds(15); // time between two keep-alive comments of an idle stream
+        private Duration streamTimeout = Duration.ofMinutes(30); // a stream is closed after it, clients reconnect with Last-Event-ID
+    }// end of ChangeFeed class
+
+    @Data
+    public static class Statistics {
+        // upper bounds of the price histogram ranges, a last range holds the books priced above the last bound
+        private List<Double> priceBuckets = List.of(10.0, 20.0, 50.0, 100.0);
+    }// end of Statistics class
+
+    @Data
+    public static class RequestCompression {
+        // largest body a gzip request may inflate to, a larger one is refused with 413
+        private DataSize maxInflatedSize = DataSize.ofMegabytes(64);
+    }// end of RequestCompression class
+
+    @Data
+    public static class Replication {
+        private boolean enabled = false; // read-only transactions go to the replicas when set, everything goes to spring.datasource otherwise
+        private List<Replica> replicas = new ArrayList<>(); // taken in turn by the read-only transactions
+        private Duration maxLag = Duration.ofSeconds(10); // how far the replicas may trail, a book written within it is looked up on the primary
+    }// end of Replication class
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username; // the primary's when not set
+        private String password; // the primary's when not set
+        private int maximumPoolSize = 10; // connections of this replica's pool
+    }// end of Replica class
+
+    @Data
+    public static class SecondLevelCache {
+        private boolean enabled = false; // off unless asked for, the ISBN cache serves the lookups by ISBN either way
+        private Region entities = new Region(10_000, Duration.ofMinutes(30)); // books by id
+        private Region queries = new Region(2_000, Duration.ofMinutes(10)); // results of the cached finder queries
+    }// end of SecondLevelCache class
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Region {
+        private long maximumSize; // entries kept before the least valuable ones are evicted
+        private Duration timeToLive; // no expiry when not set
+    }// end of Region class
+
+}// end of BooksProperties class
@@ -0,0 +1,56 @@
+package com.library.books.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.library.books.controller.BookColumnsHttpMessageConverter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/*
+ * The encodings of the books endpoints besides JSON, chosen by the Accept header of the response and by the
+ * Content-Type of the request body: CBOR and Smile through Jackson, configured like the JSON converter,
+ * and the columnar encoding of BookColumns for the pages of books and the add-books: body.
+ * Spring Boot puts these converters in place of, or ahead of, its own ones.
+ * The ETags of a page do not depend on its encoding, so the responses vary on Accept for the HTTP caches.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ContentFormatConfiguration implements WebMvcConfigurer {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }// end of cborHttpMessageConverter method
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }// end of smileHttpMessageConverter method
+
+    @Bean
+    public BookColumnsHttpMessageConverter bookColumnsHttpMessageConverter() {
+        return new BookColumnsHttpMessageConverter();
+    }// end of bookColumnsHttpMessageConverter method
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+            }// end of preHandle method
+        }).addPathPatterns("/books/**");
+    }// end of addInterceptors method
+
+}// end of ContentFormatConfiguration class
@@ -0,0 +1,83 @@
+package com.library.books.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ * Sends the connections of the read-only transactions to the replicas, taken in turn, and every other connection
+ * to the primary: the writes, the reads made inside a write, and the statements run outside any transaction.
+ * The transaction is only known to be read-only once it has begun, after Hibernate has asked for its connection,
+ * so this DataSource is used behind a LazyConnectionDataSourceProxy, which takes the connection at the first statement.
+ * A thread can pin its reads to the primary with onPrimary, to read its own writes or state that must not lag behind them.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+
+    // set while the reads of the thread must see the primary, by onPrimary and by the X-Read-Your-Writes header
+    static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> false);
+
+    private final List<HikariDataSource> replicas;
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<HikariDataSource> replicas) {
+        this.replicas = replicas;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (HikariDataSource replica : replicas) {
+            replicaKeys.add(replica.getPoolName());
+            targets.put(replica.getPoolName(), replica);
+        }// end of for loop
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }// end of ReadWriteRoutingDataSource constructor
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PRIMARY_REQUIRED.get()) {
+            return PRIMARY;
+        }// end of if block
+        return replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+    }// end of determineCurrentLookupKey method
+
+    // run the task with the reads of this thread on the primary, a no-op without replicas
+    public static void onPrimary(Runnable task) {
+        onPrimary(() -> {
+            task.run();
+            return null;
+        });
+    }// end of onPrimary method
+
+    public static <T> T onPrimary(Supplier<T> task) {
+        boolean required = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(true);
+        try {
+            return task.get();
+        } finally {
+            PRIMARY_REQUIRED.set(required);
+        }// end of try-finally block
+    }// end of onPrimary method
+
+    // whether the reads of this thread are pinned to the primary, by onPrimary or by the X-Read-Your-Writes header
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get();
+    }// end of isPrimaryRequired method
+
+    // the primary is a bean of its own and is closed by the context
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }// end of close method
+
+}// end of ReadWriteRoutingDataSource class
@@ -0,0 +1,102 @@
+package com.library.books.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Read replicas of the catalog, when library.books.replication.enabled is set: the read-only transactions of the services
+ * are spread over library.books.replication.replicas in turn, and everything else goes to spring.datasource, the primary.
+ * Each replica has a Hikari pool of its own, published with the primary's as hikaricp.connections{pool}.
+ * A request sent with X-Read-Your-Writes: true reads from the primary, so a client sees its own writes at once,
+ * whatever the lag of the replicas.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "library.books.replication", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfiguration {
+
+    public static final String READ_YOUR_WRITES_HEADER = "X-Read-Your-Writes";
+
+    // the pool Spring Boot would have made of spring.datasource, which it no longer makes once a DataSource is declared
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("books-primary");
+        return dataSource;
+    }// end of primaryDataSource method
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(HikariDataSource primaryDataSource,
+                                                                 DataSourceProperties dataSourceProperties,
+                                                                 BooksProperties booksProperties,
+                                                                 MeterRegistry meterRegistry) {
+        List<BooksProperties.Replica> settings = booksProperties.getReplication().getReplicas();
+        if (settings.isEmpty()) {
+            throw new IllegalStateException("library.books.replication.enabled is set without any library.books.replication.replicas");
+        }// end of if block
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (BooksProperties.Replica replica : settings) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername() == null ? dataSourceProperties.determineUsername() : replica.getUsername())
+                    .password(replica.getPassword() == null ? dataSourceProperties.determinePassword() : replica.getPassword())
+                    .build();
+            dataSource.setPoolName("books-replica-" + (replicas.size() + 1));
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(dataSource);
+        }// end of for loop
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas);
+    }// end of readWriteRoutingDataSource method
+
+    // the DataSource of JPA, JDBC and the SQL initialization
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }// end of dataSource method
+
+    @Bean
+    public OncePerRequestFilter readYourWritesFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                    throws ServletException, IOException {
+                response.addHeader(HttpHeaders.VARY, READ_YOUR_WRITES_HEADER); // a shared cache must not answer one with the other
+                if (!Boolean.parseBoolean(request.getHeader(READ_YOUR_WRITES_HEADER))) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }// end of if block
+                ReadWriteRoutingDataSource.PRIMARY_REQUIRED.set(true);
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    ReadWriteRoutingDataSource.PRIMARY_REQUIRED.remove();
+                }// end of try-finally block
+            }// end of doFilterInternal method
+        };
+    }// end of readYourWritesFilter method
+
+}// end of ReplicaRoutingConfiguration class
@@ -0,0 +1,110 @@
+package com.library.books.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/*
+ * Hibernate second-level cache of the books, on a local Caffeine JCache, when library.books.second-level-cache.enabled is set.
+ * Book entities are cached by id, and the finder queries marked cacheable in BookRepository keep their results,
+ * projections included, until a write to the book table invalidates them or their time to live is over.
+ * Writes made around Hibernate invalidate them through BookBulkRepository.evictCachedBooks.
+ * Hits, misses and puts of both regions are published as cache.gets and cache.puts, as for the ISBN cache.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "library.books.second-level-cache", name = "enabled", havingValue = "true")
+public class SecondLevelCacheConfiguration {
+
+    public static final String ENTITY_REGION = "books.book";
+    public static final String QUERY_REGION = "books.queries";
+
+    // the regions are created here, sized and expired from the properties, Hibernate fails on any other region
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(BooksProperties booksProperties) {
+        BooksProperties.SecondLevelCache settings = booksProperties.getSecondLevelCache();
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("books-second-level-cache"), getClass().getClassLoader(), new Properties());
+        cacheManager.createCache(ENTITY_REGION, region(settings.getEntities()));
+        cacheManager.createCache(QUERY_REGION, region(settings.getQueries()));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(settings.getQueries()));
+        // last update of each table, checked by every cached query: it must outlive them, so it is neither bounded nor expired
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(new BooksProperties.Region()));
+        return cacheManager;
+    }// end of secondLevelCacheManager method
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true); // the hit and miss counts of the regions
+            properties.put(AvailableSettings.LOG_SESSION_METRICS, false); // statistics would log every session otherwise
+        };
+    }// end of secondLevelCacheProperties method
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return meterRegistry -> {
+            bind(meterRegistry, ENTITY_REGION, name -> statistics.getDomainDataRegionStatistics(name));
+            bind(meterRegistry, QUERY_REGION, name -> statistics.getQueryRegionStatistics(name));
+        };
+    }// end of secondLevelCacheMetrics method
+
+    private static CaffeineConfiguration<Object, Object> region(BooksProperties.Region settings) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false); // Hibernate stores its own disassembled copies already
+        if (settings.getMaximumSize() > 0) {
+            configuration.setMaximumSize(OptionalLong.of(settings.getMaximumSize()));
+        }// end of if block
+        if (settings.getTimeToLive() != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(settings.getTimeToLive().toNanos()));
+        }// end of if block
+        return configuration;
+    }// end of region method
+
+    // the statistics of a query region only exist once a query has used it, they count as 0 until then
+    private static void bind(MeterRegistry meterRegistry, String region, Function<String, CacheRegionStatistics> statistics) {
+        counter(meterRegistry, "cache.gets", region, "hit", statistics, CacheRegionStatistics::getHitCount);
+        counter(meterRegistry, "cache.gets", region, "miss", statistics, CacheRegionStatistics::getMissCount);
+        counter(meterRegistry, "cache.puts", region, null, statistics, CacheRegionStatistics::getPutCount);
+    }// end of bind method
+
+    private static void counter(MeterRegistry meterRegistry, String name, String region, String result,
+                                Function<String, CacheRegionStatistics> statistics, ToLongFunction<CacheRegionStatistics> count) {
+        FunctionCounter.Builder<String> builder = FunctionCounter.builder(name, region, key -> {
+                    CacheRegionStatistics regionStatistics = statistics.apply(key);
+                    return regionStatistics == null ? 0 : count.applyAsLong(regionStatistics);
+                })
+                .tag("cache", region);
+        if (result != null) {
+            builder.tag("result", result);
+        }// end of if block
+        builder.register(meterRegistry);
+    }// end of counter method
+
+}// end of SecondLevelCacheConfiguration class
@@ -0,0 +1,127 @@
+package com.library.books.controller;
+
+import com.library.books.config.BooksProperties;
+import com.library.books.service.changes.BookChangeFeed;
+import com.library.books.service.dto.BookChangeDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Streams the change feed to its clients as server-sent events, each with its sequence number as id,
+ * so that a reconnecting client resumes with Last-Event-ID. Every stream is written by its own virtual thread,
+ * which waits on the feed for the next changes and writes all of them with one flush: a slow client only
+ * holds its own thread, and falls behind until the changes it needs are no longer kept. It is then sent
+ * a reset event and the stream ends; the client reloads the catalog with /books/export:, whose
+ * X-Change-Sequence header tells where to resume from.
+ * The streams are ended before the web server shuts down, which would otherwise wait for them to time out.
+ */
+@Slf4j
+@Component
+public class BookChangeStream implements SmartLifecycle {
+
+    public static final String CHANGE_SEQUENCE_HEADER = "X-Change-Sequence";
+
+    private final BookChangeFeed bookChangeFeed;
+    private final BooksProperties.ChangeFeed settings;
+    private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet(); // open streams
+    private volatile boolean running;
+
+    public BookChangeStream(BookChangeFeed bookChangeFeed, BooksProperties booksProperties, MeterRegistry meterRegistry) {
+        this.bookChangeFeed = bookChangeFeed;
+        this.settings = booksProperties.getChangeFeed();
+        Gauge.builder("books.changes.clients", emitters, Set::size)
+                .description("Clients streaming the change feed")
+                .register(meterRegistry);
+    }// end of BookChangeStream constructor
+
+    // stream the changes following the given sequence number, or the ones to come when it is null
+    public SseEmitter open(Long after) {
+        SseEmitter emitter = new SseEmitter(settings.getStreamTimeout().toMillis());
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onCompletion(() -> close(emitter, closed));
+        emitter.onTimeout(() -> close(emitter, closed));
+        emitter.onError(error -> close(emitter, closed));
+        emitters.add(emitter);
+        long from = after != null ? after : bookChangeFeed.lastSequence();
+        Thread.ofVirtual().name("books-changes").start(() -> stream(emitter, closed, from));
+        return emitter;
+    }// end of open method
+
+    // helper method to write the changes as they come, until the client goes away or falls too far behind
+    private void stream(SseEmitter emitter, AtomicBoolean closed, long from) {
+        long sequence = from;
+        try {
+            while (!closed.get()) {
+                List<BookChangeDTO> changes = bookChangeFeed.after(sequence, settings.getMaxBatchSize(), settings.getHeartbeat());
+                if (changes == null) {
+                    emitter.send(SseEmitter.event()
+                            .name("reset")
+                            .data(Map.of("sequence", bookChangeFeed.lastSequence(), "snapshot", "/books/export:"), MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                    return;
+                } else if (changes.isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat")); // also finds out about closed connections
+                } else {
+                    Set<ResponseBodyEmitter.DataWithMediaType> events = new LinkedHashSet<>();
+                    for (BookChangeDTO change : changes) {
+                        events.addAll(SseEmitter.event()
+                                .id(Long.toString(change.sequence()))
+                                .name("change")
+                                .data(change, MediaType.APPLICATION_JSON)
+                                .build());
+                    }// end of for loop
+                    emitter.send(events);
+                    sequence = changes.getLast().sequence();
+                }// end of if-else block
+            }// end of while loop
+        } catch (IOException | IllegalStateException e) {
+            // the client went away, or the stream timed out while the changes were written
+            log.debug("Change stream closed at sequence {}", sequence, e);
+        } catch (InterruptedException e) {
+            emitter.complete();
+        } catch (RuntimeException e) {
+            // end the stream now, instead of leaving the client waiting for the stream timeout
+            log.warn("Change stream failed at sequence {}", sequence, e);
+            emitter.completeWithError(e);
+        } finally {
+            emitters.remove(emitter);
+        }// end of try-catch-finally block
+    }// end of stream method
+
+    private void close(SseEmitter emitter, AtomicBoolean closed) {
+        closed.set(true);
+        emitters.remove(emitter);
+    }// end of close method
+
+    @Override
+    public void start() {
+        running = true;
+    }// end of start method
+
+    // end every stream, the clients reconnect to another instance, or to this one once it is back, with Last-Event-ID
+    @Override
+    public void stop() {
+        running = false;
+        emitters.forEach(SseEmitter::complete);
+    }// end of stop method
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }// end of isRunning method
+
+}// end of BookChangeStream class
@@ -0,0 +1,75 @@
+package com.library.books.controller;
+
+import com.library.books.repository.entity.Book;
+import com.library.books.service.dto.BookDTO;
+import com.library.books.service.dto.BookPageDTO;
+import com.library.books.utility.BookColumns;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static com.library.books.service.dto.BookMapper.mapToBook;
+
+/*
+ * Reads and writes the columnar encoding of BookColumns: writes the pages of books of the list endpoints,
+ * and reads the list of books posted to add-books:. Any other body is left to the JSON, CBOR and Smile converters,
+ * so a request asking only for columns elsewhere is answered 406, and a body posted as columns elsewhere 415.
+ */
+public class BookColumnsHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String BOOK_COLUMNS_VALUE = "application/vnd.library.book-columns";
+    public static final MediaType BOOK_COLUMNS = MediaType.valueOf(BOOK_COLUMNS_VALUE);
+
+    public BookColumnsHttpMessageConverter() {
+        super(BOOK_COLUMNS);
+    }// end of BookColumnsHttpMessageConverter constructor
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BookPageDTO.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz);
+    }// end of supports method
+
+    // only a List<Book> body
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        return List.class.isAssignableFrom(resolved.toClass())
+                && resolved.getGeneric(0).toClass() == Book.class
+                && canRead(mediaType);
+    }// end of canRead method
+
+    // only a page of books
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return BookPageDTO.class.isAssignableFrom(clazz) && canWrite(mediaType);
+    }// end of canWrite method
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(List.class, inputMessage);
+    }// end of read method
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        List<BookDTO> bookDTOS;
+        try {
+            bookDTOS = BookColumns.read(inputMessage.getBody()).getContent();
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Invalid book columns body: " + e.getMessage(), e, inputMessage);
+        }// end of try-catch block
+        return bookDTOS.stream().map(bookDTO -> mapToBook(bookDTO, new Book())).toList();
+    }// end of readInternal method
+
+    @Override
+    protected void writeInternal(Object page, Type type, HttpOutputMessage outputMessage) throws IOException {
+        BookColumns.write((BookPageDTO) page, outputMessage.getBody());
+    }// end of writeInternal method
+
+}// end of BookColumnsHttpMessageConverter class
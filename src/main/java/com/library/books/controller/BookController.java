@@ -1,62 +1,148 @@
 package com.library.books.controller;
 
 import com.library.books.repository.entity.Book;
+import com.library.books.repository.projection.BookVersion;
+import com.library.books.service.IBookImportService;
+import com.library.books.service.IBookIngestService;
 import com.library.books.service.IBookService;
+import com.library.books.service.cache.CatalogVersion;
+import com.library.books.service.changes.BookChangeFeed;
 import com.library.books.service.dto.BookDTO;
+import com.library.books.service.dto.BookFilter;
+import com.library.books.service.dto.BookPatch;
+import com.library.books.service.dto.BookStatisticsDTO;
+import com.library.books.service.dto.BookPageDTO;
+import com.library.books.service.dto.BulkDeleteResultDTO;
+import com.library.books.service.dto.BulkInsertResultDTO;
+import com.library.books.service.dto.BulkPatchResultDTO;
+import com.library.books.service.dto.CacheStatsDTO;
+import com.library.books.service.dto.ImportStatusDTO;
+import com.library.books.service.dto.IngestTicketDTO;
+import com.library.books.service.dto.PageQuery;
+import com.library.books.service.dto.SearchResultDTO;
+import static com.library.books.config.ContentFormatConfiguration.APPLICATION_SMILE_VALUE;
+import static com.library.books.config.ReadWriteRoutingDataSource.onPrimary;
+import static com.library.books.controller.BookColumnsHttpMessageConverter.BOOK_COLUMNS_VALUE;
 import static com.library.books.utility.ISBNFormatter.formatISBN;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
-
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
-@RequestMapping(path = "/books", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(path = "/books", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
 @AllArgsConstructor
 public class BookController {
 
     private IBookService IBookService;
+    private ObjectMapper objectMapper;
+    private BookLinks bookLinks;
+    private CatalogVersion catalogVersion;
+    private IBookImportService bookImportService;
+    private IBookIngestService bookIngestService;
+    private BookChangeFeed bookChangeFeed;
+    private BookChangeStream bookChangeStream;
+    private ContentNegotiationManager contentNegotiationManager;
 
-    private void addLinksToBooks(List<BookDTO> bookDTOS) {
-        for (BookDTO bookDTO : bookDTOS) {
-            bookDTO.add(
-                    linkTo(methodOn(BookController.class).getAllBooks()).withSelfRel(),
-                    linkTo(methodOn(BookController.class).addBook(new Book(), UriComponentsBuilder.newInstance())).withRel("add-book:"),
-                    linkTo(methodOn(BookController.class).addAllBooks(List.of(), UriComponentsBuilder.newInstance())).withRel("add-books:"),
-                    linkTo(methodOn(BookController.class).deleteBookByISBN(bookDTO.getIsbn())).withRel("delete-book:isbn="),
-                    linkTo(methodOn(BookController.class).deleteBookByBookTitle(bookDTO.getBookTitle())).withRel("delete-book:bookTitle="),
-                    linkTo(methodOn(BookController.class).deleteAllBooks()).withRel("delete-books:"),
-                    linkTo(methodOn(BookController.class).updateBook(bookDTO.getIsbn(), null)).withRel("update-book:isbn="),
-                    linkTo(methodOn(BookController.class).getBookByISBN(bookDTO.getIsbn())).withRel("getBookByISBN:"),
-                    linkTo(methodOn(BookController.class).getAllBooksByAuthors(bookDTO.getAuthors())).withRel("getAllBooksByAuthors:"),
-                    linkTo(methodOn(BookController.class).getBookByBookTitle(bookDTO.getBookTitle())).withRel("getAllBookByBookTitle:"),
-                    linkTo(methodOn(BookController.class).getBookByPublisher(bookDTO.getPublisher())).withRel("getAllBooksByPublisher:"),
-                    linkTo(methodOn(BookController.class).getBookByYearPublished(bookDTO.getYearPublished())).withRel("getAllBooksByYearPublished:"),
-                    linkTo(methodOn(BookController.class).getBookByPrice(bookDTO.getPrice())).withRel("getAllBooksByPrice:")
-            );
-        }
+    void addLinksToBooks(List<BookDTO> bookDTOS) { // package-private for the JMH benchmarks
+        bookLinks.addLinks(bookDTOS);
     }// end of addLinksToBooks method
 
-    @GetMapping("/getAllBooks:")
-    public List<BookDTO> getAllBooks() {
-        return IBookService.getAllBooks();
+    @GetMapping(path = "/getAllBooks:",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, BOOK_COLUMNS_VALUE})
+    public BookPageDTO getAllBooks(@RequestParam(required = false) Integer page,
+                                   @RequestParam(required = false) Integer size,
+                                   @RequestParam(required = false) String cursor,
+                                   WebRequest webRequest) {
+        PageQuery pageQuery = new PageQuery(page, size, cursor);
+        if (catalogVersion.tagsReads()) {
+            // answer If-None-Match with 304 before any book is read or serialized
+            // the tag is taken first, so it is never newer than the page it is sent with
+            if (webRequest.checkNotModified(catalogVersion.catalogTag())) {
+                return null;
+            }// end of if block
+            return IBookService.getAllBooks(pageQuery);
+        }// end of if block
+        // from a replica, which may trail the commits the counter counts: the page is tagged by the books it holds
+        BookPageDTO bookPage = IBookService.getAllBooks(pageQuery);
+        return webRequest.checkNotModified(catalogVersion.pageTag(bookPage)) ? null : bookPage;
     }// end of getAllBooks method
 
     @GetMapping(path = "/getBookByISBN:", params = "isbn")
-    public BookDTO getBookByISBN(@RequestParam String isbn) {
-        return IBookService.getBookByISBN(isbn);
+    public BookDTO getBookByISBN(@RequestParam String isbn, NativeWebRequest webRequest) {
+        MediaType mediaType = negotiatedMediaType(webRequest);
+        // a conditional GET is answered from the id and version of the book, before the book itself is read
+        String versionTag = null;
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null || webRequest.getHeader(HttpHeaders.IF_MATCH) != null) {
+            Optional<BookVersion> version = IBookService.getBookVersionByISBN(isbn);
+            versionTag = version.map(current -> catalogVersion.bookTag(current.id(), current.version(), mediaType)).orElse(null);
+            if (versionTag != null && webRequest.checkNotModified(versionTag)) {
+                return null; // 304, or 412 for If-Match, nothing read or serialized
+            }// end of if block
+        }// end of if block
+        BookDTO bookDTO = IBookService.getBookByISBN(isbn); // from the ISBN cache unless it missed
+        String tag = catalogVersion.bookTag(bookDTO, mediaType);
+        if (versionTag == null) {
+            webRequest.checkNotModified(tag); // sets the ETag, and answers the condition if the book was not found by its version
+        } else if (!tag.equals(versionTag)) {
+            // changed since its version was read, the ETag is the one of the book sent
+            webRequest.getNativeResponse(HttpServletResponse.class).setHeader(HttpHeaders.ETAG, tag);
+        }// end of if-else block
+        return bookDTO;
     }// end of getBookByISBN method
 
-    @GetMapping(path = "/getAllBooksByAuthors:", params = "authors")
-    public List<BookDTO> getAllBooksByAuthors(@RequestParam String authors) {
-        return IBookService.getAllBooksByAuthors(authors);
+    // helper method to find the media type the body will be written in, the first one the handler produces
+    // that the client accepts, taken in the order Spring MVC sorts the Accept header in
+    // JSON when none is accepted, Spring MVC then answers 406 without using the tag
+    private MediaType negotiatedMediaType(NativeWebRequest webRequest) {
+        @SuppressWarnings("unchecked")
+        Set<MediaType> producible = webRequest == null ? null : (Set<MediaType>) webRequest.getAttribute(
+                HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (producible == null) {
+            return MediaType.APPLICATION_JSON;
+        }// end of if block
+        try {
+            for (MediaType acceptable : contentNegotiationManager.resolveMediaTypes(webRequest)) {
+                for (MediaType mediaType : producible) {
+                    if (acceptable.isCompatibleWith(mediaType)) {
+                        return mediaType;
+                    }// end of if block
+                }// end of for loop
+            }// end of for loop
+        } catch (HttpMediaTypeNotAcceptableException e) {
+            // an Accept header Spring MVC cannot parse either, it answers 406
+        }// end of try-catch block
+        return MediaType.APPLICATION_JSON;
+    }// end of negotiatedMediaType method
+
+    @GetMapping(path = "/getAllBooksByAuthors:", params = "authors",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, BOOK_COLUMNS_VALUE})
+    public BookPageDTO getAllBooksByAuthors(@RequestParam String authors,
+                                            @RequestParam(required = false) Integer page,
+                                            @RequestParam(required = false) Integer size,
+                                            @RequestParam(required = false) String cursor) {
+        return IBookService.getAllBooksByAuthors(authors, new PageQuery(page, size, cursor));
     }// end of getAllBooksByAuthors method
 
     @GetMapping(path = "/getBookByBookTitle:", params = "bookTitle")
@@ -64,25 +150,114 @@ public class BookController {
         return IBookService.getBookByBookTitle(bookTitle);
     }// end of getBookByBookTitle method
 
-    @GetMapping(path = "/getAllBooksByPublisher:", params = "publishers")
-    public List<BookDTO> getBookByPublisher(@RequestParam String publishers) {
-        return IBookService.getBookByPublisher(publishers);
+    @GetMapping(path = "/getAllBooksByPublisher:", params = "publishers",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, BOOK_COLUMNS_VALUE})
+    public BookPageDTO getBookByPublisher(@RequestParam String publishers,
+                                          @RequestParam(required = false) Integer page,
+                                          @RequestParam(required = false) Integer size,
+                                          @RequestParam(required = false) String cursor) {
+        return IBookService.getBookByPublisher(publishers, new PageQuery(page, size, cursor));
     }// end of getBookByPublisher method
 
-    @GetMapping(path = "/getAllBooksByYearPublished:", params = "yearPublished")
-    public List<BookDTO> getBookByYearPublished(@RequestParam int yearPublished) {
-        return IBookService.getBookByYearPublished(yearPublished);
+    @GetMapping(path = "/getAllBooksByYearPublished:", params = "yearPublished",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, BOOK_COLUMNS_VALUE})
+    public BookPageDTO getBookByYearPublished(@RequestParam int yearPublished,
+                                              @RequestParam(required = false) Integer page,
+                                              @RequestParam(required = false) Integer size,
+                                              @RequestParam(required = false) String cursor) {
+        return IBookService.getBookByYearPublished(yearPublished, new PageQuery(page, size, cursor));
     }// end of getBookByYearPublished method
 
-    @GetMapping(path = "/getAllBooksByPrice:", params = "price")
-    public List<BookDTO> getBookByPrice(@RequestParam double price) {
-        return IBookService.getBookByPrice(price);
+    @GetMapping(path = "/getAllBooksByPrice:", params = "price",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, BOOK_COLUMNS_VALUE})
+    public BookPageDTO getBookByPrice(@RequestParam double price,
+                                      @RequestParam(required = false) Integer page,
+                                      @RequestParam(required = false) Integer size,
+                                      @RequestParam(required = false) String cursor) {
+        return IBookService.getBookByPrice(price, new PageQuery(page, size, cursor));
     }// end of getBookByPrice method
 
+    @GetMapping(path = "/filter:",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, BOOK_COLUMNS_VALUE})
+    public BookPageDTO filterBooks(@RequestParam(required = false) String authors,
+                                   @RequestParam(required = false) String publisher,
+                                   @RequestParam(required = false) Integer minYearPublished,
+                                   @RequestParam(required = false) Integer maxYearPublished,
+                                   @RequestParam(required = false) Double minPrice,
+                                   @RequestParam(required = false) Double maxPrice,
+                                   @RequestParam(required = false) String sort,
+                                   @RequestParam(required = false) Integer page,
+                                   @RequestParam(required = false) Integer size,
+                                   @RequestParam(required = false) String cursor) {
+        BookFilter filter = new BookFilter(authors, publisher, minYearPublished, maxYearPublished, minPrice, maxPrice, sort);
+        return IBookService.filterBooks(filter, new PageQuery(page, size, cursor));
+    }// end of filterBooks method
+
+    @GetMapping(path = "/search:", params = "q")
+    public SearchResultDTO searchBooks(@RequestParam String q,
+                                       @RequestParam(required = false) Integer page,
+                                       @RequestParam(required = false) Integer size) {
+        return IBookService.searchBooks(q, new PageQuery(page, size, null));
+    }// end of searchBooks method
+
+    @GetMapping("/cache-stats:")
+    public CacheStatsDTO getCacheStats() {
+        return IBookService.getCacheStats();
+    }// end of getCacheStats method
+
+    // counts and prices of the whole catalog, kept up to date by the writes instead of counted by every request
+    @GetMapping("/statistics:")
+    public BookStatisticsDTO getStatistics(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersion.catalogTag())) {
+            return null; // unchanged since the client's copy
+        }// end of if block
+        return IBookService.getStatistics();
+    }// end of getStatistics method
+
+    @GetMapping(path = "/export:", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAllBooks() {
+        // taken before any book is read, a change feed client resumes from it and may see some changes twice
+        long changeSequence = bookChangeFeed.lastSequence();
+        // write each book as one JSON line while it is read, so the catalog is never held in memory
+        // read from the primary, a replica lagging behind the sequence would lose changes the client does not replay
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null); // each line is terminated by a newline instead
+                onPrimary(() -> IBookService.exportAllBooks(bookDTO -> {
+                    try {
+                        generator.writeObject(bookDTO);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // client went away, abort the export
+                    }// end of try-catch block
+                }));
+            }// end of try-with-resources block
+        };
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(BookChangeStream.CHANGE_SEQUENCE_HEADER, Long.toString(changeSequence))
+                .body(body);
+    }// end of exportAllBooks method
+
+    // server-sent events of the committed changes, following the after parameter or the Last-Event-ID header
+    // without either, only the changes from now on are sent
+    @GetMapping(path = "/changes:", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long after,
+                                    @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        return bookChangeStream.open(lastEventId != null ? lastEventId : after);
+    }// end of streamChanges method
+
     @PostMapping("/add-book:")
-    public ResponseEntity<BookDTO> addBook(@RequestBody Book book, UriComponentsBuilder uriComponentsBuilder) {
+    public ResponseEntity<BookDTO> addBook(@RequestBody Book book,
+                                           @RequestHeader(name = BookLinks.LINK_MODE_HEADER, required = false) String linkMode,
+                                           UriComponentsBuilder uriComponentsBuilder) {
         BookDTO bookDTO = IBookService.addBook(book);
-        addLinksToBooks(List.of(bookDTO));
+        if (BookLinks.isCompact(linkMode)) {
+            bookLinks.addTemplatedLinks(bookDTO);
+        } else {
+            addLinksToBooks(List.of(bookDTO));
+        }// end of if-else block
         // build the location URI of the newly created resource
         URI locationURI = uriComponentsBuilder
                 .path("/books/getByISBN:isbn={isbn}")
@@ -95,22 +270,77 @@ public class BookController {
                 .body(bookDTO);
     }// end of addBook method
 
+    // queue a book to be added in the background, answered with 202 and a ticket before anything is written
+    // a full queue answers 429 and a stopping service 503, both with Retry-After
+    @PostMapping("/add-book:async")
+    public ResponseEntity<IngestTicketDTO> addBookAsync(@RequestBody Book book,
+                                                        UriComponentsBuilder uriComponentsBuilder) {
+        IngestTicketDTO ticket = bookIngestService.submit(book);
+        // build the location URI of the ticket status
+        URI locationURI = uriComponentsBuilder
+                .path("/books/ingest-status:")
+                .queryParam("ticket", ticket.getTicket())
+                .build()
+                .toUri();
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .location(locationURI)
+                .body(ticket);
+    }// end of addBookAsync method
+
+    @GetMapping(path = "/ingest-status:", params = "ticket")
+    public IngestTicketDTO getIngestStatus(@RequestParam String ticket) {
+        return bookIngestService.getTicket(ticket);
+    }// end of getIngestStatus method
+
     @PostMapping("/add-books:")
-    public ResponseEntity<List<BookDTO>> addAllBooks(@RequestBody List<Book> books, UriComponentsBuilder uriComponentsBuilder) {
-        List<BookDTO> bookDTOS = IBookService.addAllBooks(books);
-        addLinksToBooks(bookDTOS);
+    public ResponseEntity<BulkInsertResultDTO> addAllBooks(@RequestBody List<Book> books,
+                                                           @RequestHeader(name = BookLinks.LINK_MODE_HEADER, required = false) String linkMode,
+                                                           UriComponentsBuilder uriComponentsBuilder) {
+        BulkInsertResultDTO result = IBookService.addAllBooks(books);
+        if (BookLinks.isCompact(linkMode)) {
+            // the templates are sent once for the whole list instead of being expanded for every book
+            bookLinks.addTemplatedLinks(result);
+        } else {
+            addLinksToBooks(result.getAdded());
+        }// end of if-else block
         // build the location URI of the newly created resource
         URI locationURI = uriComponentsBuilder
                 .path("/books")
                 .build()
                 .toUri();
-        // return the response entity with the location URI and the bookDTO
+        // return the response entity with the location URI, the added books and the rejected ones
         return ResponseEntity
                 .status(HttpStatus.CREATED)
                 .location(locationURI)
-                .body(bookDTOS);
+                .body(result);
     }// end of addAllBooks method
 
+    // import a CSV or JSONL file of the configured import directory, in the background
+    // starting the import of a file again resumes it after its last committed chunk
+    @PostMapping(path = "/import:", params = "file")
+    public ResponseEntity<ImportStatusDTO> importBooks(@RequestParam String file,
+                                                       @RequestParam(required = false) String format,
+                                                       UriComponentsBuilder uriComponentsBuilder) {
+        ImportStatusDTO status = bookImportService.startImport(file, format);
+        // build the location URI of the import status
+        URI locationURI = uriComponentsBuilder
+                .path("/books/import-status:")
+                .queryParam("file", status.getFile())
+                .encode()
+                .build()
+                .toUri();
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .location(locationURI)
+                .body(status);
+    }// end of importBooks method
+
+    @GetMapping(path = "/import-status:", params = "file")
+    public ImportStatusDTO getImportStatus(@RequestParam String file) {
+        return bookImportService.getImportStatus(file);
+    }// end of getImportStatus method
+
     @PostMapping()
     public ResponseEntity<String> postNotSupported() {
         return ResponseEntity
@@ -126,13 +356,23 @@ public class BookController {
     }// end of putNotSupported method
 
     @PutMapping("/update-book:isbn={isbn}")
-    public ResponseEntity<String> updateBook(@PathVariable String isbn, @RequestBody Book book) {
-        IBookService.updateBook(isbn, book);
+    public ResponseEntity<String> updateBook(@PathVariable String isbn,
+                                             @RequestBody Book book,
+                                             @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        IBookService.updateBook(isbn, book, ifMatch); // 412 when If-Match no longer matches the book
         return ResponseEntity
                 .status(HttpStatus.ACCEPTED)
                 .body("Book with ISBN: " + formatISBN(isbn) + " has been updated!");
     }// end of updateBook method
 
+    // update some fields of many books in one request, the fields left out keep their value
+    @PatchMapping("/update-books:")
+    public ResponseEntity<BulkPatchResultDTO> patchBooks(@RequestBody List<BookPatch> patches) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(IBookService.patchBooks(patches));
+    }// end of patchBooks method
+
     @DeleteMapping("/delete-book:isbn={isbn}")
     public ResponseEntity<String> deleteBookByISBN(@PathVariable String isbn) {
         IBookService.deleteBookByISBN(isbn);
@@ -141,6 +381,14 @@ public class BookController {
                 .body("Book with ISBN: " + formatISBN(isbn) + " has been deleted!");
     }// end of deleteBookByISBN method
 
+    // delete many books by their ISBN in one request, POST since a DELETE body has no defined meaning
+    @PostMapping("/delete-books:batch")
+    public ResponseEntity<BulkDeleteResultDTO> deleteBooks(@RequestBody List<String> isbns) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(IBookService.deleteBooks(isbns));
+    }// end of deleteBooks method
+
     @DeleteMapping("/delete-books:")
     public ResponseEntity<String> deleteAllBooks() {
         IBookService.deleteAllBooks();
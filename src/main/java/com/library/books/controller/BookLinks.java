@@ -0,0 +1,165 @@
+package com.library.books.controller;
+
+import com.library.books.service.dto.BookDTO;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/*
+ * The HATEOAS links of the book responses.
+ * The links are resolved once through WebMvcLinkBuilder at startup, with a marker in place of every book value,
+ * and turned into templates. A request then resolves only its base URI, and each book only fills in its own values,
+ * instead of going through a proxied controller invocation and a URI template expansion per link.
+ */
+@Component
+public class BookLinks {
+
+    // request header choosing how the links are sent, "compact" sends the templates once per response
+    public static final String LINK_MODE_HEADER = "X-Link-Mode";
+    public static final String COMPACT_LINK_MODE = "compact";
+
+    private final List<LinkTemplate> templates = new ArrayList<>();
+
+    public BookLinks() {
+        // resolved outside of any request, so every href starts with the path of the controller
+        String controllerPath = linkTo(BookController.class).toUri().toString();
+        BookController controller = methodOn(BookController.class);
+        String isbn = Variable.ISBN.marker, bookTitle = Variable.BOOK_TITLE.marker;
+        addTemplate(controllerPath, linkTo(controller.getAllBooks(null, null, null, null)).withSelfRel());
+        addTemplate(controllerPath, linkTo(controller.addBook(null, null, null)).withRel("add-book:"));
+        addTemplate(controllerPath, linkTo(controller.addAllBooks(List.of(), null, null)).withRel("add-books:"));
+        addTemplate(controllerPath, linkTo(controller.deleteBookByISBN(isbn)).withRel("delete-book:isbn="));
+        addTemplate(controllerPath, linkTo(controller.deleteBookByBookTitle(bookTitle)).withRel("delete-book:bookTitle="));
+        addTemplate(controllerPath, linkTo(controller.deleteAllBooks()).withRel("delete-books:"));
+        addTemplate(controllerPath, linkTo(controller.updateBook(isbn, null, null)).withRel("update-book:isbn="));
+        addTemplate(controllerPath, linkTo(controller.getBookByISBN(isbn, null)).withRel("getBookByISBN:"));
+        addTemplate(controllerPath, linkTo(controller.getAllBooksByAuthors(Variable.AUTHORS.marker, null, null, null)).withRel("getAllBooksByAuthors:"));
+        addTemplate(controllerPath, linkTo(controller.getBookByBookTitle(bookTitle)).withRel("getAllBookByBookTitle:"));
+        addTemplate(controllerPath, linkTo(controller.getBookByPublisher(Variable.PUBLISHER.marker, null, null, null)).withRel("getAllBooksByPublisher:"));
+        addTemplate(controllerPath, linkTo(controller.getBookByYearPublished(Variable.YEAR_MARKER, null, null, null)).withRel("getAllBooksByYearPublished:"));
+        addTemplate(controllerPath, linkTo(controller.getBookByPrice(Variable.PRICE_MARKER, null, null, null)).withRel("getAllBooksByPrice:"));
+    }// end of BookLinks constructor
+
+    // add the links of each book, resolving the base URI of the current request once for the whole list
+    public void addLinks(List<BookDTO> bookDTOS) {
+        String baseUri = baseUri();
+        Link[] fixedLinks = new Link[templates.size()]; // links without book values are shared by every book
+        for (int i = 0; i < templates.size(); i++) {
+            LinkTemplate template = templates.get(i);
+            if (template.variables.length == 0) {
+                fixedLinks[i] = Link.of(baseUri + template.literals[0], template.rel);
+            }// end of if block
+        }// end of for loop
+
+        StringBuilder href = new StringBuilder(256);
+        for (BookDTO bookDTO : bookDTOS) {
+            List<Link> links = new ArrayList<>(templates.size());
+            for (int i = 0; i < templates.size(); i++) {
+                if (fixedLinks[i] != null) {
+                    links.add(fixedLinks[i]);
+                } else {
+                    href.setLength(0);
+                    links.add(Link.of(templates.get(i).expand(href.append(baseUri), bookDTO).toString(), templates.get(i).rel));
+                }// end of if-else block
+            }// end of for loop
+            bookDTO.add(links);
+        }// end of for loop
+    }// end of addLinks method
+
+    // add the templated links of every book operation, once, to a response in compact mode
+    public void addTemplatedLinks(RepresentationModel<?> model) {
+        String baseUri = baseUri();
+        for (LinkTemplate template : templates) {
+            model.add(Link.of(baseUri + template.templated, template.rel));
+        }// end of for loop
+    }// end of addTemplatedLinks method
+
+    public static boolean isCompact(String linkMode) {
+        return COMPACT_LINK_MODE.equalsIgnoreCase(linkMode);
+    }// end of isCompact method
+
+    // scheme, host, port and path of the controller as seen by the client of the current request
+    private static String baseUri() {
+        return linkTo(BookController.class).toUri().toString();
+    }// end of baseUri method
+
+    // split the resolved href of a link around the markers of the book values
+    private void addTemplate(String controllerPath, Link link) {
+        String href = link.getHref().substring(controllerPath.length());
+        List<String> literals = new ArrayList<>();
+        List<Variable> variables = new ArrayList<>();
+        StringBuilder templated = new StringBuilder();
+        int start = 0;
+        while (true) {
+            Variable next = null;
+            int at = href.length();
+            for (Variable variable : Variable.values()) {
+                int index = href.indexOf(variable.marker, start);
+                if (index >= 0 && index < at) {
+                    next = variable;
+                    at = index;
+                }// end of if block
+            }// end of for loop
+            literals.add(href.substring(start, at));
+            templated.append(href, start, at);
+            if (next == null) {
+                break;
+            }// end of if block
+            variables.add(next);
+            templated.append('{').append(next.name).append('}');
+            start = at + next.marker.length();
+        }// end of while loop
+        templates.add(new LinkTemplate(
+                link.getRel(),
+                literals.toArray(String[]::new),
+                variables.toArray(Variable[]::new),
+                templated.toString()));
+    }// end of addTemplate method
+
+    // a book value of the links, with the marker standing for it while the templates are resolved
+    private enum Variable {
+        ISBN("isbn", "__isbn__", BookDTO::getIsbn),
+        BOOK_TITLE("bookTitle", "__bookTitle__", BookDTO::getBookTitle),
+        AUTHORS("authors", "__authors__", BookDTO::getAuthors),
+        PUBLISHER("publisher", "__publisher__", BookDTO::getPublisher),
+        YEAR_PUBLISHED("yearPublished", String.valueOf(Variable.YEAR_MARKER), bookDTO -> String.valueOf(bookDTO.getYearPublished())),
+        PRICE("price", String.valueOf(Variable.PRICE_MARKER), bookDTO -> String.valueOf(bookDTO.getPrice()));
+
+        // numbers no book has, rendered the same way by the link builder and by String.valueOf
+        private static final int YEAR_MARKER = -1_234_567_890;
+        private static final double PRICE_MARKER = -9.87654321E-300;
+
+        private final String name;
+        private final String marker;
+        private final Function<BookDTO, String> value;
+
+        Variable(String name, String marker, Function<BookDTO, String> value) {
+            this.name = name;
+            this.marker = marker;
+            this.value = value;
+        }// end of Variable constructor
+    }// end of Variable enum
+
+    // literal parts of a resolved href, with a book value between each two of them
+    private record LinkTemplate(LinkRelation rel, String[] literals, Variable[] variables, String templated) {
+
+        StringBuilder expand(StringBuilder href, BookDTO bookDTO) {
+            for (int i = 0; i < variables.length; i++) {
+                // every reserved character is encoded, as the link builder does for path and query values
+                href.append(literals[i]).append(UriUtils.encode(variables[i].value.apply(bookDTO), StandardCharsets.UTF_8));
+            }// end of for loop
+            return href.append(literals[variables.length]);
+        }// end of expand method
+    }// end of LinkTemplate record
+
+}// end of BookLinks class
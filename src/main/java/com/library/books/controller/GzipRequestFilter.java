@@ -0,0 +1,233 @@
+package com.library.books.controller;
+
+import com.library.books.config.BooksProperties;
+import com.library.books.controller.exception.RequestBodyTooLargeException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/*
+ * Inflates the request bodies sent with Content-Encoding: gzip, so that add-books: and the other endpoints
+ * read them as if they had been sent as is, in whichever format their Content-Type names.
+ * A few kilobytes of gzip can inflate to gigabytes, so the inflated body is cut at max-inflated-size
+ * and the request is refused with 413. Any other content encoding is refused with 415.
+ * A servlet reading its body without blocking (setReadListener) is handed the inflated body once the whole
+ * compressed body has arrived, which is held in memory and cut at max-inflated-size too.
+ */
+@Component
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    private final long maxInflatedSize;
+
+    public GzipRequestFilter(BooksProperties booksProperties) {
+        this.maxInflatedSize = booksProperties.getRequestCompression().getMaxInflatedSize().toBytes();
+    }// end of GzipRequestFilter constructor
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null || encoding.equalsIgnoreCase("identity")) {
+            filterChain.doFilter(request, response);
+        } else if (encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("x-gzip")) {
+            filterChain.doFilter(new InflatedRequest(request, maxInflatedSize), response);
+        } else {
+            response.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip"); // the encodings the server reads, RFC 7694
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported Content-Encoding: " + encoding);
+        }// end of if-else block
+    }// end of doFilterInternal method
+
+    // the request as it was before it was compressed: its inflated body, without Content-Encoding and Content-Length
+    private static class InflatedRequest extends HttpServletRequestWrapper {
+
+        private final long maxInflatedSize;
+        private ServletInputStream inputStream;
+
+        InflatedRequest(HttpServletRequest request, long maxInflatedSize) {
+            super(request);
+            this.maxInflatedSize = maxInflatedSize;
+        }// end of InflatedRequest constructor
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new InflatingInputStream(super.getInputStream(), maxInflatedSize);
+            }// end of if block
+            return inputStream;
+        }// end of getInputStream method
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            Charset charset = getCharacterEncoding() == null ? StandardCharsets.UTF_8 : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }// end of getReader method
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }// end of getContentLength method
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }// end of getContentLengthLong method
+
+        @Override
+        public String getHeader(String name) {
+            return isRemoved(name) ? null : super.getHeader(name);
+        }// end of getHeader method
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isRemoved(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }// end of getHeaders method
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !isRemoved(name))
+                    .toList());
+        }// end of getHeaderNames method
+
+        private static boolean isRemoved(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }// end of isRemoved method
+    }// end of InflatedRequest class
+
+    // the inflated body, failing once it goes past the limit
+    private static class InflatingInputStream extends ServletInputStream {
+
+        private final ServletInputStream compressed;
+        private final long maxInflatedSize;
+        private InputStream inflater; // created on the first read, GZIPInputStream reads the gzip header right away
+        private long inflated;
+        private boolean finished;
+        private ReadListener readListener; // set when the body is read without blocking
+        private volatile boolean received; // the whole compressed body is in memory, read without blocking
+
+        InflatingInputStream(ServletInputStream compressed, long maxInflatedSize) {
+            this.compressed = compressed;
+            this.maxInflatedSize = maxInflatedSize;
+        }// end of InflatingInputStream constructor
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }// end of read method
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (!isReady()) {
+                throw new IllegalStateException("Read while the request body is not ready");
+            }// end of if block
+            if (inflater == null) {
+                inflater = new GZIPInputStream(compressed, 8192);
+            }// end of if block
+            int read = inflater.read(buffer, offset, length);
+            if (read < 0) {
+                finished = true;
+                return read;
+            }// end of if block
+            inflated += read;
+            if (inflated > maxInflatedSize) {
+                throw new RequestBodyTooLargeException("Request body inflates to more than " + maxInflatedSize + " bytes!");
+            }// end of if block
+            return read;
+        }// end of read method
+
+        @Override
+        public void close() throws IOException {
+            if (inflater != null) {
+                inflater.close();
+            }// end of if block
+        }// end of close method
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }// end of isFinished method
+
+        @Override
+        public boolean isReady() {
+            return readListener == null || received;
+        }// end of isReady method
+
+        // gather the compressed body as the container hands it over, then let the listener read it inflated in one go
+        // GZIPInputStream blocks until its next bytes come, so it only reads bytes that are already there
+        // a failure goes to the listener's onError, as the container does with the failures of its callbacks
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            if (this.readListener != null) {
+                throw new IllegalStateException("The request body already has a read listener");
+            }// end of if block
+            this.readListener = readListener;
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            compressed.setReadListener(new ReadListener() {
+                private boolean failed;
+
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (!failed && compressed.isReady()) {
+                        int read = compressed.read(chunk);
+                        if (read < 0) {
+                            return;
+                        }// end of if block
+                        // gzip adds a few bytes to what does not compress, a body past the limit cannot inflate below it
+                        if (body.size() + read > maxInflatedSize) {
+                            onError(new RequestBodyTooLargeException("Request body is more than " + maxInflatedSize + " bytes!"));
+                            return;
+                        }// end of if block
+                        body.write(chunk, 0, read);
+                    }// end of while loop
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    if (failed) {
+                        return;
+                    }// end of if block
+                    try {
+                        inflater = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()), 8192);
+                        received = true;
+                        readListener.onDataAvailable();
+                        if (finished) {
+                            readListener.onAllDataRead();
+                        }// end of if block
+                    } catch (IOException | RuntimeException e) {
+                        onError(e);
+                    }// end of try-catch block
+                }
+
+                @Override
+                public void onError(Throwable failure) {
+                    if (!failed) {
+                        failed = true;
+                        readListener.onError(failure);
+                    }// end of if block
+                }
+            });
+        }// end of setReadListener method
+    }// end of InflatingInputStream class
+
+}// end of GzipRequestFilter class
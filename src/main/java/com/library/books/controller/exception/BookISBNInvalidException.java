@@ -0,0 +1,11 @@
+package com.library.books.controller.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class BookISBNInvalidException extends RuntimeException{
+    public BookISBNInvalidException(String message) {
+        super(message);
+    }// end of BookISBNInvalidException constructor
+}// end of BookISBNInvalidException class
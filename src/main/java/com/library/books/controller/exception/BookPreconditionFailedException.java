@@ -0,0 +1,11 @@
+package com.library.books.controller.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.PRECONDITION_FAILED)
+public class BookPreconditionFailedException extends RuntimeException{
+    public BookPreconditionFailedException(String message) {
+        super(message);
+    }// end of BookPreconditionFailedException constructor
+}// end of BookPreconditionFailedException class
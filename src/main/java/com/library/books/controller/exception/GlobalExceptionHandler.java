@@ -1,34 +1,79 @@
 package com.library.books.controller.exception;
 
+import com.library.books.config.BooksProperties;
+import com.library.books.service.metrics.BookMetrics;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 
 @ControllerAdvice
+@AllArgsConstructor
 public class GlobalExceptionHandler{
 
-    private ResponseEntity<DetailedErrorResponse> handleException(RuntimeException e, WebRequest webRequest) {
+    private final BookMetrics bookMetrics;
+    private final BooksProperties booksProperties;
+
+    private ResponseEntity<DetailedErrorResponse> handleException(RuntimeException e, WebRequest webRequest, HttpStatus status) {
+        bookMetrics.error(e, status); // the request metrics only tag the exceptions left unhandled
         DetailedErrorResponse response = new DetailedErrorResponse(
                 webRequest.getDescription(false),
                 e.getMessage(),
-                HttpStatus.BAD_REQUEST
+                status
         );
-        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(response, status);
     }
 
     @ExceptionHandler({
             BookISBNAlreadyExistsException.class,
+            BookISBNInvalidException.class,
             BookISBNMismatchException.class,
             BookISBNNotFoundException.class,
             BookTitleNotFound.class,
             BookAuthorNotFoundException.class,
             BookPublisherNotFoundException.class,
-            BookYearPublishedNotFoundException.class
+            BookYearPublishedNotFoundException.class,
+            InvalidPageRequestException.class,
+            InvalidFilterException.class,
+            InvalidImportException.class,
+            IngestTicketNotFoundException.class
     })
     public ResponseEntity<DetailedErrorResponse> handleBookExceptions(RuntimeException e, WebRequest webRequest) {
-        return handleException(e, webRequest);
+        return handleException(e, webRequest, HttpStatus.BAD_REQUEST);
+    }
+
+    // the If-Match header of an update no longer matches the book
+    @ExceptionHandler(BookPreconditionFailedException.class)
+    public ResponseEntity<DetailedErrorResponse> handlePreconditionFailed(RuntimeException e, WebRequest webRequest) {
+        return handleException(e, webRequest, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // the ingest queue is full (429) or stopping (503), the client should send the book again later
+    @ExceptionHandler({IngestQueueFullException.class, IngestUnavailableException.class})
+    public ResponseEntity<DetailedErrorResponse> handleIngestRefused(RuntimeException e, WebRequest webRequest) {
+        HttpStatus status = e instanceof IngestQueueFullException ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+        ResponseEntity<DetailedErrorResponse> response = handleException(e, webRequest, status);
+        return ResponseEntity
+                .status(status)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, booksProperties.getIngest().getRetryAfter().toSeconds())))
+                .body(response.getBody());
+    }
+
+    // a gzip request body inflated past the limit, thrown as is or wrapped by the message converter reading it
+    @ExceptionHandler({RequestBodyTooLargeException.class, HttpMessageNotReadableException.class})
+    public ResponseEntity<DetailedErrorResponse> handleRequestBodyTooLarge(Exception e, WebRequest webRequest) throws Exception {
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof RequestBodyTooLargeException)) {
+            cause = cause.getCause();
+        }// end of while loop
+        if (cause == null) {
+            throw e; // any other unreadable body is answered 400 by Spring MVC
+        }// end of if block
+        return handleException((RequestBodyTooLargeException) cause, webRequest, HttpStatus.PAYLOAD_TOO_LARGE);
     }
 
 }// end of GlobalExceptionHandler class
\ No newline at end of file
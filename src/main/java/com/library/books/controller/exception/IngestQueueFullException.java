@@ -0,0 +1,11 @@
+package com.library.books.controller.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.TOO_MANY_REQUESTS)
+public class IngestQueueFullException extends RuntimeException{
+    public IngestQueueFullException(String message) {
+        super(message);
+    }// end of IngestQueueFullException constructor
+}// end of IngestQueueFullException class
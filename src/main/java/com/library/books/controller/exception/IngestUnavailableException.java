@@ -0,0 +1,11 @@
+package com.library.books.controller.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class IngestUnavailableException extends RuntimeException{
+    public IngestUnavailableException(String message) {
+        super(message);
+    }// end of IngestUnavailableException constructor
+}// end of IngestUnavailableException class
@@ -0,0 +1,11 @@
+package com.library.books.controller.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidFilterException extends RuntimeException{
+    public InvalidFilterException(String message) {
+        super(message);
+    }// end of InvalidFilterException constructor
+}// end of InvalidFilterException class
@@ -0,0 +1,11 @@
+package com.library.books.controller.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidImportException extends RuntimeException{
+    public InvalidImportException(String message) {
+        super(message);
+    }// end of InvalidImportException constructor
+}// end of InvalidImportException class
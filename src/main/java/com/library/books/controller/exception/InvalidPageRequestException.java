@@ -0,0 +1,11 @@
+package com.library.books.controller.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidPageRequestException extends RuntimeException{
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }// end of InvalidPageRequestException constructor
+}// end of InvalidPageRequestException class
@@ -0,0 +1,11 @@
+package com.library.books.controller.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE)
+public class RequestBodyTooLargeException extends RuntimeException{
+    public RequestBodyTooLargeException(String message) {
+        super(message);
+    }// end of RequestBodyTooLargeException constructor
+}// end of RequestBodyTooLargeException class
@@ -0,0 +1,36 @@
+package com.library.books.repository;
+
+import com.library.books.config.BooksProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/*
+ * Links the books stored before the author tables existed to their authors, once, at startup.
+ * Runs before the web server is started, so that no author lookup misses them; it goes through the table
+ * in batches, one transaction each, and a database already migrated costs a single query.
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+public class AuthorIndexMigration {
+
+    private final BookRepository bookRepository;
+    private final BooksProperties booksProperties;
+
+    @PostConstruct
+    public void linkUnlinkedBooks() {
+        long start = System.nanoTime();
+        int batchSize = booksProperties.getBulk().getBatchSize();
+        long batches = 0;
+        for (long afterId = Long.MIN_VALUE, lastId; (lastId = bookRepository.linkUnlinkedBooks(afterId, batchSize)) != afterId; afterId = lastId) {
+            batches++;
+        }// end of for loop
+        if (batches > 0) {
+            log.info("Author index migrated in {} batches of up to {} books in {} ms",
+                    batches, batchSize, (System.nanoTime() - start) / 1_000_000);
+        }// end of if block
+    }// end of linkUnlinkedBooks method
+
+}// end of AuthorIndexMigration class
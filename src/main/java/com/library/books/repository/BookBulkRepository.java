@@ -0,0 +1,29 @@
+package com.library.books.repository;
+
+import com.library.books.repository.entity.Book;
+import com.library.books.service.dto.BookPatch;
+
+import java.util.List;
+import java.util.Map;
+
+// custom repository fragment for the write paths that Spring Data cannot derive
+public interface BookBulkRepository {
+
+    // persist the given books, flushing them to the database in JDBC batches of batchSize
+    void saveAllInBatches(List<Book> books, int batchSize);
+
+    // apply the given patches in JDBC batches of batchSize, returns the number of updated rows of each patch
+    int[] patchAllInBatches(List<BookPatch> patches, int batchSize);
+
+    // invalidate the cached books and book queries of the second-level cache, for the writes that go around Hibernate
+    void evictCachedBooks();
+
+    // link the books of the given ISBNs to the authors of their authors, in JDBC batches of batchSize
+    // relink replaces the links the books already have, for books whose authors may have changed
+    void linkAuthors(Map<String, String> authorsByIsbn, boolean relink, int batchSize);
+
+    // link up to batchSize of the books after the given id that have no author links, stored before the author tables
+    // returns the id of the last book read, afterId once there is none left
+    long linkUnlinkedBooks(long afterId, int batchSize);
+
+}// end of BookBulkRepository interface
@@ -0,0 +1,134 @@
+package com.library.books.repository;
+
+import com.library.books.repository.entity.Book;
+import com.library.books.service.dto.BookPatch;
+import com.library.books.utility.AuthorNames;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.action.internal.BulkOperationCleanupAction;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class BookBulkRepositoryImpl implements BookBulkRepository {
+
+    // a field left null by the patch keeps its stored value
+    private static final String PATCH = "update book set " +
+            "book_title = coalesce(?, book_title), " +
+            "authors = coalesce(?, authors), " +
+            "publisher = coalesce(?, publisher), " +
+            "year_published = coalesce(?, year_published), " +
+            "price = coalesce(?, price), " +
+            "version = version + 1 " +
+            "where isbn = ?";
+
+    // add the author unless its lookup key is already there, without locking the existing authors
+    private static final String ADD_AUTHOR = "merge into author a " +
+            "using (values (cast(? as varchar(100)), cast(? as varchar(100)))) s(name_key, name) on a.name_key = s.name_key " +
+            "when not matched then insert (name_key, name) values (s.name_key, s.name)";
+    private static final String UNLINK_BOOK = "delete from book_author where book_id = (select id from book where isbn = ?)";
+    private static final String LINK_BOOK = "insert into book_author (author_id, book_id) " +
+            "select a.id, b.id from author a, book b where a.name_key = ? and b.isbn = ?";
+    private static final String UNLINKED_BOOKS = "select b.id, b.isbn, b.authors from book b where b.id > ? " +
+            "and not exists (select 1 from book_author ba where ba.book_id = b.id) order by b.id limit ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate; // joins the JPA transaction, both run on the same connection
+
+    // persist the given books, flushing them to the database in JDBC batches of batchSize
+    @Override
+    @Transactional
+    public void saveAllInBatches(List<Book> books, int batchSize) {
+        for (int i = 0; i < books.size(); i++) {
+            entityManager.persist(books.get(i));
+            // push the pending inserts as one JDBC batch and drop them from the persistence context
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }// end of if block
+        }// end of for loop
+        entityManager.flush();
+        entityManager.clear();
+    }// end of saveAllInBatches method
+
+    // apply the given patches in JDBC batches of batchSize, returns the number of updated rows of each patch
+    @Override
+    @Transactional
+    public int[] patchAllInBatches(List<BookPatch> patches, int batchSize) {
+        int[][] counts = jdbcTemplate.batchUpdate(PATCH, patches, batchSize, (statement, patch) -> {
+            statement.setString(1, patch.bookTitle());
+            statement.setString(2, patch.authors());
+            statement.setString(3, patch.publisher());
+            statement.setObject(4, patch.yearPublished(), Types.INTEGER);
+            statement.setObject(5, patch.price(), Types.DOUBLE);
+            statement.setString(6, patch.isbn());
+        });
+        evictCachedBooks(); // JDBC writes go around Hibernate
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).toArray();
+    }// end of patchAllInBatches method
+
+    /*
+     * Schedule what Hibernate does after its own bulk statements: the book query space is invalidated at once,
+     * so that no query result read meanwhile is cached, and again with the Book region once the transaction completes.
+     * Costs no statement, and nothing when the second-level cache is disabled.
+     */
+    @Override
+    @Transactional
+    public void evictCachedBooks() {
+        BulkOperationCleanupAction.schedule(entityManager.unwrap(SharedSessionContractImplementor.class), Set.of("book"));
+    }// end of evictCachedBooks method
+
+    // link the books of the given ISBNs to the authors of their authors, with one JDBC batch per step
+    @Override
+    @Transactional
+    public void linkAuthors(Map<String, String> authorsByIsbn, boolean relink, int batchSize) {
+        entityManager.flush(); // the books persisted by this transaction are linked by their ISBN
+        Map<String, String> authors = new LinkedHashMap<>(); // names by lookup key, once for all the books
+        List<String[]> links = new ArrayList<>(); // lookup key and ISBN of each link
+        authorsByIsbn.forEach((isbn, bookAuthors) -> AuthorNames.split(bookAuthors).forEach((key, name) -> {
+            authors.putIfAbsent(key, name);
+            links.add(new String[]{key, isbn});
+        }));
+        jdbcTemplate.batchUpdate(ADD_AUTHOR, new ArrayList<>(authors.entrySet()), batchSize, (statement, author) -> {
+            statement.setString(1, author.getKey());
+            statement.setString(2, author.getValue());
+        });
+        if (relink) {
+            jdbcTemplate.batchUpdate(UNLINK_BOOK, new ArrayList<>(authorsByIsbn.keySet()), batchSize,
+                    (statement, isbn) -> statement.setString(1, isbn));
+        }// end of if block
+        jdbcTemplate.batchUpdate(LINK_BOOK, links, batchSize, (statement, link) -> {
+            statement.setString(1, link[0]);
+            statement.setString(2, link[1]);
+        });
+    }// end of linkAuthors method
+
+    // link the next books without author links, in id order so that a book without any author name is not read again
+    @Override
+    @Transactional
+    public long linkUnlinkedBooks(long afterId, int batchSize) {
+        Map<String, String> authorsByIsbn = new LinkedHashMap<>();
+        long[] lastId = {afterId};
+        jdbcTemplate.query(UNLINKED_BOOKS, resultSet -> {
+            lastId[0] = resultSet.getLong(1);
+            authorsByIsbn.put(resultSet.getString(2), resultSet.getString(3));
+        }, afterId, batchSize);
+        if (!authorsByIsbn.isEmpty()) {
+            linkAuthors(authorsByIsbn, false, batchSize);
+        }// end of if block
+        return lastId[0];
+    }// end of linkUnlinkedBooks method
+
+}// end of BookBulkRepositoryImpl class
@@ -0,0 +1,22 @@
+package com.library.books.repository;
+
+import com.library.books.repository.entity.Book;
+import com.library.books.repository.projection.BookRow;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+// custom repository fragment for the filtered reads, which JpaSpecificationExecutor can neither page without a count query nor project
+public interface BookFilterRepository {
+
+    // read one page of the books matching the specification, without counting every matching book
+    Slice<BookRow> findSlice(Specification<Book> specification, Pageable pageable);
+
+    // read the first books matching the specification in the given order, for keyset scrolling
+    List<BookRow> findFirst(Specification<Book> specification, Sort sort, Limit limit);
+
+}// end of BookFilterRepository interface
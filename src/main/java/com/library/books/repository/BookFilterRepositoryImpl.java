@@ -0,0 +1,70 @@
+package com.library.books.repository;
+
+import com.library.books.repository.entity.Book;
+import com.library.books.repository.projection.BookRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class BookFilterRepositoryImpl implements BookFilterRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // read one page of the books matching the specification, without counting every matching book
+    @Override
+    public Slice<BookRow> findSlice(Specification<Book> specification, Pageable pageable) {
+        // read one extra row to find out if there is a following page
+        List<BookRow> books = query(specification, pageable.getSort())
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = books.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? books.subList(0, pageable.getPageSize()) : books, pageable, hasNext);
+    }// end of findSlice method
+
+    // read the first books matching the specification in the given order, for keyset scrolling
+    @Override
+    public List<BookRow> findFirst(Specification<Book> specification, Sort sort, Limit limit) {
+        return query(specification, sort)
+                .setMaxResults(limit.max())
+                .getResultList();
+    }// end of findFirst method
+
+    // select the matching books as BookRow projections with a constructor expression
+    private TypedQuery<BookRow> query(Specification<Book> specification, Sort sort) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookRow> query = builder.createQuery(BookRow.class);
+        Root<Book> root = query.from(Book.class);
+        query.select(builder.construct(BookRow.class,
+                root.get("id"),
+                root.get("bookTitle"),
+                root.get("authors"),
+                root.get("publisher"),
+                root.get("isbn"),
+                root.get("yearPublished"),
+                root.get("price"),
+                root.get("version")));
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }// end of if block
+        query.orderBy(toOrders(sort, root, builder));
+        return entityManager.createQuery(query);
+    }// end of query method
+
+}// end of BookFilterRepositoryImpl class
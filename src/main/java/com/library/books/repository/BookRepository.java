@@ -1,45 +1,193 @@
 package com.library.books.repository;
 
+import com.library.books.config.SecondLevelCacheConfiguration;
 import com.library.books.repository.entity.Book;
+import com.library.books.repository.projection.BookFigures;
+import com.library.books.repository.projection.BookFiguresGroup;
+import com.library.books.repository.projection.BookRow;
+import com.library.books.repository.projection.BookVersion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookBulkRepository, BookFilterRepository {
     // method to find a book by its isbn
     Optional<Book> findByIsbn(String isbn);
 
-    // method to find all books by their authors
-    List<Book> findByAuthors(String authors);
+    // method to find which of the given isbns are already stored, in a single query
+    @Query("select b.isbn from Book b where b.isbn in ?1")
+    List<String> findExistingIsbns(Collection<String> isbns);
 
-    // method to find all books by their authors
+    /*
+     * The read methods below return BookRow projections instead of entities: Spring Data selects them
+     * with a constructor expression, so the rows are never managed, snapshotted or dirty checked.
+     */
+
+    // method to read a book by its isbn
+    // a read-only transaction of its own, so that it runs on a replica when there are some, the cache misses of getBookByISBN read it
+    @org.springframework.transaction.annotation.Transactional(readOnly = true) // the jakarta one has no read-only flag
+    Optional<BookRow> findRowByIsbn(String isbn);
+
+    // method to read only the id and version of a book by its isbn
+    @org.springframework.transaction.annotation.Transactional(readOnly = true) // on a replica too, like findRowByIsbn
+    @Query("select new com.library.books.repository.projection.BookVersion(b.id, b.version) from Book b where b.isbn = ?1")
+    Optional<BookVersion> findVersionByIsbn(String isbn);
+
+    // method to read the books with the given isbns, in a single query
+    List<BookRow> findByIsbnIn(Collection<String> isbns);
+
+    // same, locking the rows until the end of the transaction, so that they do not change before they are written
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.library.books.repository.projection.BookRow(b.id, b.bookTitle, b.authors, b.publisher, b.isbn, b.yearPublished, b.price, b.version) from Book b where b.isbn in ?1")
+    List<BookRow> lockByIsbnIn(Collection<String> isbns);
+
+    // method to read one page of books without counting the whole table
+    // a declared query rather than a derived one: Spring Data builds a derived query again on every call,
+    // while Hibernate caches the plan of a declared query, which keeps small pages cheaper than entity reads
+    @Query("select new com.library.books.repository.projection.BookRow(b.id, b.bookTitle, b.authors, b.publisher, b.isbn, b.yearPublished, b.price, b.version) from Book b")
+    Slice<BookRow> findAllBy(Pageable pageable);
+
+    // method to read the books that follow the given id, for keyset scrolling
+    List<BookRow> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // method to stream every book in id order, fetching the rows from the database in chunks
+    // must be consumed inside a (read-only) transaction and closed once done
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.library.books.repository.projection.BookRow(b.id, b.bookTitle, b.authors, b.publisher, b.isbn, b.yearPublished, b.price, b.version) from Book b order by b.id")
+    Stream<BookRow> streamAllBy();
+
+    // method to count the books of every publisher, year and price at once, to build the catalog statistics
+    @Query("select new com.library.books.repository.projection.BookFiguresGroup(b.publisher, b.yearPublished, b.price, count(b)) " +
+            "from Book b group by b.publisher, b.yearPublished, b.price")
+    List<BookFiguresGroup> countByPublisherAndYearPublishedAndPrice();
+
+    // ids of the books written by every one of the authors of the given lookup keys, whatever their other authors
+    // served by the author name index and the primary key of book_author, the books are then read by id
+    String BOOKS_BY_AUTHOR_KEYS = "select ba.bookId from BookAuthor ba join Author a on a.id = ba.authorId " +
+            "where a.nameKey in ?1 group by ba.bookId having count(*) = ?2";
+
+    // method to read all books by their authors, authorCount being the number of lookup keys
+    @Query("select new com.library.books.repository.projection.BookRow(b.id, b.bookTitle, b.authors, b.publisher, b.isbn, b.yearPublished, b.price, b.version) " +
+            "from Book b where b.id in (" + BOOKS_BY_AUTHOR_KEYS + ")")
+    Slice<BookRow> findByAuthorKeys(Collection<String> authorKeys, long authorCount, Pageable pageable);
+    @Query("select new com.library.books.repository.projection.BookRow(b.id, b.bookTitle, b.authors, b.publisher, b.isbn, b.yearPublished, b.price, b.version) " +
+            "from Book b where b.id in (" + BOOKS_BY_AUTHOR_KEYS + ") and b.id > ?3 order by b.id")
+    List<BookRow> findByAuthorKeysAndIdGreaterThan(Collection<String> authorKeys, long authorCount, Long id, Limit limit);
+
+    /*
+     * The finders below keep their results in the query cache when the second-level cache is enabled,
+     * until the book table is written to. Without it the hints are ignored.
+     */
+
+    // method to find a book by its title
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfiguration.QUERY_REGION)})
     Optional<Book> findByBookTitle(String bookTitle);
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfiguration.QUERY_REGION)})
+    Optional<BookRow> findRowByBookTitle(String bookTitle);
+
+    // method to read all books by their publisher
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfiguration.QUERY_REGION)})
+    Slice<BookRow> findByPublisher(String publisher, Pageable pageable);
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfiguration.QUERY_REGION)})
+    List<BookRow> findByPublisherAndIdGreaterThanOrderByIdAsc(String publisher, Long id, Limit limit);
+
+    // method to read all books by their year published
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfiguration.QUERY_REGION)})
+    Slice<BookRow> findByYearPublished(int yearPublished, Pageable pageable);
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfiguration.QUERY_REGION)})
+    List<BookRow> findByYearPublishedAndIdGreaterThanOrderByIdAsc(int yearPublished, Long id, Limit limit);
+
+    // method to read all books by their price
+    Slice<BookRow> findByPrice(double price, Pageable pageable);
+    List<BookRow> findByPriceAndIdGreaterThanOrderByIdAsc(double price, Long id, Limit limit);
 
-    // method to find all books by their publisher
-    List<Book> findByPublisher(String publisher);
+    /*
+     * The write methods below run after the figures of the rows they change are read with a SELECT ... FOR UPDATE,
+     * in the same transaction: the locked rows tell whether the books existed, hold what the catalog statistics
+     * take off, and cannot change before the plain DELETE or UPDATE that follows. Nothing is loaded into the
+     * persistence context. Hibernate evicts the cached books on these bulk writes, their callers also call evictCachedBooks.
+     */
 
-    // method to find all books by their year published
-    List<Book> findByYearPublished(int yearPublished);
+    // read and lock the figures of the books with the given isbns
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.library.books.repository.projection.BookFigures(b.isbn, b.publisher, b.yearPublished, b.price) from Book b where b.isbn in ?1")
+    List<BookFigures> lockFiguresByIsbnIn(Collection<String> isbns);
 
-    // method to find all books by their price
-    List<Book> findByPrice(double price);
+    // read and lock the figures of the books with the given title
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.library.books.repository.projection.BookFigures(b.isbn, b.publisher, b.yearPublished, b.price) from Book b where b.bookTitle = ?1")
+    List<BookFigures> lockFiguresByBookTitle(String bookTitle);
 
-    // delete a book by its isbn
+    // read and lock the figures of a book by its isbn, only if it is at the given id and version when they are given
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.library.books.repository.projection.BookFigures(b.isbn, b.publisher, b.yearPublished, b.price) from Book b " +
+            "where b.isbn = ?1 and (?2 is null or (b.id = ?2 and b.version = ?3))")
+    List<BookFigures> lockFiguresByIsbn(String isbn, Long id, Long version);
+
+    // delete the books with the given isbns, returns the number of deleted books
     @Transactional// jakarta, REQUIRED, this method is done completely or not at all
-    void deleteByIsbn(String isbn);// delete a book by its isbn
+    @Modifying
+    @Query("delete from Book b where b.isbn in ?1")
+    int deleteByIsbnIn(Collection<String> isbns);
+
+    // delete the books with the given title, returns the number of deleted books
+    @Transactional
+    @Modifying
+    @Query("delete from Book b where b.bookTitle = ?1")
+    int deleteByBookTitle(String bookTitle);
+
+    // delete every book, in the transaction of the caller, so that it is rolled back with it
+    @Transactional
+    @Modifying
+    @Query("delete from Book b")
+    int deleteAllRows();
 
-    // delete a book by its title
+    // the author rows of the books go before the books, their foreign key to book does not cascade the deletes
+    // the query space tells Hibernate that no cached book is changed, a native write would otherwise empty the whole cache
     @Transactional
-    void deleteByBookTitle(String bookTitle);
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "book_author"))
+    @Query(value = "delete from book_author where book_id in (select id from book where isbn in (?1))", nativeQuery = true)
+    int deleteAuthorLinksByIsbnIn(Collection<String> isbns);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "book_author"))
+    @Query(value = "delete from book_author where book_id in (select id from book where book_title = ?1)", nativeQuery = true)
+    int deleteAuthorLinksByBookTitle(String bookTitle);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "book_author"))
+    @Query(value = "delete from book_author", nativeQuery = true)
+    int deleteAllAuthorLinks();
 
-    // update a book by its isbn
+    // update a book by its isbn, returns the number of updated books
     @Transactional
     @Modifying
-    @Query("update Book b set b.bookTitle = ?1, b.authors = ?2, b.publisher = ?3, b.yearPublished = ?4, b.price = ?5 where b.isbn = ?6")
-    void updateBook(String bookTitle, String authors, String publisher, int yearPublished, double price, String isbn);
+    @Query("update Book b set b.bookTitle = ?1, b.authors = ?2, b.publisher = ?3, b.yearPublished = ?4, b.price = ?5, " +
+            "b.version = b.version + 1 where b.isbn = ?6")
+    int updateBook(String bookTitle, String authors, String publisher, int yearPublished, double price, String isbn);
 
 }// end of BookRepository interface
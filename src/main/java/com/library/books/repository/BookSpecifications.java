@@ -0,0 +1,79 @@
+package com.library.books.repository;
+
+import com.library.books.repository.entity.Author;
+import com.library.books.repository.entity.Book;
+import com.library.books.repository.entity.BookAuthor;
+import com.library.books.utility.AuthorNames;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Set;
+
+/*
+ * Predicates of the filtered book queries, each one served by an index of schema.sql.
+ * A missing value (null) means no restriction, so the predicates can be combined freely.
+ */
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+    }// end of BookSpecifications constructor
+
+    // books written by every one of the given authors, whatever their other authors, see BookRepository.BOOKS_BY_AUTHOR_KEYS
+    public static Specification<Book> hasAuthors(String authors) {
+        return (root, query, builder) -> {
+            if (authors == null) {
+                return null;
+            }// end of if block
+            Set<String> authorKeys = AuthorNames.split(authors).keySet();
+            if (authorKeys.isEmpty()) {
+                return builder.disjunction(); // no author name, no book
+            }// end of if block
+            Subquery<Long> bookIds = query.subquery(Long.class);
+            Root<BookAuthor> bookAuthor = bookIds.from(BookAuthor.class);
+            Root<Author> author = bookIds.from(Author.class);
+            bookIds.select(bookAuthor.get("bookId"))
+                    .where(builder.equal(author.get("id"), bookAuthor.get("authorId")),
+                            author.get("nameKey").in(authorKeys))
+                    .groupBy(bookAuthor.get("bookId"))
+                    .having(builder.equal(builder.count(bookAuthor), (long) authorKeys.size()));
+            return root.get("id").in(bookIds);
+        };
+    }// end of hasAuthors method
+
+    public static Specification<Book> hasPublisher(String publisher) {
+        return (root, query, builder) -> publisher == null ? null : builder.equal(root.get("publisher"), publisher);
+    }// end of hasPublisher method
+
+    // books published between the two years, both included
+    public static Specification<Book> yearPublishedBetween(Integer min, Integer max) {
+        return (root, query, builder) -> {
+            if (min != null && max != null) {
+                return builder.between(root.get("yearPublished"), min, max);
+            }// end of if block
+            if (min != null) {
+                return builder.greaterThanOrEqualTo(root.get("yearPublished"), min);
+            }// end of if block
+            return max == null ? null : builder.lessThanOrEqualTo(root.get("yearPublished"), max);
+        };
+    }// end of yearPublishedBetween method
+
+    // books priced between the two prices, both included
+    public static Specification<Book> priceBetween(Double min, Double max) {
+        return (root, query, builder) -> {
+            if (min != null && max != null) {
+                return builder.between(root.get("price"), min, max);
+            }// end of if block
+            if (min != null) {
+                return builder.greaterThanOrEqualTo(root.get("price"), min);
+            }// end of if block
+            return max == null ? null : builder.lessThanOrEqualTo(root.get("price"), max);
+        };
+    }// end of priceBetween method
+
+    // books that follow the given id, for keyset scrolling
+    public static Specification<Book> idGreaterThan(Long id) {
+        return (root, query, builder) -> builder.greaterThan(root.get("id"), id);
+    }// end of idGreaterThan method
+
+}// end of BookSpecifications class
@@ -0,0 +1,19 @@
+package com.library.books.repository.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// an author, once whatever the number of books, written by the author index of BookBulkRepository
+@Entity
+@Data
+public class Author {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // ID of the author
+
+    private String name; // Name of the author, as first written
+
+    @Column(name = "name_key")
+    private String nameKey; // Lookup key of the name, see AuthorNames
+
+}// end of Author class
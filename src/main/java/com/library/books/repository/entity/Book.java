@@ -1,17 +1,24 @@
 package com.library.books.repository.entity;
 
+import com.library.books.config.SecondLevelCacheConfiguration;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Data
+@Cacheable // only cached when the second-level cache is enabled, see SecondLevelCacheConfiguration
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfiguration.ENTITY_REGION)
 public class Book {
     // Generate ID for each book in the library
     @Id // Primary key for the Book entity
-    @GeneratedValue(strategy = GenerationType.IDENTITY)// Auto-generate the ID
+    // Pooled sequence instead of IDENTITY so that Hibernate can batch the inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id; // ID of the book
 
     @NotBlank(message = "Book title cannot be blank!")
@@ -38,4 +45,7 @@ public class Book {
     @Positive(message = "Price must be a positive number!")
     private double price; // Price of the book
 
+    @Version // bumped by every update, the ETag of the book is derived from it
+    private long version; // Version of the book
+
 }// end of Book class
@@ -0,0 +1,32 @@
+package com.library.books.repository.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// a book written by an author, one row per author of the authors of the book
+@Entity
+@Table(name = "book_author")
+@IdClass(BookAuthor.Key.class)
+@Data
+public class BookAuthor {
+    @Id
+    @Column(name = "author_id")
+    private Long authorId; // ID of the author, first so that the primary key serves the books of an author
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId; // ID of the book
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long authorId;
+        private Long bookId;
+    }// end of Key class
+
+}// end of BookAuthor class
@@ -0,0 +1,10 @@
+package com.library.books.repository.projection;
+
+/*
+ * The fields of a book the catalog statistics are kept on, as read back from the rows a write removed or replaced.
+ */
+public record BookFigures(String isbn,
+                          String publisher,
+                          int yearPublished,
+                          double price) {
+}// end of BookFigures record
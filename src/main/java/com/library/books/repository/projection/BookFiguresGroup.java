@@ -0,0 +1,10 @@
+package com.library.books.repository.projection;
+
+/*
+ * Number of books sharing a publisher, a year and a price, one row of the GROUP BY the catalog statistics are built from.
+ */
+public record BookFiguresGroup(String publisher,
+                               int yearPublished,
+                               double price,
+                               long books) {
+}// end of BookFiguresGroup record
@@ -0,0 +1,16 @@
+package com.library.books.repository.projection;
+
+/*
+ * Read-only projection of a book, selected with a constructor expression straight from the query.
+ * Unlike a Book entity it is not registered in the persistence context, so it is neither snapshotted
+ * nor dirty checked. The id is kept for the keyset cursors, the id and version for the ETags.
+ */
+public record BookRow(Long id,
+                      String bookTitle,
+                      String authors,
+                      String publisher,
+                      String isbn,
+                      int yearPublished,
+                      double price,
+                      long version) {
+}// end of BookRow record
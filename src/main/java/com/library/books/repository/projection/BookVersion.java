@@ -0,0 +1,8 @@
+package com.library.books.repository.projection;
+
+/*
+ * The id and @Version of a book, all a conditional GET needs to compare with the tag the client holds.
+ */
+public record BookVersion(Long id,
+                          long version) {
+}// end of BookVersion record
@@ -0,0 +1,13 @@
+package com.library.books.service;
+
+import com.library.books.service.dto.ImportStatusDTO;
+
+public interface IBookImportService {
+
+    // POST -> start (or resume) the import of a file of the import directory, in the background
+    ImportStatusDTO startImport(String file, String format);
+
+    // GET -> progress of the last import of a file
+    ImportStatusDTO getImportStatus(String file);
+
+}// end of IBookImportService interface
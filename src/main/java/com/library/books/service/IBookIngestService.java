@@ -0,0 +1,14 @@
+package com.library.books.service;
+
+import com.library.books.repository.entity.Book;
+import com.library.books.service.dto.IngestTicketDTO;
+
+public interface IBookIngestService {
+
+    // POST -> queue a book to be added in the background, answered with the ticket to follow it
+    IngestTicketDTO submit(Book book);
+
+    // GET -> outcome of a queued book
+    IngestTicketDTO getTicket(String ticket);
+
+}// end of IBookIngestService interface
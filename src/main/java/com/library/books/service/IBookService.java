@@ -1,31 +1,58 @@
 package com.library.books.service;
 
 import com.library.books.repository.entity.Book;
+import com.library.books.repository.projection.BookVersion;
 import com.library.books.service.dto.BookDTO;
+import com.library.books.service.dto.BookFilter;
+import com.library.books.service.dto.BookPageDTO;
+import com.library.books.service.dto.BookPatch;
+import com.library.books.service.dto.BookStatisticsDTO;
+import com.library.books.service.dto.BulkDeleteResultDTO;
+import com.library.books.service.dto.BulkInsertResultDTO;
+import com.library.books.service.dto.BulkPatchResultDTO;
+import com.library.books.service.dto.CacheStatsDTO;
+import com.library.books.service.dto.PageQuery;
+import com.library.books.service.dto.SearchResultDTO;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface IBookService {
 
     // POST -> add a book to the database
     BookDTO addBook(Book book);
-    List<BookDTO> addAllBooks(List<Book> books);
+    BulkInsertResultDTO addAllBooks(List<Book> books);
 
-    // GET -> get all books, get a book by isbn, get all books by author
-    List<BookDTO> getAllBooks();
+    // GET -> get a page of books, get a book by isbn, get a page of books by author
+    BookPageDTO getAllBooks(PageQuery pageQuery);
     BookDTO getBookByISBN(String isbn);
-    List<BookDTO> getAllBooksByAuthors(String author);
+    Optional<BookVersion> getBookVersionByISBN(String isbn);
+    BookPageDTO getAllBooksByAuthors(String author, PageQuery pageQuery);
     BookDTO getBookByBookTitle(String bookTitle);
-    List<BookDTO> getBookByPublisher(String publisher);
-    List<BookDTO> getBookByYearPublished(int yearPublished);
-    List<BookDTO> getBookByPrice(double price);
+    BookPageDTO getBookByPublisher(String publisher, PageQuery pageQuery);
+    BookPageDTO getBookByYearPublished(int yearPublished, PageQuery pageQuery);
+    BookPageDTO getBookByPrice(double price, PageQuery pageQuery);
+    BookPageDTO filterBooks(BookFilter filter, PageQuery pageQuery);
+    void exportAllBooks(Consumer<BookDTO> consumer);
+    SearchResultDTO searchBooks(String query, PageQuery pageQuery);
 
     // PUT -> update a book by isbn
-    void updateBook(String isbn, Book book);
+    void updateBook(String isbn, Book book, String ifMatch);
 
-    // DELETE -> delete a book by isbn, delete all books in the database
+    // PATCH -> update some fields of many books by isbn
+    BulkPatchResultDTO patchBooks(List<BookPatch> patches);
+
+    // DELETE -> delete a book by isbn, delete many books by isbn, delete all books in the database
     void deleteBookByISBN(String isbn);
+    BulkDeleteResultDTO deleteBooks(List<String> isbns);
     void deleteAllBooks();
     void deleteBookByBookTitle(String bookTitle);
 
+    // cache statistics
+    CacheStatsDTO getCacheStats();
+
+    // GET -> counts by publisher and year, and prices, of the whole catalog
+    BookStatisticsDTO getStatistics();
+
 }// end of IBookServiceImpl interface
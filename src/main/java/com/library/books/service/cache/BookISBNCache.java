@@ -0,0 +1,128 @@
+package com.library.books.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.library.books.config.BooksProperties;
+import com.library.books.repository.projection.BookVersion;
+import com.library.books.service.dto.BookDTO;
+import com.library.books.service.dto.CacheStatsDTO;
+import com.library.books.utility.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.library.books.service.dto.BookMapper.copyBookDTO;
+
+/*
+ * Read-through cache of books keyed by their formatted ISBN.
+ * Bounded in size with W-TinyLFU eviction (Caffeine) and optionally expired after a fixed time.
+ * Only found books are cached, so adding a book never needs an invalidation.
+ *
+ * Books are loaded outside of the cache's own compute, which holds a monitor while the loader runs:
+ * a virtual thread reading the database in there would stay pinned to its carrier thread.
+ *
+ * With read replicas, the ISBNs invalidated within the replicas' max-lag are remembered: a lagging replica may still
+ * hold those books as they were before the write, so they are loaded from the primary until the replicas caught up.
+ */
+@Component
+public class BookISBNCache {
+
+    private final Cache<String, BookDTO> cache;
+    private final boolean enabled;
+    private final AtomicLong invalidations = new AtomicLong(); // bumped before every invalidation
+    private final Cache<String, Boolean> recentInvalidations; // ISBNs invalidated within max-lag, null without replicas
+    private final Duration maxLag;
+    private volatile long allInvalidatedUntil = System.nanoTime(); // end of the max-lag following the last invalidateAll
+
+    public BookISBNCache(BooksProperties booksProperties, MeterRegistry meterRegistry) {
+        BooksProperties.Cache settings = booksProperties.getCache();
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .recordStats();
+        if (settings.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(settings.getExpireAfterWrite());
+        }// end of if block
+        this.cache = builder.build();
+        // hits, misses, evictions and size, as cache_gets_total{cache="books.isbn",result="hit"} and so on
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "books.isbn");
+        this.enabled = settings.isEnabled();
+        BooksProperties.Replication replication = booksProperties.getReplication();
+        this.maxLag = replication.getMaxLag();
+        this.recentInvalidations = replication.isEnabled() ? Caffeine.newBuilder().expireAfterWrite(maxLag).build() : null;
+    }// end of BookISBNCache constructor
+
+    // return the book with the given formatted ISBN, loading it on a miss
+    public Optional<BookDTO> get(String isbn, Function<String, Optional<BookDTO>> loader) {
+        if (!enabled) {
+            return loader.apply(isbn);
+        }// end of if block
+        BookDTO cached = cache.getIfPresent(isbn);
+        if (cached == null) {
+            long seenInvalidations = invalidations.get();
+            // a missing book is not stored, so unknown ISBNs are looked up again next time
+            cached = loader.apply(isbn).orElse(null);
+            if (cached != null) {
+                BookDTO loaded = cached;
+                // skip storing a book that may have been changed while it was loaded
+                cache.asMap().compute(isbn, (key, current) -> invalidations.get() == seenInvalidations ? loaded : current);
+            }// end of if block
+        }// end of if block
+        // hand out a copy, callers are free to add links to the returned DTO
+        return Optional.ofNullable(cached).map(bookDTO -> copyBookDTO(bookDTO, new BookDTO()));
+    }// end of get method
+
+    // id and version of the cached book with the given formatted ISBN, without copying it or counting it in the statistics
+    public Optional<BookVersion> version(String isbn) {
+        return Optional.ofNullable(cache.asMap().get(isbn)).map(bookDTO -> new BookVersion(bookDTO.getId(), bookDTO.getVersion()));
+    }// end of version method
+
+    // whether the book with the given formatted ISBN was invalidated so recently that a replica may still hold it as it was
+    public boolean recentlyInvalidated(String isbn) {
+        if (recentInvalidations == null) {
+            return false;
+        }// end of if block
+        return System.nanoTime() - allInvalidatedUntil < 0 || recentInvalidations.getIfPresent(isbn) != null;
+    }// end of recentlyInvalidated method
+
+    /*
+     * Drop the book with the given formatted ISBN, once the current transaction (if any) has committed.
+     * Invalidating before the commit would let a concurrent reader load the old row again.
+     */
+    public void invalidate(String isbn) {
+        AfterCommit.run(() -> {
+            if (recentInvalidations != null) {
+                recentInvalidations.put(isbn, true); // before the book is dropped, so that its next load reads the primary
+            }// end of if block
+            invalidations.incrementAndGet();
+            cache.invalidate(isbn);
+        });
+    }// end of invalidate method
+
+    // drop every cached book, once the current transaction (if any) has committed
+    public void invalidateAll() {
+        AfterCommit.run(() -> {
+            allInvalidatedUntil = System.nanoTime() + maxLag.toNanos();
+            invalidations.incrementAndGet();
+            cache.invalidateAll();
+        });
+    }// end of invalidateAll method
+
+    // hit, miss and eviction counters of the cache
+    public CacheStatsDTO stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDTO(
+                enabled,
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.evictionCount(),
+                stats.hitRate());
+    }// end of stats method
+
+}// end of BookISBNCache class
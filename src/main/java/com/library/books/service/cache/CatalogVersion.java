@@ -0,0 +1,132 @@
+package com.library.books.service.cache;
+
+import com.library.books.config.BooksProperties;
+import com.library.books.config.ReadWriteRoutingDataSource;
+import com.library.books.service.dto.BookDTO;
+import com.library.books.service.dto.BookPageDTO;
+import com.library.books.utility.AfterCommit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Change counter of the whole catalog and the ETags derived from it.
+ * The counter is bumped once every write has committed, after its other in-memory effects (the statistics among them),
+ * so a tag read before the books or the statistics are read is never newer than what it is sent with.
+ * Lists of books are tagged with the counter, a single book with its id and @Version, so that it keeps its tag
+ * while other books change. The lists and the statistics are sent in several encodings, and compressed, under the same
+ * weak tag; a book gets a strong tag per encoding, as If-Match on update-book: only compares strong tags.
+ * Both are prefixed with the start time of the service: the in-memory catalog, its ids and the counter
+ * start over on a restart, and a tag handed out before it must not match a different book after it.
+ * The counter lives in this instance, so that a 304 never touches the database: its tags are valid for this instance only,
+ * and a write through another instance sharing the database does not change them.
+ * A replica may not have seen the commits the counter counts yet, so a list read from a replica is tagged with
+ * a digest of the ids and versions of its books instead: a 304 then saves sending the list, not reading it.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong changes = new AtomicLong();
+    private final boolean replicated;
+
+    public CatalogVersion(BooksProperties booksProperties) {
+        this.replicated = booksProperties.getReplication().isEnabled();
+    }// end of CatalogVersion constructor
+
+    // bump the counter once the current transaction (if any) has committed, in commit order like the statistics
+    public void changed() {
+        AfterCommit.inCommitOrder(changes::incrementAndGet);
+    }// end of changed method
+
+    // weak ETag of every list of books, in any encoding, as long as the catalog does not change
+    public String catalogTag() {
+        return "W/\"" + instance + "-" + changes.get() + "\"";
+    }// end of catalogTag method
+
+    // whether the lists read now see every commit the counter has counted: without replicas, or pinned to the primary
+    public boolean tagsReads() {
+        return !replicated || ReadWriteRoutingDataSource.isPrimaryRequired();
+    }// end of tagsReads method
+
+    // weak ETag of a page of books, in any encoding, as long as the books it holds do not change
+    public String pageTag(BookPageDTO bookPage) {
+        MessageDigest digest = sha256();
+        digest.update((bookPage.getPage() + "/" + bookPage.getSize() + "/" + bookPage.isHasNext() + "/" + bookPage.getNextCursor()).getBytes(StandardCharsets.UTF_8));
+        ByteBuffer book = ByteBuffer.allocate(2 * Long.BYTES);
+        for (BookDTO bookDTO : bookPage.getContent()) {
+            digest.update(book.clear().putLong(Objects.requireNonNullElse(bookDTO.getId(), 0L)).putLong(bookDTO.getVersion()).flip());
+        }// end of for loop
+        return "W/\"" + instance + "-" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }// end of pageTag method
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is missing from the JDK", e); // every JDK has it
+        }// end of try-catch block
+    }// end of sha256 method
+
+    // strong ETag of a single book in the given media type, as long as the book itself does not change
+    public String bookTag(BookDTO bookDTO, MediaType mediaType) {
+        return bookTag(bookDTO.getId(), bookDTO.getVersion(), mediaType);
+    }// end of bookTag method
+
+    public String bookTag(Long id, long version, MediaType mediaType) {
+        return "\"" + instance + "-" + id + "." + version + "+" + mediaType.getSubtype() + "\"";
+    }// end of bookTag method
+
+    // whether an If-Match header holds "*", which matches any existing book
+    public static boolean matchesAny(String ifMatch) {
+        for (String candidate : ifMatch.split(",")) {
+            if (candidate.trim().equals("*")) {
+                return true;
+            }// end of if block
+        }// end of for loop
+        return false;
+    }// end of matchesAny method
+
+    /*
+     * The id and version of every book tag of this run in an If-Match header, whichever encoding it was sent for.
+     * Weak tags (W/"...") never match, as RFC 9110 requires, and tags of a previous run no longer do.
+     */
+    public List<BookTag> bookTags(String ifMatch) {
+        String prefix = "\"" + instance + "-";
+        List<BookTag> tags = new ArrayList<>();
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() < prefix.length() + 1) {
+                continue;
+            }// end of if block
+            String value = tag.substring(prefix.length(), tag.length() - 1); // id.version+subtype
+            int dot = value.indexOf('.');
+            int plus = value.indexOf('+', dot + 1);
+            if (dot < 0 || plus < 0) {
+                continue;
+            }// end of if block
+            try {
+                tags.add(new BookTag(
+                        Long.parseLong(value.substring(0, dot)),
+                        Long.parseLong(value.substring(dot + 1, plus))));
+            } catch (NumberFormatException e) {
+                // not a tag this service handed out, it cannot match
+            }// end of try-catch block
+        }// end of for loop
+        return tags;
+    }// end of bookTags method
+
+    // the version of a book a client has seen, as carried by its tag
+    public record BookTag(long id, long version) {
+    }// end of BookTag record
+
+}// end of CatalogVersion class
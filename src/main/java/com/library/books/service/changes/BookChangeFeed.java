@@ -0,0 +1,125 @@
+package com.library.books.service.changes;
+
+import com.library.books.config.BooksProperties;
+import com.library.books.service.dto.BookChangeDTO;
+import com.library.books.service.dto.BookDTO;
+import com.library.books.utility.AfterCommit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.library.books.service.dto.BookMapper.copyBookDTO;
+
+/*
+ * Ordered log of the committed changes of the catalog, numbered from 1, of which the latest `capacity` are kept
+ * in a ring buffer for the change feed clients to replay. The changes of a write are appended once its transaction
+ * has committed, all together, so they get consecutive sequence numbers and are never seen before the data is.
+ * They are appended in commit order (see AfterCommit.inCommitOrder): of two writes of the same book, the one that
+ * committed first is numbered first, whichever after-commit callback runs first. The changes of a rolled back write
+ * are dropped and take no number.
+ * A client that asks for changes older than the buffer holds cannot be caught up and has to reload the catalog.
+ */
+@Component
+public class BookChangeFeed {
+
+    private final BookChangeDTO[] ring;
+    private long lastSequence; // sequence of the latest change, 0 before the first one
+    private final ReentrantLock lock = new ReentrantLock(); // not synchronized, waiting readers may be virtual threads
+    private final Condition appended = lock.newCondition();
+
+    public BookChangeFeed(BooksProperties booksProperties, MeterRegistry meterRegistry) {
+        this.ring = new BookChangeDTO[booksProperties.getChangeFeed().getCapacity()];
+        Gauge.builder("books.changes.sequence", this, BookChangeFeed::lastSequence)
+                .description("Sequence number of the latest catalog change")
+                .register(meterRegistry);
+    }// end of BookChangeFeed constructor
+
+    // the books were added, the copies are taken now since the controller adds links to the given ones
+    public void added(List<BookDTO> bookDTOS) {
+        publish(bookDTOS.stream().map(bookDTO -> change("ADDED", bookDTO)).toList());
+    }// end of added method
+
+    public void updated(List<BookDTO> bookDTOS) {
+        publish(bookDTOS.stream().map(bookDTO -> change("UPDATED", bookDTO)).toList());
+    }// end of updated method
+
+    public void deleted(List<String> isbns) {
+        publish(isbns.stream().map(isbn -> new BookChangeDTO(0, "DELETED", isbn, null)).toList());
+    }// end of deleted method
+
+    // every book was deleted at once
+    public void cleared() {
+        publish(List.of(new BookChangeDTO(0, "CLEARED", null, null)));
+    }// end of cleared method
+
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }// end of try-finally block
+    }// end of lastSequence method
+
+    /*
+     * The changes following the given sequence number, at most maxCount of them, waiting up to the given time
+     * for one when there is none yet. Returns null when the changes following it are no longer kept,
+     * or when the sequence number was never handed out (a client of a previous run of the service, or a negative one).
+     */
+    public List<BookChangeDTO> after(long sequence, int maxCount, Duration wait) throws InterruptedException {
+        long nanos = wait.toNanos();
+        lock.lock();
+        try {
+            while (true) {
+                if (sequence < 0 || sequence > lastSequence || sequence < lastSequence - ring.length) {
+                    return null;
+                }// end of if block
+                if (sequence < lastSequence) {
+                    int count = (int) Math.min(maxCount, lastSequence - sequence);
+                    List<BookChangeDTO> changes = new ArrayList<>(count);
+                    for (long next = sequence + 1; next <= sequence + count; next++) {
+                        changes.add(ring[(int) (next % ring.length)]);
+                    }// end of for loop
+                    return changes;
+                }// end of if block
+                if (nanos <= 0) {
+                    return List.of();
+                }// end of if block
+                nanos = appended.awaitNanos(nanos);
+            }// end of while loop
+        } finally {
+            lock.unlock();
+        }// end of try-finally block
+    }// end of after method
+
+    // helper method to append the changes of a write once it has committed, in commit order, or right away outside of a transaction
+    private void publish(List<BookChangeDTO> changes) {
+        if (!changes.isEmpty()) {
+            AfterCommit.inCommitOrder(() -> append(changes));
+        }// end of if block
+    }// end of publish method
+
+    private void append(List<BookChangeDTO> changes) {
+        lock.lock();
+        try {
+            for (BookChangeDTO change : changes) {
+                lastSequence++;
+                ring[(int) (lastSequence % ring.length)] = change.withSequence(lastSequence);
+            }// end of for loop
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }// end of try-finally block
+    }// end of append method
+
+    private static BookChangeDTO change(String type, BookDTO bookDTO) {
+        return new BookChangeDTO(0, type, bookDTO.getIsbn(), copyBookDTO(bookDTO, new BookDTO()));
+    }// end of change method
+
+}// end of BookChangeFeed class
@@ -0,0 +1,11 @@
+package com.library.books.service.dto;
+
+// one committed change of the catalog, as sent by the change feed
+// type is ADDED, UPDATED, DELETED or CLEARED (every book deleted), book is null for the deletes
+public record BookChangeDTO(long sequence, String type, String isbn, BookDTO book) {
+
+    public BookChangeDTO withSequence(long sequence) {
+        return new BookChangeDTO(sequence, type, isbn, book);
+    }// end of withSequence method
+
+}// end of BookChangeDTO record
@@ -0,0 +1,14 @@
+package com.library.books.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// a book of a bulk request that was not added, with its position in the payload and the reason
+@Data
+@AllArgsConstructor
+public class BookConflictDTO {
+
+    private int index;
+    private String isbn, reason;
+
+}// end of BookConflictDTO class
@@ -1,5 +1,6 @@
 package com.library.books.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.springframework.hateoas.RepresentationModel;
@@ -12,4 +13,10 @@ public class BookDTO extends RepresentationModel<BookDTO>{
     private int yearPublished;
     private double price;
 
+    // not part of the payload, the ETag of the book is derived from them
+    @JsonIgnore
+    private Long id;
+    @JsonIgnore
+    private long version;
+
 }// end of BookDTO class
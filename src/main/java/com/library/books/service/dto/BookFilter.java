@@ -0,0 +1,11 @@
+package com.library.books.service.dto;
+
+// criteria of a filtered list request, every criterion is optional and the given ones are combined with AND
+public record BookFilter(String authors,
+                         String publisher,
+                         Integer minYearPublished,
+                         Integer maxYearPublished,
+                         Double minPrice,
+                         Double maxPrice,
+                         String sort) { // property to sort by, optionally followed by ",asc" or ",desc"
+}// end of BookFilter record
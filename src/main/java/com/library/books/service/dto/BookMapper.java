@@ -1,6 +1,7 @@
 package com.library.books.service.dto;
 
 import com.library.books.repository.entity.Book;
+import com.library.books.repository.projection.BookRow;
 
 public class BookMapper {
 
@@ -12,8 +13,50 @@ public class BookMapper {
         bookDto.setIsbn(book.getIsbn());
         bookDto.setYearPublished(book.getYearPublished());
         bookDto.setPrice(book.getPrice());
+        bookDto.setId(book.getId());
+        bookDto.setVersion(book.getVersion());
 
         return bookDto;
     }// end of mapToBookDTO method
 
+    // mapToBookDTO method for the rows read as projections
+    public static BookDTO mapToBookDTO(BookRow row, BookDTO bookDto) {
+        bookDto.setBookTitle(row.bookTitle());
+        bookDto.setAuthors(row.authors());
+        bookDto.setPublisher(row.publisher());
+        bookDto.setIsbn(row.isbn());
+        bookDto.setYearPublished(row.yearPublished());
+        bookDto.setPrice(row.price());
+        bookDto.setId(row.id());
+        bookDto.setVersion(row.version());
+
+        return bookDto;
+    }// end of mapToBookDTO method
+
+    // mapToBook method, for the books posted in a format that is decoded to DTOs
+    public static Book mapToBook(BookDTO bookDto, Book book) {
+        book.setBookTitle(bookDto.getBookTitle());
+        book.setAuthors(bookDto.getAuthors());
+        book.setPublisher(bookDto.getPublisher());
+        book.setIsbn(bookDto.getIsbn());
+        book.setYearPublished(bookDto.getYearPublished());
+        book.setPrice(bookDto.getPrice());
+
+        return book;
+    }// end of mapToBook method
+
+    // copyBookDTO method, copies the book fields but not the links
+    public static BookDTO copyBookDTO(BookDTO source, BookDTO bookDto) {
+        bookDto.setBookTitle(source.getBookTitle());
+        bookDto.setAuthors(source.getAuthors());
+        bookDto.setPublisher(source.getPublisher());
+        bookDto.setIsbn(source.getIsbn());
+        bookDto.setYearPublished(source.getYearPublished());
+        bookDto.setPrice(source.getPrice());
+        bookDto.setId(source.getId());
+        bookDto.setVersion(source.getVersion());
+
+        return bookDto;
+    }// end of copyBookDTO method
+
 }// end of BookMapper class
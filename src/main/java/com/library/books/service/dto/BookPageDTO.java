@@ -0,0 +1,19 @@
+package com.library.books.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// one page of books, with the cursor to pass back to read the following page
+@Data
+@AllArgsConstructor
+public class BookPageDTO {
+
+    private List<BookDTO> content;
+    private Integer page; // null when the page was read with a cursor
+    private int size;
+    private boolean hasNext;
+    private String nextCursor; // null on the last page
+
+}// end of BookPageDTO class
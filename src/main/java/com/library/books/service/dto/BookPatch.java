@@ -0,0 +1,22 @@
+package com.library.books.service.dto;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/*
+ * Partial update of the book with the given ISBN, as sent to the batch patch endpoint.
+ * A field left null keeps its stored value, the ISBN itself cannot be changed.
+ */
+public record BookPatch(String isbn,
+                        @Pattern(regexp = ".*\\S.*", message = "Book title cannot be blank!") String bookTitle,
+                        @Pattern(regexp = ".*\\S.*", message = "Authors cannot be blank!") String authors,
+                        @Pattern(regexp = ".*\\S.*", message = "Publisher cannot be blank!") String publisher,
+                        @Positive(message = "Year published must be a positive number!") Integer yearPublished,
+                        @Positive(message = "Price must be a positive number!") Double price) {
+
+    // same book and changes, with the formatted ISBN
+    public BookPatch withIsbn(String isbn) {
+        return new BookPatch(isbn, bookTitle, authors, publisher, yearPublished, price);
+    }// end of withIsbn method
+
+}// end of BookPatch record
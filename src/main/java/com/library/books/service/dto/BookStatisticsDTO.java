@@ -0,0 +1,24 @@
+package com.library.books.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+// counts and prices of the whole catalog, the price fields are null when it is empty
+@Data
+@AllArgsConstructor
+public class BookStatisticsDTO {
+
+    private long books;
+    private Map<String, Long> booksByPublisher; // by publisher name
+    private Map<Integer, Long> booksByYearPublished; // by year, in ascending order
+    private Double minPrice, maxPrice, averagePrice;
+    private List<PriceBucket> priceHistogram; // books by price range, in ascending order
+
+    // books priced from (included) up to (excluded), to is null for the last range
+    public record PriceBucket(double from, Double to, long books) {
+    }// end of PriceBucket record
+
+}// end of BookStatisticsDTO class
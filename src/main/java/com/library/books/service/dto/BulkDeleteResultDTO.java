@@ -0,0 +1,16 @@
+package com.library.books.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// outcome of a batch delete: the ISBNs that were deleted and the ones that were not
+@Data
+@AllArgsConstructor
+public class BulkDeleteResultDTO {
+
+    private List<String> deleted;
+    private List<BookConflictDTO> conflicts;
+
+}// end of BulkDeleteResultDTO class
@@ -0,0 +1,19 @@
+package com.library.books.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.util.List;
+
+// outcome of a bulk insert: the books that were added and the ones that were rejected
+@EqualsAndHashCode(callSuper = true)
+@Data
+@AllArgsConstructor
+public class BulkInsertResultDTO extends RepresentationModel<BulkInsertResultDTO> { // links are only set in compact link mode
+
+    private List<BookDTO> added;
+    private List<BookConflictDTO> conflicts;
+
+}// end of BulkInsertResultDTO class
@@ -0,0 +1,16 @@
+package com.library.books.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// outcome of a batch patch: the ISBNs of the books that were updated and the patches that were rejected
+@Data
+@AllArgsConstructor
+public class BulkPatchResultDTO {
+
+    private List<String> updated;
+    private List<BookConflictDTO> conflicts;
+
+}// end of BulkPatchResultDTO class
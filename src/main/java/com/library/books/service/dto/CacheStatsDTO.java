@@ -0,0 +1,15 @@
+package com.library.books.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// counters of the ISBN cache, used to size it
+@Data
+@AllArgsConstructor
+public class CacheStatsDTO {
+
+    private boolean enabled;
+    private long size, hits, misses, evictions;
+    private double hitRate;
+
+}// end of CacheStatsDTO class
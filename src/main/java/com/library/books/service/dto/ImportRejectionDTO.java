@@ -0,0 +1,15 @@
+package com.library.books.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// a row of an import file that was not added, with its row number in the file and the reason
+// a long, as a file can hold more rows than an int counts
+@Data
+@AllArgsConstructor
+public class ImportRejectionDTO {
+
+    private long index;
+    private String isbn, reason;
+
+}// end of ImportRejectionDTO class
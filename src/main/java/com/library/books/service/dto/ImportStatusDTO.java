@@ -0,0 +1,21 @@
+package com.library.books.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// progress of a file import, the index of a rejected row is its row number in the file (the CSV header excluded)
+@Data
+@AllArgsConstructor
+public class ImportStatusDTO {
+
+    private String file, format, state; // state is RUNNING, COMPLETED or FAILED
+    private long rowsRead, added, rejected;
+    private long resumedFromRow; // rows already imported by an interrupted run, 0 for a fresh import
+    private long bytesRead, totalBytes;
+    private double rowsPerSecond; // rows read per second by this run
+    private String message; // reason of a failure
+    private List<ImportRejectionDTO> rejections; // the first rejected rows
+
+}// end of ImportStatusDTO class
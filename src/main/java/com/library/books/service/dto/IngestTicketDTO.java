@@ -0,0 +1,16 @@
+package com.library.books.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// outcome of a book queued by the asynchronous add-book endpoint
+@Data
+@AllArgsConstructor
+public class IngestTicketDTO {
+
+    private String ticket, isbn; // the ISBN as it was sent
+    private String state; // QUEUED, ADDED, REJECTED (duplicate or invalid book) or FAILED (the batch could not be written)
+    private String reason; // why the book was rejected or failed
+    private int batchSize; // books inserted in the same transaction, 0 while queued
+
+}// end of IngestTicketDTO class
@@ -0,0 +1,11 @@
+package com.library.books.service.dto;
+
+// paging parameters of a list request: page and size for offset paging, or a cursor for keyset scrolling
+public record PageQuery(Integer page, Integer size, String cursor) {
+
+    // keyset scrolling is used as soon as the client sends a cursor
+    public boolean isKeyset() {
+        return cursor != null && !cursor.isBlank();
+    }// end of isKeyset method
+
+}// end of PageQuery record
@@ -0,0 +1,18 @@
+package com.library.books.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// one page of search results, best matches first
+@Data
+@AllArgsConstructor
+public class SearchResultDTO {
+
+    private String query;
+    private long totalHits;
+    private int page, size;
+    private List<BookDTO> content;
+
+}// end of SearchResultDTO class
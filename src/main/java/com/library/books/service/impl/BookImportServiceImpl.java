@@ -0,0 +1,301 @@
+package com.library.books.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.books.config.BooksProperties;
+import com.library.books.controller.exception.InvalidImportException;
+import com.library.books.repository.entity.Book;
+import com.library.books.service.IBookImportService;
+import com.library.books.service.IBookService;
+import com.library.books.service.dto.BookConflictDTO;
+import com.library.books.service.dto.BulkInsertResultDTO;
+import com.library.books.service.dto.ImportRejectionDTO;
+import com.library.books.service.dto.ImportStatusDTO;
+import com.library.books.service.importer.ImportCheckpoint;
+import com.library.books.service.importer.ImportFileReader;
+import com.library.books.utility.CsvFormat;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Imports the books of a CSV or JSONL file of the import directory, in the background.
+ * The file is streamed record by record, and every chunk of rows goes through addAllBooks,
+ * in its own transaction, before a checkpoint records the byte offset reached.
+ * Rows that cannot be parsed, or that addAllBooks rejects, are counted and reported with their row number.
+ */
+@Slf4j
+@Service
+@Timed(value = "books.service", description = "Book service methods", histogram = true) // tagged with the method
+public class BookImportServiceImpl implements IBookImportService {
+
+    private static final String FILE_NOT_FOUND = "File to import is not found in the import directory! : ";
+    private static final String UNSUPPORTED_FORMAT = "Import format must be csv or jsonl! : ";
+    private static final String ALREADY_RUNNING = "File is already being imported! : ";
+    private static final String NO_IMPORT = "No import of the following file has been started! : ";
+    private static final String MISSING_COLUMN = "CSV header is missing the following column! : ";
+    private static final String UNREADABLE_ROW = "Row cannot be read! : ";
+    private static final List<String> CSV_COLUMNS = List.of("booktitle", "authors", "publisher", "isbn", "yearpublished", "price");
+
+    private final IBookService bookService;
+    private final ObjectMapper objectMapper;
+    private final BooksProperties.FileImport settings;
+    private final AsyncTaskExecutor taskExecutor;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>(); // last import of each file
+
+    // the auto-configured application executor, which runs on virtual threads in that mode
+    public BookImportServiceImpl(IBookService bookService,
+                                 ObjectMapper objectMapper,
+                                 BooksProperties booksProperties,
+                                 @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor) {
+        this.bookService = bookService;
+        this.objectMapper = objectMapper;
+        this.settings = booksProperties.getFileImport();
+        this.taskExecutor = taskExecutor;
+    }// end of BookImportServiceImpl constructor
+
+    // start (or resume) the import of a file of the import directory
+    @Override
+    public ImportStatusDTO startImport(String file, String format) {
+        Path path = resolve(file);
+        if (!Files.isRegularFile(path)) {
+            throw new InvalidImportException(FILE_NOT_FOUND + file);
+        }// end of if block
+        boolean csv = isCsv(path, format);
+        String name = directory().relativize(path).toString();
+
+        ImportJob job = jobs.compute(name, (key, current) -> {
+            if (current != null && current.state.equals("RUNNING")) {
+                throw new InvalidImportException(ALREADY_RUNNING + file);
+            }// end of if block
+            return new ImportJob(name, path, csv);
+        });
+        taskExecutor.execute(() -> run(job));
+        return job.status();
+    }// end of startImport method
+
+    // progress of the last import of a file
+    @Override
+    public ImportStatusDTO getImportStatus(String file) {
+        ImportJob job = jobs.get(directory().relativize(resolve(file)).toString());
+        if (job == null) {
+            throw new InvalidImportException(NO_IMPORT + file);
+        }// end of if block
+        return job.status();
+    }// end of getImportStatus method
+
+    // helper method to read the file from its checkpoint and import it chunk by chunk
+    private void run(ImportJob job) {
+        try {
+            long fileSize = Files.size(job.path);
+            ImportCheckpoint checkpoint = ImportCheckpoint.load(job.path, fileSize)
+                    .orElse(new ImportCheckpoint(0, 0, 0, 0, null, fileSize, 0));
+            job.resume(checkpoint);
+            if (checkpoint.offset() > 0) {
+                log.info("Import of {} resumed at row {}", job.name, checkpoint.rows());
+            }// end of if block
+
+            try (ImportFileReader reader = new ImportFileReader(job.path, checkpoint.offset(), job.csv)) {
+                job.totalBytes = reader.size();
+                String header = checkpoint.header();
+                int[] columns = null;
+                if (job.csv) {
+                    header = header != null ? header : reader.nextRecord();
+                    columns = columns(header == null ? "" : header);
+                }// end of if block
+
+                List<Book> chunk = new ArrayList<>(settings.getChunkSize());
+                List<Long> chunkRows = new ArrayList<>(settings.getChunkSize()); // row number of each book of the chunk
+                long nextLog = System.nanoTime() + settings.getProgressInterval().toNanos();
+                String record;
+                while ((record = reader.nextRecord()) != null) {
+                    if (record.isBlank()) {
+                        continue;
+                    }// end of if block
+                    long row = ++job.rowsRead;
+                    try {
+                        chunk.add(job.csv ? fromCsv(record, columns) : objectMapper.readValue(record, Book.class));
+                        chunkRows.add(row);
+                    } catch (JsonProcessingException | IllegalArgumentException e) { // also covers NumberFormatException
+                        job.reject(row, null, UNREADABLE_ROW + e.getMessage(), settings.getMaxRejections());
+                    }// end of try-catch block
+
+                    if (chunk.size() == settings.getChunkSize()) {
+                        commit(job, chunk, chunkRows, reader.position(), header, fileSize);
+                    }// end of if block
+                    job.bytesRead = reader.position();
+                    if (System.nanoTime() - nextLog > 0) {
+                        log.info("Import of {}: {} rows, {} added, {} rejected, {} rows/s",
+                                job.name, job.rowsRead, job.added, job.rejected, Math.round(job.rowsPerSecond()));
+                        nextLog = System.nanoTime() + settings.getProgressInterval().toNanos();
+                    }// end of if block
+                }// end of while loop
+                commit(job, chunk, chunkRows, reader.position(), header, fileSize);
+                job.bytesRead = reader.position();
+            }// end of try-with-resources block
+
+            ImportCheckpoint.delete(job.path); // a new import of the file starts from the beginning again
+            job.finish("COMPLETED", null);
+            log.info("Import of {} completed: {} rows, {} added, {} rejected, {} rows/s",
+                    job.name, job.rowsRead, job.added, job.rejected, Math.round(job.rowsPerSecond()));
+        } catch (IOException | RuntimeException e) {
+            // the checkpoint is kept, starting the import again resumes after the last committed chunk
+            job.finish("FAILED", e.getMessage());
+            log.warn("Import of {} failed after {} rows", job.name, job.rowsRead, e);
+        }// end of try-catch block
+    }// end of run method
+
+    // helper method to insert a chunk in one transaction, then record the offset after it
+    private void commit(ImportJob job, List<Book> chunk, List<Long> chunkRows, long offset,
+                        String header, long fileSize) throws IOException {
+        if (!chunk.isEmpty()) {
+            BulkInsertResultDTO result = bookService.addAllBooks(chunk);
+            job.added += result.getAdded().size();
+            for (BookConflictDTO conflict : result.getConflicts()) {
+                job.reject(chunkRows.get(conflict.getIndex()), conflict.getIsbn(), conflict.getReason(), settings.getMaxRejections());
+            }// end of for loop
+            chunk.clear();
+            chunkRows.clear();
+        }// end of if block
+        long fileHash = ImportCheckpoint.hash(job.path, offset);
+        new ImportCheckpoint(offset, job.rowsRead, job.added, job.rejected, header, fileSize, fileHash).save(job.path);
+    }// end of commit method
+
+    // helper method to find the position of every column in the CSV header, names match ignoring case and '_'
+    private int[] columns(String header) {
+        List<String> names = CsvFormat.split(header).stream()
+                .map(name -> name.trim().replace("_", "").toLowerCase(Locale.ROOT))
+                .toList();
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.indexOf(CSV_COLUMNS.get(i));
+            if (columns[i] < 0) {
+                throw new InvalidImportException(MISSING_COLUMN + CSV_COLUMNS.get(i));
+            }// end of if block
+        }// end of for loop
+        return columns;
+    }// end of columns method
+
+    // helper method to build a book from a CSV record, the constraints are checked by addAllBooks
+    private Book fromCsv(String record, int[] columns) {
+        List<String> fields = CsvFormat.split(record);
+        Book book = new Book();
+        book.setBookTitle(field(fields, columns[0]));
+        book.setAuthors(field(fields, columns[1]));
+        book.setPublisher(field(fields, columns[2]));
+        book.setIsbn(field(fields, columns[3]));
+        book.setYearPublished(Integer.parseInt(field(fields, columns[4]).trim()));
+        book.setPrice(Double.parseDouble(field(fields, columns[5]).trim()));
+        return book;
+    }// end of fromCsv method
+
+    private String field(List<String> fields, int column) {
+        if (column >= fields.size()) {
+            throw new IllegalArgumentException("expected " + (column + 1) + " fields, found " + fields.size());
+        }// end of if block
+        return fields.get(column);
+    }// end of field method
+
+    // helper method to keep the file inside the import directory, whatever the name and the links on the way
+    private Path resolve(String file) {
+        Path directory = directory();
+        Path path = directory.resolve(file).normalize();
+        try {
+            if (!path.startsWith(directory) || (Files.exists(path) && !path.toRealPath().startsWith(directory.toRealPath()))) {
+                throw new InvalidImportException(FILE_NOT_FOUND + file);
+            }// end of if block
+        } catch (IOException e) {
+            throw new InvalidImportException(FILE_NOT_FOUND + file);
+        }// end of try-catch block
+        return path;
+    }// end of resolve method
+
+    private Path directory() {
+        return Paths.get(settings.getDirectory()).toAbsolutePath().normalize();
+    }// end of directory method
+
+    // helper method to take the format from the request, or else from the file extension
+    private boolean isCsv(Path path, String format) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        String resolved = format != null ? format.toLowerCase(Locale.ROOT)
+                : name.endsWith(".csv") ? "csv"
+                : name.endsWith(".jsonl") || name.endsWith(".ndjson") ? "jsonl"
+                : "";
+        return switch (resolved) {
+            case "csv" -> true;
+            case "jsonl" -> false;
+            default -> throw new InvalidImportException(UNSUPPORTED_FORMAT + (format != null ? format : name));
+        };
+    }// end of isCsv method
+
+    // progress of one import, written by its worker and read by status requests
+    private static class ImportJob {
+        private final String name;
+        private final Path path;
+        private final boolean csv;
+        private volatile String state = "RUNNING";
+        private volatile String message;
+        private volatile long rowsRead, added, rejected, resumedFromRow, bytesRead, totalBytes;
+        private volatile long started = System.nanoTime(), finished;
+        private final List<ImportRejectionDTO> rejections = Collections.synchronizedList(new ArrayList<>());
+
+        ImportJob(String name, Path path, boolean csv) {
+            this.name = name;
+            this.path = path;
+            this.csv = csv;
+        }// end of ImportJob constructor
+
+        void resume(ImportCheckpoint checkpoint) {
+            rowsRead = checkpoint.rows();
+            added = checkpoint.added();
+            rejected = checkpoint.rejected();
+            resumedFromRow = checkpoint.rows();
+            bytesRead = checkpoint.offset();
+            started = System.nanoTime();
+        }// end of resume method
+
+        void reject(long row, String isbn, String reason, int maxRejections) {
+            rejected++;
+            if (rejections.size() < maxRejections) {
+                rejections.add(new ImportRejectionDTO(row, isbn, reason));
+            }// end of if block
+        }// end of reject method
+
+        void finish(String state, String message) {
+            this.finished = System.nanoTime();
+            this.message = message;
+            this.state = state;
+        }// end of finish method
+
+        double rowsPerSecond() {
+            long elapsed = (finished != 0 ? finished : System.nanoTime()) - started;
+            return elapsed > 0 ? (rowsRead - resumedFromRow) * 1e9 / elapsed : 0;
+        }// end of rowsPerSecond method
+
+        ImportStatusDTO status() {
+            List<ImportRejectionDTO> firstRejections;
+            synchronized (rejections) {
+                firstRejections = new ArrayList<>(rejections);
+            }// end of synchronized block
+            // unreadable rows are rejected as they are read, the others once their chunk is inserted
+            firstRejections.sort(Comparator.comparingLong(ImportRejectionDTO::getIndex));
+            return new ImportStatusDTO(name, csv ? "csv" : "jsonl", state, rowsRead, added, rejected, resumedFromRow,
+                    bytesRead, totalBytes, rowsPerSecond(), message, firstRejections);
+        }// end of status method
+    }// end of ImportJob class
+
+}// end of BookImportServiceImpl class
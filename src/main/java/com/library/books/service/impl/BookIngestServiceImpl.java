@@ -0,0 +1,248 @@
+package com.library.books.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.books.config.BooksProperties;
+import com.library.books.controller.exception.IngestQueueFullException;
+import com.library.books.controller.exception.IngestTicketNotFoundException;
+import com.library.books.controller.exception.IngestUnavailableException;
+import com.library.books.repository.entity.Book;
+import com.library.books.service.IBookIngestService;
+import com.library.books.service.IBookService;
+import com.library.books.service.dto.BookConflictDTO;
+import com.library.books.service.dto.BulkInsertResultDTO;
+import com.library.books.service.dto.IngestTicketDTO;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Adds the books posted to the asynchronous add-book endpoint in the background.
+ * A request only queues its book and gets a ticket back; one worker thread takes the queued books in arrival
+ * order and inserts up to max-batch-size of them per addAllBooks transaction, waiting up to max-delay for
+ * a batch to fill. A full queue refuses new books instead of growing, and the caller is told to retry later.
+ * Duplicate ISBNs stay detected: addAllBooks rejects the repeats inside a batch, and since batches are
+ * inserted one after the other, each batch sees the ISBNs committed by the previous ones.
+ */
+@Slf4j
+@Service
+@Timed(value = "books.service", description = "Book service methods", histogram = true) // tagged with the method
+public class BookIngestServiceImpl implements IBookIngestService {
+
+    private static final String QUEUE_FULL = "Ingest queue is full, retry later! : ";
+    private static final String UNAVAILABLE = "Ingest queue is stopping, retry later!";
+    private static final String TICKET_NOT_FOUND = "No book with the following ticket is queued or was recently added! : ";
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30); // time given to the worker to empty the queue
+    private static final String ISBN_TAKEN = "ISBN was added by another request in the meantime! : ";
+
+    private final IBookService bookService;
+    private final BooksProperties.Ingest settings;
+    private final BlockingQueue<QueuedBook> queue;
+    private final Cache<String, QueuedBook> tickets; // recent tickets, queued or done
+    private final Thread worker = Thread.ofPlatform().name("books-ingest").daemon().unstarted(this::run);
+    private volatile boolean accepting = true;
+    // submits queue under the read lock, stop flips accepting under the write lock: once it is off, no book is queued anymore
+    private final ReadWriteLock acceptingLock = new ReentrantReadWriteLock(); // not synchronized, callers may be virtual threads
+
+    private final DistributionSummary batchSizes;
+    private final Counter added, rejected, failed;
+
+    public BookIngestServiceImpl(IBookService bookService, BooksProperties booksProperties, MeterRegistry meterRegistry) {
+        this.bookService = bookService;
+        this.settings = booksProperties.getIngest();
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+        this.tickets = Caffeine.newBuilder()
+                .expireAfterWrite(settings.getTicketRetention())
+                .maximumSize(settings.getMaxTickets())
+                .build();
+
+        Gauge.builder("books.ingest.queue.size", queue, BlockingQueue::size)
+                .description("Books waiting in the ingest queue")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("books.ingest.batch.size")
+                .description("Books inserted per ingest transaction")
+                .register(meterRegistry);
+        this.added = ingested(meterRegistry, "ADDED");
+        this.rejected = ingested(meterRegistry, "REJECTED");
+        this.failed = ingested(meterRegistry, "FAILED");
+    }// end of BookIngestServiceImpl constructor
+
+    private static Counter ingested(MeterRegistry meterRegistry, String state) {
+        return Counter.builder("books.ingest.books")
+                .description("Queued books by outcome")
+                .tag("state", state)
+                .register(meterRegistry);
+    }// end of ingested method
+
+    @PostConstruct
+    void start() {
+        worker.start();
+    }// end of start method
+
+    // refuse new books, then let the worker insert the ones already queued before the database goes away
+    @PreDestroy
+    void stop() throws InterruptedException {
+        acceptingLock.writeLock().lock();
+        try {
+            accepting = false; // waits for the submits that are queueing a book
+        } finally {
+            acceptingLock.writeLock().unlock();
+        }// end of try-finally block
+        worker.join(SHUTDOWN_TIMEOUT.toMillis());
+        // the worker did not empty the queue in time, the books left in it will never be added
+        List<QueuedBook> left = new ArrayList<>();
+        queue.drainTo(left);
+        if (!left.isEmpty()) {
+            log.warn("Ingest stopped with {} books still queued", left.size());
+            for (QueuedBook queued : left) {
+                queued.finish("FAILED", UNAVAILABLE, 0);
+                failed.increment();
+            }// end of for loop
+        }// end of if block
+    }// end of stop method
+
+    // queue a book, nothing is read or written on the caller's thread
+    @Override
+    public IngestTicketDTO submit(Book book) {
+        acceptingLock.readLock().lock();
+        try {
+            if (!accepting) {
+                throw new IngestUnavailableException(UNAVAILABLE);
+            }// end of if block
+            QueuedBook queued = new QueuedBook(UUID.randomUUID().toString(), book);
+            tickets.put(queued.ticket, queued);
+            if (!queue.offer(queued)) {
+                tickets.invalidate(queued.ticket);
+                throw new IngestQueueFullException(QUEUE_FULL + settings.getQueueCapacity() + " books");
+            }// end of if block
+            return queued.status();
+        } finally {
+            acceptingLock.readLock().unlock();
+        }// end of try-finally block
+    }// end of submit method
+
+    // outcome of a queued book
+    @Override
+    public IngestTicketDTO getTicket(String ticket) {
+        QueuedBook queued = tickets.getIfPresent(ticket);
+        if (queued == null) {
+            throw new IngestTicketNotFoundException(TICKET_NOT_FOUND + ticket);
+        }// end of if block
+        return queued.status();
+    }// end of getTicket method
+
+    // worker loop: gather a batch of queued books and insert it, until stopped and the queue is empty
+    private void run() {
+        List<QueuedBook> batch = new ArrayList<>(settings.getMaxBatchSize());
+        while (accepting || !queue.isEmpty()) {
+            try {
+                QueuedBook first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }// end of if block
+                batch.add(first);
+                // a burst fills the batch at once, a trickle is inserted after max-delay at the latest
+                long deadline = System.nanoTime() + settings.getMaxDelay().toNanos();
+                while (batch.size() < settings.getMaxBatchSize()) {
+                    if (queue.drainTo(batch, settings.getMaxBatchSize() - batch.size()) > 0) {
+                        continue;
+                    }// end of if block
+                    QueuedBook next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }// end of if block
+                    batch.add(next);
+                }// end of while loop
+                insert(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ingest batch of {} books failed", batch.size(), e);
+                for (QueuedBook queued : batch) {
+                    if (queued.state.equals("QUEUED")) { // the books added one by one before the failure stay added
+                        queued.finish("FAILED", e.getMessage(), batch.size());
+                        failed.increment();
+                    }// end of if block
+                }// end of for loop
+            } finally {
+                batch.clear();
+            }// end of try-catch-finally block
+        }// end of while loop
+    }// end of run method
+
+    // helper method to insert a batch in one transaction and record the outcome of every book
+    private void insert(List<QueuedBook> batch) {
+        try {
+            record(batch, bookService.addAllBooks(batch.stream().map(queued -> queued.book).toList()));
+        } catch (DataIntegrityViolationException e) {
+            // an ISBN of the batch was added by a synchronous add-book after it was looked up,
+            // the batch was rolled back, so add its books one by one to reject only the taken ones
+            for (QueuedBook queued : batch) {
+                try {
+                    record(List.of(queued), bookService.addAllBooks(List.of(queued.book)));
+                } catch (DataIntegrityViolationException taken) {
+                    queued.finish("REJECTED", ISBN_TAKEN + queued.book.getIsbn(), 1);
+                    rejected.increment();
+                }// end of try-catch block
+            }// end of for loop
+        }// end of try-catch block
+    }// end of insert method
+
+    // helper method to mark the books of an inserted batch as added, or rejected with the reason addAllBooks gave
+    private void record(List<QueuedBook> batch, BulkInsertResultDTO result) {
+        batchSizes.record(batch.size());
+        String[] reasons = new String[batch.size()];
+        for (BookConflictDTO conflict : result.getConflicts()) {
+            reasons[conflict.getIndex()] = conflict.getReason();
+        }// end of for loop
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).finish(reasons[i] == null ? "ADDED" : "REJECTED", reasons[i], batch.size());
+        }// end of for loop
+        added.increment(result.getAdded().size());
+        rejected.increment(result.getConflicts().size());
+    }// end of record method
+
+    // a queued book and its outcome, written by the worker and read by status requests
+    private static class QueuedBook {
+        private final String ticket, isbn;
+        private final Book book;
+        private volatile String state = "QUEUED";
+        private volatile String reason;
+        private volatile int batchSize;
+
+        QueuedBook(String ticket, Book book) {
+            this.ticket = ticket;
+            this.isbn = book.getIsbn(); // addAllBooks formats the ISBN of the book in place
+            this.book = book;
+        }// end of QueuedBook constructor
+
+        void finish(String state, String reason, int batchSize) {
+            this.reason = reason;
+            this.batchSize = batchSize;
+            this.state = state;
+        }// end of finish method
+
+        IngestTicketDTO status() {
+            return new IngestTicketDTO(ticket, isbn, state, reason, batchSize);
+        }// end of status method
+    }// end of QueuedBook class
+
+}// end of BookIngestServiceImpl class
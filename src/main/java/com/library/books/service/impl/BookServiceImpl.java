@@ -1,187 +1,752 @@
 package com.library.books.service.impl;
 
+import com.library.books.config.BooksProperties;
 import com.library.books.controller.exception.BookISBNAlreadyExistsException;
+import com.library.books.controller.exception.BookISBNInvalidException;
+import com.library.books.controller.exception.BookISBNMismatchException;
 import com.library.books.controller.exception.BookISBNNotFoundException;
+import com.library.books.controller.exception.BookPreconditionFailedException;
+import com.library.books.controller.exception.InvalidFilterException;
+import com.library.books.controller.exception.InvalidPageRequestException;
 import com.library.books.repository.BookRepository;
 import com.library.books.repository.entity.Book;
+import com.library.books.repository.projection.BookFigures;
+import com.library.books.repository.projection.BookRow;
+import com.library.books.repository.projection.BookVersion;
 import com.library.books.service.IBookService;
+import com.library.books.service.cache.BookISBNCache;
+import com.library.books.service.cache.CatalogVersion;
+import com.library.books.service.changes.BookChangeFeed;
+import com.library.books.service.stats.BookStatistics;
+import com.library.books.service.dto.BookConflictDTO;
 import com.library.books.service.dto.BookDTO;
+import com.library.books.service.dto.BookFilter;
+import com.library.books.service.dto.BookPatch;
+import com.library.books.service.dto.BookStatisticsDTO;
+import com.library.books.service.dto.BookPageDTO;
+import com.library.books.service.dto.BulkDeleteResultDTO;
+import com.library.books.service.dto.BulkInsertResultDTO;
+import com.library.books.service.dto.BulkPatchResultDTO;
+import com.library.books.service.dto.CacheStatsDTO;
+import com.library.books.utility.AfterCommit;
+import com.library.books.utility.AuthorNames;
+import com.library.books.service.dto.PageQuery;
+import com.library.books.service.dto.SearchResultDTO;
+import com.library.books.service.metrics.BookMetrics;
+import com.library.books.service.search.BookSearchIndex;
 
+import static com.library.books.config.ReadWriteRoutingDataSource.onPrimary;
+import static com.library.books.repository.BookSpecifications.hasAuthors;
+import static com.library.books.repository.BookSpecifications.hasPublisher;
+import static com.library.books.repository.BookSpecifications.idGreaterThan;
+import static com.library.books.repository.BookSpecifications.priceBetween;
+import static com.library.books.repository.BookSpecifications.yearPublishedBetween;
 import static com.library.books.service.dto.BookMapper.mapToBookDTO;
 import static com.library.books.utility.ISBNFormatter.formatISBN;
+import static com.library.books.utility.PageCursor.decode;
+import static com.library.books.utility.PageCursor.encode;
+import static java.util.function.Function.identity;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
+@Timed(value = "books.service", description = "Book service methods", histogram = true) // tagged with the method
 public class BookServiceImpl implements IBookService {
 
     private final BookRepository bookRepository;
+    private final Validator validator;
+    private final BooksProperties booksProperties;
+    private final BookISBNCache bookISBNCache;
+    private final BookSearchIndex bookSearchIndex;
+    private final CatalogVersion catalogVersion;
+    private final BookMetrics bookMetrics;
+    private final BookChangeFeed bookChangeFeed;
+    private final BookStatistics bookStatistics;
 
     private static final String ISBN_NOT_FOUND = "Book with the following ISBN is not found in database! : ";
     private static final String TITLE_NOT_FOUND = "Book with the following title is not found in database : ";
+    private static final String ISBN_MISMATCH = "Book ISBN in the request body does not match the ISBN in the path! : ";
     private static final String ISBN_ALREADY_EXISTS = "Book with the following ISBN already exists in database! : ";
     private static final String PRICE_NOT_FOUND = "Book with the following price is not found in database! : ";
     private static final String YEAR_PUBLISHED_NOT_FOUND = "Book with the following year published is not found in database! : ";
     private static final String AUTHOR_NOT_FOUND = "Book with the following author is not found in database! : ";
+    private static final String INVALID_PAGE_SIZE = "Page size must be between 1 and the configured maximum! : ";
+    private static final String INVALID_PAGE_NUMBER = "Page number cannot be negative! : ";
+    private static final String INVALID_SORT = "Books can only be sorted by bookTitle, authors, publisher, yearPublished, price or id, optionally followed by ,asc or ,desc! : ";
+    private static final String INVALID_RANGE = "The minimum of a range cannot be greater than its maximum! : ";
+    private static final String CURSOR_NEEDS_ID_SORT = "A cursor can only be used when sorting by id! : ";
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("bookTitle", "authors", "publisher", "yearPublished", "price", "id");
+    private static final String VERSION_MISMATCH = "Book has been changed since the version given in If-Match! : ";
+    private static final String ISBN_DUPLICATED_IN_REQUEST = "Book with the following ISBN appears more than once in the request! : ";
 
     // add a book to the database
     @Override
+    @Transactional
     public BookDTO addBook(Book book) {
         // set the ISBN of the book to the formatted ISBN
         book.setIsbn(formatISBN(book.getIsbn()));
+        book.setId(null); // ids are always assigned by the database sequence, a given one would merge over its book
+        book.setVersion(0);
 
         // if book ISBN already exists in the database, throw a BookISBNAlreadyExistsException
         if (bookRepository.findByIsbn(book.getIsbn()).isPresent()) {
             throw new BookISBNAlreadyExistsException(ISBN_ALREADY_EXISTS + book.getIsbn());
         }// end of if block
         Book savedBook = bookRepository.save(book); // save the book in the database
-        return mapToBookDTO(savedBook, new BookDTO()); // map and return the saved book as BookDTO
+        bookRepository.linkAuthors(Map.of(savedBook.getIsbn(), savedBook.getAuthors()), false, booksProperties.getBulk().getBatchSize());
+        BookDTO bookDTO = mapToBookDTO(savedBook, new BookDTO()); // map the saved book as BookDTO
+        indexBooks(List.of(bookDTO));
+        bookChangeFeed.added(List.of(bookDTO));
+        bookStatistics.added(List.of(figures(bookDTO)));
+        catalogVersion.changed(); // last, a request seeing the new tag sees the new statistics too
+        return bookDTO;
     }// end of addBook method
 
     // add a list of books to the database
     @Override
-    public List<BookDTO> addAllBooks(List<Book> books) {
-        return books.stream() // convert the list of books to a stream
-                .map(this::addBook) // use the existing addBook method for each book
-                .collect(Collectors.toList()); // collect the results as a list of BookDTO
+    @Transactional
+    public BulkInsertResultDTO addAllBooks(List<Book> books) {
+        int batchSize = booksProperties.getBulk().getBatchSize();
+        List<BookDTO> added = new ArrayList<>(books.size());
+        List<BookConflictDTO> conflicts = new ArrayList<>();
+
+        // normalize and validate every book, rejecting the ones that repeat an ISBN of the payload
+        List<Book> candidates = new ArrayList<>(books.size());
+        List<Integer> candidateIndexes = new ArrayList<>(books.size());
+        Set<String> requestIsbns = new HashSet<>();
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            book.setId(null); // ids are always assigned by the database sequence
+            book.setVersion(0);
+            try {
+                book.setIsbn(formatISBN(book.getIsbn()));
+            } catch (BookISBNInvalidException e) {
+                conflicts.add(new BookConflictDTO(i, book.getIsbn(), e.getMessage()));
+                continue;
+            }// end of try-catch block
+            Set<ConstraintViolation<Book>> violations = validator.validate(book);
+            if (!violations.isEmpty()) {
+                conflicts.add(new BookConflictDTO(i, book.getIsbn(), violations.iterator().next().getMessage()));
+            } else if (!requestIsbns.add(book.getIsbn())) {
+                conflicts.add(new BookConflictDTO(i, book.getIsbn(), ISBN_DUPLICATED_IN_REQUEST + book.getIsbn()));
+            } else {
+                candidates.add(book);
+                candidateIndexes.add(i);
+            }// end of if-else block
+        }// end of for loop
+
+        // look up the ISBNs already stored with one set-based query per batch and insert the rest
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            List<Book> batch = candidates.subList(from, Math.min(from + batchSize, candidates.size()));
+            Set<String> existingIsbns = new HashSet<>(
+                    bookRepository.findExistingIsbns(batch.stream().map(Book::getIsbn).toList()));
+            List<Book> toSave = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                Book book = batch.get(i);
+                if (existingIsbns.contains(book.getIsbn())) {
+                    conflicts.add(new BookConflictDTO(candidateIndexes.get(from + i), book.getIsbn(), ISBN_ALREADY_EXISTS + book.getIsbn()));
+                } else {
+                    toSave.add(book);
+                    added.add(mapToBookDTO(book, new BookDTO()));
+                }// end of if-else block
+            }// end of for loop
+            bookRepository.saveAllInBatches(toSave, batchSize);
+            bookRepository.linkAuthors(authorsByIsbn(toSave), false, batchSize);
+        }// end of for loop
+
+        indexBooks(added);
+        if (!added.isEmpty()) {
+            bookChangeFeed.added(added);
+            bookStatistics.added(added.stream().map(BookServiceImpl::figures).toList());
+            catalogVersion.changed();
+        }// end of if block
+        conflicts.sort(Comparator.comparingInt(BookConflictDTO::getIndex)); // report conflicts in payload order
+        return new BulkInsertResultDTO(added, conflicts);
     }// end of addAllBooks method
 
-    // retrieve all books from the database
+    // retrieve one page of books from the database
     @Override
-    public List<BookDTO> getAllBooks() {
-        return mapToBookDTOList(bookRepository.findAll()); // map all books to BookDTO and return
+    @Transactional(readOnly = true)
+    public BookPageDTO getAllBooks(PageQuery pageQuery) {
+        return findBooks(
+                "getAllBooks",
+                pageQuery,
+                bookRepository::findAllBy,
+                bookRepository::findByIdGreaterThanOrderByIdAsc,
+                null // an empty catalog is not an error
+        );// end of findBooks method
     }// end of getAllBooks method
 
     // retrieve a book by its ISBN
     @Override
     public BookDTO getBookByISBN(String isbn) {
-        return bookRepository.findByIsbn(formatISBN(isbn))
-                .map(book -> mapToBookDTO(book, new BookDTO()))
+        // served from the ISBN cache, the database is only read on a miss
+        BookDTO bookDTO = bookISBNCache.get(formatISBN(isbn), formattedIsbn -> readByIsbn(formattedIsbn, () -> bookRepository.findRowByIsbn(formattedIsbn))
+                        .map(row -> mapToBookDTO(row, new BookDTO())))
                 .orElseThrow(() -> new BookISBNNotFoundException(ISBN_NOT_FOUND + isbn));
+        bookMetrics.rowsReturned("getBookByISBN", 1);
+        return bookDTO;
     }// end of getBookByISBN method
 
+    // retrieve only the id and version of a book by its ISBN, to answer a conditional GET before the book is read
+    @Override
+    public Optional<BookVersion> getBookVersionByISBN(String isbn) {
+        String formattedIsbn = formatISBN(isbn);
+        // from the ISBN cache, or else from the same database as a cache miss of getBookByISBN reads
+        return bookISBNCache.version(formattedIsbn)
+                .or(() -> readByIsbn(formattedIsbn, () -> bookRepository.findVersionByIsbn(formattedIsbn)));
+    }// end of getBookVersionByISBN method
+
+    // helper method to read a book by its ISBN from a replica, or from the primary when the book was just written:
+    // a lagging replica would return it as it was before the write, and the ISBN cache would keep it so
+    private <T> T readByIsbn(String formattedIsbn, Supplier<T> read) {
+        return bookISBNCache.recentlyInvalidated(formattedIsbn) ? onPrimary(read) : read.get();
+    }// end of readByIsbn method
+
     /*
-     * A generic method to find books by a specific field (author, publisher, yearPublished, price)
-     * and throw a custom exception if no books are found.
+     * A generic method to read one page of books matching a specific field (author, publisher, yearPublished, price).
+     * Pages are read by offset, or by keyset on the book id when the client sends a cursor, so that deep pages
+     * cost the same as the first one. A custom exception is thrown if the first page is empty.
+     * A list read in another order than by id has no keyset query, and its pages no cursor.
      */
-    private <T extends RuntimeException> List<BookDTO> findBooks(Supplier<List<Book>> query, Supplier<T> exceptionSupplier) {
+    private <T extends RuntimeException> BookPageDTO findBooks(String operation,
+                                                               PageQuery pageQuery,
+                                                               Function<Pageable, Slice<BookRow>> offsetQuery,
+                                                               BiFunction<Long, Limit, List<BookRow>> keysetQuery,
+                                                               Supplier<T> exceptionSupplier) {
+        int size = resolvePageSize(pageQuery.size());
+        Integer page = null;
+        List<BookRow> books;
+        boolean hasNext;
 
-        // retrieve all books by the given field
-        List<Book> books = query.get();
+        if (pageQuery.isKeyset()) {
+            // read one extra row to find out if there is a following page
+            books = keysetQuery.apply(decode(pageQuery.cursor()), Limit.of(size + 1));
+            hasNext = books.size() > size;
+            if (hasNext) {
+                books = books.subList(0, size);
+            }// end of if block
+        } else {
+            page = resolvePageNumber(pageQuery.page());
+            Slice<BookRow> slice = offsetQuery.apply(PageRequest.of(page, size, Sort.by("id")));
+            books = slice.getContent();
+            hasNext = slice.hasNext();
 
-        // if no books are found, throw a custom exception
-        if (books.isEmpty()) {
-            throw exceptionSupplier.get();  // Throws the appropriate custom exception
-        }// end of if block
+            // if no books are found, throw a custom exception
+            if (books.isEmpty() && page == 0 && exceptionSupplier != null) {
+                throw exceptionSupplier.get();  // Throws the appropriate custom exception
+            }// end of if block
+        }// end of if-else block
 
-        // map all books to BookDTO and return
-        return mapToBookDTOList(books);
+        bookMetrics.rowsReturned(operation, books.size());
+        // a cursor only continues a list read in id order, other orders are paged by number
+        String nextCursor = hasNext && keysetQuery != null ? encode(books.getLast().id()) : null;
+        // map all books to BookDTO and return them with the paging information
+        return new BookPageDTO(mapToBookDTOList(books), page, size, hasNext, nextCursor);
     }// end of findBooks method
 
     // retrieve all books by the given author
     @Override
-    public List<BookDTO> getAllBooksByAuthors(String author) {
+    @Transactional(readOnly = true)
+    public BookPageDTO getAllBooksByAuthors(String author, PageQuery pageQuery) {
+        // every book the author contributed to, or the books of all of them when several authors are given
+        Set<String> authorKeys = AuthorNames.split(author).keySet();
+        if (authorKeys.isEmpty()) {
+            throw new BookISBNNotFoundException(AUTHOR_NOT_FOUND + author);
+        }// end of if block
         // retrieve all books by the given author or throw a BookISBNNotFoundException
         return findBooks(
-                () -> bookRepository.findByAuthors(author),
+                "getAllBooksByAuthors",
+                pageQuery,
+                pageable -> bookRepository.findByAuthorKeys(authorKeys, authorKeys.size(), pageable),
+                (id, limit) -> bookRepository.findByAuthorKeysAndIdGreaterThan(authorKeys, authorKeys.size(), id, limit),
                 () -> new BookISBNNotFoundException(AUTHOR_NOT_FOUND + author)
         );// end of findBooks method
     }// end of getAllBooksByAuthors method
 
     // retrieve all books by their title
     @Override
+    @Transactional(readOnly = true)
     public BookDTO getBookByBookTitle(String title) {
-        return bookRepository.findByBookTitle(title)
-                .map(book -> mapToBookDTO(book, new BookDTO()))
+        BookDTO bookDTO = bookRepository.findRowByBookTitle(title)
+                .map(row -> mapToBookDTO(row, new BookDTO()))
                 .orElseThrow(() -> new BookISBNNotFoundException(TITLE_NOT_FOUND + "\"" + title + "\""));
+        bookMetrics.rowsReturned("getBookByBookTitle", 1);
+        return bookDTO;
     }// end of getBookByBookTitle method
 
     // retrieve all books by the given publisher
     @Override
-    public List<BookDTO> getBookByPublisher(String publisher) {
+    @Transactional(readOnly = true)
+    public BookPageDTO getBookByPublisher(String publisher, PageQuery pageQuery) {
         // retrieve all books by the given publisher or throw a BookISBNNotFoundException
         return findBooks(
-                () -> bookRepository.findByPublisher(publisher),
+                "getBookByPublisher",
+                pageQuery,
+                pageable -> bookRepository.findByPublisher(publisher, pageable),
+                (id, limit) -> bookRepository.findByPublisherAndIdGreaterThanOrderByIdAsc(publisher, id, limit),
                 () -> new BookISBNNotFoundException("Book with the following publisher is not found in database! : " + publisher)
         );// end of findBooks method
     }// end of getBookByPublisher method
 
     // retrieve all books published in a specific year
     @Override
-    public List<BookDTO> getBookByYearPublished(int yearPublished) {
+    @Transactional(readOnly = true)
+    public BookPageDTO getBookByYearPublished(int yearPublished, PageQuery pageQuery) {
         // retrieve all books published in a specific year or throw a BookISBNNotFoundException
         return findBooks(
-                () -> bookRepository.findByYearPublished(yearPublished),
+                "getBookByYearPublished",
+                pageQuery,
+                pageable -> bookRepository.findByYearPublished(yearPublished, pageable),
+                (id, limit) -> bookRepository.findByYearPublishedAndIdGreaterThanOrderByIdAsc(yearPublished, id, limit),
                 () -> new BookISBNNotFoundException(YEAR_PUBLISHED_NOT_FOUND + yearPublished)
         );// end of findBooks method
     }// end of getBookByYearPublished method
 
     // retrieve all books by their price
     @Override
-    public List<BookDTO> getBookByPrice(double price) {
+    @Transactional(readOnly = true)
+    public BookPageDTO getBookByPrice(double price, PageQuery pageQuery) {
         // retrieve all books by their price or throw a BookISBNNotFoundException
         return findBooks(
-                () -> bookRepository.findByPrice(price),
+                "getBookByPrice",
+                pageQuery,
+                pageable -> bookRepository.findByPrice(price, pageable),
+                (id, limit) -> bookRepository.findByPriceAndIdGreaterThanOrderByIdAsc(price, id, limit),
                 () -> new BookISBNNotFoundException(PRICE_NOT_FOUND + price)
         );// end of findBooks method
     }// end of getBookByPrice method
 
+    // retrieve one page of the books matching every given criterion, in the requested order
+    @Override
+    @Transactional(readOnly = true)
+    public BookPageDTO filterBooks(BookFilter filter, PageQuery pageQuery) {
+        validateRange(filter.minYearPublished(), filter.maxYearPublished());
+        validateRange(filter.minPrice(), filter.maxPrice());
+        Sort sort = resolveSort(filter.sort());
+        boolean idOrder = sort.equals(Sort.by("id"));
+        if (pageQuery.isKeyset() && !idOrder) {
+            throw new InvalidFilterException(CURSOR_NEEDS_ID_SORT + filter.sort());
+        }// end of if block
+
+        Specification<Book> specification = Specification.where(hasAuthors(filter.authors()))
+                .and(hasPublisher(filter.publisher()))
+                .and(yearPublishedBetween(filter.minYearPublished(), filter.maxYearPublished()))
+                .and(priceBetween(filter.minPrice(), filter.maxPrice()));
+        return findBooks(
+                "filterBooks",
+                pageQuery,
+                pageable -> bookRepository.findSlice(specification,
+                        PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort)),
+                idOrder ? (id, limit) -> bookRepository.findFirst(specification.and(idGreaterThan(id)), sort, limit) : null,
+                null // no match is an empty page, not an error
+        );// end of findBooks method
+    }// end of filterBooks method
+
+    // pass every book of the catalog to the consumer, one at a time, without loading the whole table
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAllBooks(Consumer<BookDTO> consumer) {
+        // projections are not managed, so the persistence context stays empty while streaming
+        long[] count = {0};
+        try (Stream<BookRow> rows = bookRepository.streamAllBy()) {
+            rows.forEach(row -> {
+                consumer.accept(mapToBookDTO(row, new BookDTO()));
+                count[0]++;
+            });
+        }// end of try-with-resources block
+        bookMetrics.rowsReturned("exportAllBooks", count[0]);
+    }// end of exportAllBooks method
+
+    // search the title, authors and publisher of the books, best matches first
+    @Override
+    @Transactional(readOnly = true)
+    public SearchResultDTO searchBooks(String query, PageQuery pageQuery) {
+        int size = resolvePageSize(pageQuery.size());
+        int page = resolvePageNumber(pageQuery.page());
+        BookSearchIndex.SearchHits hits = bookSearchIndex.search(query, (long) page * size, size);
+
+        // read the books of the page with one query and put them back in ranking order
+        Map<String, BookRow> books = bookRepository.findByIsbnIn(hits.isbns()).stream()
+                .collect(Collectors.toMap(BookRow::isbn, identity()));
+        List<BookDTO> content = hits.isbns().stream()
+                .map(books::get)
+                .filter(Objects::nonNull) // deleted since the index was queried
+                .map(book -> mapToBookDTO(book, new BookDTO()))
+                .toList();
+        bookMetrics.rowsReturned("searchBooks", content.size());
+        return new SearchResultDTO(query, hits.totalHits(), page, size, content);
+    }// end of searchBooks method
+
     // delete a book by its ISBN
     @Override
+    @Transactional
     public void deleteBookByISBN(String isbn) {
-        if (validateBookByISBN(formatISBN(isbn))) {
-            bookRepository.deleteByIsbn(formatISBN(isbn)); // delete the book by its ISBN
+        String formattedIsbn = formatISBN(isbn);
+        List<BookFigures> deleted = bookRepository.lockFiguresByIsbnIn(List.of(formattedIsbn));
+        if (deleted.isEmpty()) {
+            throw new BookISBNNotFoundException(ISBN_NOT_FOUND + formattedIsbn);
         }// end of if block
+        bookRepository.deleteAuthorLinksByIsbnIn(List.of(formattedIsbn));
+        bookRepository.deleteByIsbnIn(List.of(formattedIsbn)); // delete the book by its ISBN
+        bookRepository.evictCachedBooks();
+        bookStatistics.removed(deleted);
+        bookISBNCache.invalidate(formattedIsbn);
+        AfterCommit.inCommitOrder(() -> bookSearchIndex.remove(formattedIsbn));
+        bookChangeFeed.deleted(List.of(formattedIsbn));
+        catalogVersion.changed();
     }// end of deleteBookByISBN method
 
-    // delete all books from the database
+    // delete the books with the given ISBNs, with one statement per batch
+    @Override
+    @Transactional
+    public BulkDeleteResultDTO deleteBooks(List<String> isbns) {
+        int batchSize = booksProperties.getBulk().getBatchSize();
+        List<String> deleted = new ArrayList<>(isbns.size());
+        List<BookFigures> deletedBooks = new ArrayList<>(isbns.size());
+        List<BookConflictDTO> conflicts = new ArrayList<>();
+
+        // format every ISBN, rejecting the invalid ones and the ones repeated in the payload
+        List<String> candidates = new ArrayList<>(isbns.size());
+        List<Integer> candidateIndexes = new ArrayList<>(isbns.size());
+        Set<String> requestIsbns = new HashSet<>();
+        for (int i = 0; i < isbns.size(); i++) {
+            String formattedIsbn;
+            try {
+                formattedIsbn = formatISBN(isbns.get(i));
+            } catch (BookISBNInvalidException e) {
+                conflicts.add(new BookConflictDTO(i, isbns.get(i), e.getMessage()));
+                continue;
+            }// end of try-catch block
+            if (!requestIsbns.add(formattedIsbn)) {
+                conflicts.add(new BookConflictDTO(i, formattedIsbn, ISBN_DUPLICATED_IN_REQUEST + formattedIsbn));
+            } else {
+                candidates.add(formattedIsbn);
+                candidateIndexes.add(i);
+            }// end of if-else block
+        }// end of for loop
+
+        // the locked read finds the ISBNs the delete removes, the others of the batch were not found
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            List<String> batch = candidates.subList(from, Math.min(from + batchSize, candidates.size()));
+            List<BookFigures> deletedBatch = bookRepository.lockFiguresByIsbnIn(batch);
+            if (!deletedBatch.isEmpty()) {
+                bookRepository.deleteAuthorLinksByIsbnIn(batch);
+                bookRepository.deleteByIsbnIn(batch);
+                bookRepository.evictCachedBooks();
+            }// end of if block
+            deletedBooks.addAll(deletedBatch);
+            Set<String> deletedIsbns = deletedBatch.stream().map(BookFigures::isbn).collect(Collectors.toSet());
+            for (int i = 0; i < batch.size(); i++) {
+                if (deletedIsbns.contains(batch.get(i))) {
+                    deleted.add(batch.get(i));
+                } else {
+                    conflicts.add(new BookConflictDTO(candidateIndexes.get(from + i), batch.get(i), ISBN_NOT_FOUND + batch.get(i)));
+                }// end of if-else block
+            }// end of for loop
+        }// end of for loop
+
+        deleted.forEach(bookISBNCache::invalidate);
+        AfterCommit.inCommitOrder(() -> deleted.forEach(bookSearchIndex::remove));
+        if (!deleted.isEmpty()) {
+            bookChangeFeed.deleted(deleted);
+            bookStatistics.removed(deletedBooks);
+            catalogVersion.changed();
+        }// end of if block
+        conflicts.sort(Comparator.comparingInt(BookConflictDTO::getIndex)); // report conflicts in payload order
+        return new BulkDeleteResultDTO(deleted, conflicts);
+    }// end of deleteBooks method
+
+    // delete all books from the database, the author links first as their foreign key requires
+    // the in-memory effects run once the transaction has committed, after those of the writes committed before it
     @Override
+    @Transactional
     public void deleteAllBooks() {
-        bookRepository.deleteAll(); // delete all books
+        bookRepository.deleteAllAuthorLinks();
+        bookRepository.deleteAllRows(); // no entity is loaded
+        bookRepository.evictCachedBooks();
+        bookISBNCache.invalidateAll();
+        AfterCommit.inCommitOrder(bookSearchIndex::clear);
+        bookChangeFeed.cleared();
+        bookStatistics.cleared();
+        catalogVersion.changed();
     }// end of deleteAllBooks method
 
-    // delete a book by its title
+    // delete the books with the given title
     @Override
+    @Transactional
     public void deleteBookByBookTitle(String bookTitle) {
-        bookRepository.findByBookTitle(bookTitle)
-                .map(_ -> {
-                    bookRepository.deleteByBookTitle(bookTitle);
-                    return true;
-                })
-                .orElseThrow(() -> new BookISBNNotFoundException(TITLE_NOT_FOUND + bookTitle));
+        List<BookFigures> deleted = bookRepository.lockFiguresByBookTitle(bookTitle);
+        if (deleted.isEmpty()) {
+            throw new BookISBNNotFoundException(TITLE_NOT_FOUND + bookTitle);
+        }// end of if block
+        bookRepository.deleteAuthorLinksByBookTitle(bookTitle);
+        bookRepository.deleteByBookTitle(bookTitle);
+        bookRepository.evictCachedBooks();
+        bookStatistics.removed(deleted);
+        List<String> isbns = deleted.stream().map(BookFigures::isbn).toList();
+        isbns.forEach(bookISBNCache::invalidate);
+        AfterCommit.inCommitOrder(() -> isbns.forEach(bookSearchIndex::remove));
+        bookChangeFeed.deleted(isbns);
+        catalogVersion.changed();
     }// end of deleteBookByBookTitle method
 
-    // update a book by its ISBN
+    /*
+     * Update a book by its ISBN, once its row is read and locked. Without If-Match the update is unconditional,
+     * otherwise it is applied only while the book is at the id and version of one of the given tags.
+     * An If-Match on a missing book fails as well, as RFC 9110 requires.
+     */
     @Override
-    public void updateBook(String isbn, Book book) {
-        if (validateBookByISBN(formatISBN(isbn))) { // validate if the book exists by its ISBN
-            bookRepository.updateBook(
-                    book.getBookTitle(),
-                    book.getAuthors(),
-                    book.getPublisher(),
-                    book.getYearPublished(),
-                    book.getPrice(),
-                    book.getIsbn()); // update the book by its ISBN
+    @Transactional
+    public void updateBook(String isbn, Book book, String ifMatch) {
+        String formattedIsbn = formatISBN(isbn);
+        // the ISBN is the key of the book, the body may repeat it but cannot change it
+        if (book.getIsbn() != null && !formattedIsbn.equals(formatISBN(book.getIsbn()))) {
+            throw new BookISBNMismatchException(ISBN_MISMATCH + book.getIsbn());
         }// end of if block
+        List<BookFigures> replaced = List.of(); // the book as it was before the update
+        if (ifMatch == null || CatalogVersion.matchesAny(ifMatch)) {
+            replaced = bookRepository.lockFiguresByIsbn(formattedIsbn, null, null);
+        } else {
+            for (CatalogVersion.BookTag tag : catalogVersion.bookTags(ifMatch)) {
+                replaced = replaced.isEmpty() ? bookRepository.lockFiguresByIsbn(formattedIsbn, tag.id(), tag.version()) : replaced;
+            }// end of for loop
+        }// end of if-else block
+        if (replaced.isEmpty() && ifMatch == null) {
+            throw new BookISBNNotFoundException(ISBN_NOT_FOUND + formattedIsbn);
+        } else if (replaced.isEmpty()) {
+            throw new BookPreconditionFailedException(VERSION_MISMATCH + formattedIsbn);
+        }// end of if-else block
+        bookRepository.updateBook(
+                book.getBookTitle(),
+                book.getAuthors(),
+                book.getPublisher(),
+                book.getYearPublished(),
+                book.getPrice(),
+                formattedIsbn); // the row is locked, it is still the one that was read
+        bookRepository.evictCachedBooks();
+        bookStatistics.removed(replaced);
+        bookStatistics.added(List.of(new BookFigures(formattedIsbn, book.getPublisher(), book.getYearPublished(), book.getPrice())));
+        bookRepository.linkAuthors(Map.of(formattedIsbn, book.getAuthors()), true, booksProperties.getBulk().getBatchSize());
+        bookISBNCache.invalidate(formattedIsbn);
+        AfterCommit.inCommitOrder(() -> bookSearchIndex.put(formattedIsbn, book.getBookTitle(), book.getAuthors(), book.getPublisher()));
+        // the new fields as sent, the id and version are not read back
+        BookDTO updatedBook = mapToBookDTO(book, new BookDTO());
+        updatedBook.setIsbn(formattedIsbn);
+        bookChangeFeed.updated(List.of(updatedBook));
+        catalogVersion.changed();
     }// end of updateBook method
 
+    // apply the given partial updates, in JDBC batches
+    @Override
+    @Transactional
+    public BulkPatchResultDTO patchBooks(List<BookPatch> patches) {
+        int batchSize = booksProperties.getBulk().getBatchSize();
+        List<String> updated = new ArrayList<>(patches.size());
+        List<BookConflictDTO> conflicts = new ArrayList<>();
+
+        // format and validate every patch, rejecting the ones that repeat an ISBN of the payload
+        List<BookPatch> candidates = new ArrayList<>(patches.size());
+        List<Integer> candidateIndexes = new ArrayList<>(patches.size());
+        Set<String> requestIsbns = new HashSet<>();
+        for (int i = 0; i < patches.size(); i++) {
+            BookPatch patch;
+            try {
+                patch = patches.get(i).withIsbn(formatISBN(patches.get(i).isbn()));
+            } catch (BookISBNInvalidException e) {
+                conflicts.add(new BookConflictDTO(i, patches.get(i).isbn(), e.getMessage()));
+                continue;
+            }// end of try-catch block
+            Set<ConstraintViolation<BookPatch>> violations = validator.validate(patch);
+            if (!violations.isEmpty()) {
+                conflicts.add(new BookConflictDTO(i, patch.isbn(), violations.iterator().next().getMessage()));
+            } else if (!requestIsbns.add(patch.isbn())) {
+                conflicts.add(new BookConflictDTO(i, patch.isbn(), ISBN_DUPLICATED_IN_REQUEST + patch.isbn()));
+            } else {
+                candidates.add(patch);
+                candidateIndexes.add(i);
+            }// end of if-else block
+        }// end of for loop
+
+        // the books are read and locked before they are patched, the statistics take off what the patches replace
+        // patched fields may be mixed with stored ones, the new rows are the locked ones with the patches applied
+        Map<String, BookRow> before = new HashMap<>(candidates.size() * 2);
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            bookRepository.lockByIsbnIn(candidates.subList(from, Math.min(from + batchSize, candidates.size())).stream().map(BookPatch::isbn).toList())
+                    .forEach(row -> before.put(row.isbn(), row));
+        }// end of for loop
+
+        // the update count of each statement tells whether its book was found
+        int[] counts = bookRepository.patchAllInBatches(candidates, batchSize);
+        for (int i = 0; i < candidates.size(); i++) {
+            String patchedIsbn = candidates.get(i).isbn();
+            if (counts[i] > 0) {
+                updated.add(patchedIsbn);
+            } else {
+                conflicts.add(new BookConflictDTO(candidateIndexes.get(i), patchedIsbn, ISBN_NOT_FOUND + patchedIsbn));
+            }// end of if-else block
+        }// end of for loop
+
+        // the books given new authors are linked to them again
+        Map<String, String> newAuthors = new HashMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (counts[i] > 0 && candidates.get(i).authors() != null) {
+                newAuthors.put(candidates.get(i).isbn(), candidates.get(i).authors());
+            }// end of if block
+        }// end of for loop
+        if (!newAuthors.isEmpty()) {
+            bookRepository.linkAuthors(newAuthors, true, batchSize);
+        }// end of if block
+
+        if (!updated.isEmpty()) {
+            updated.forEach(bookISBNCache::invalidate);
+            List<BookRow> replaced = new ArrayList<>(updated.size());
+            List<BookRow> rows = new ArrayList<>(updated.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                BookRow row = before.get(candidates.get(i).isbn());
+                if (counts[i] > 0 && row != null) {
+                    replaced.add(row);
+                    rows.add(patched(row, candidates.get(i)));
+                }// end of if block
+            }// end of for loop
+            bookStatistics.removed(replaced.stream().map(BookServiceImpl::figures).toList());
+            bookStatistics.added(rows.stream().map(BookServiceImpl::figures).toList());
+            AfterCommit.inCommitOrder(() -> rows.forEach(row -> bookSearchIndex.put(row.isbn(), row.bookTitle(), row.authors(), row.publisher())));
+            bookChangeFeed.updated(mapToBookDTOList(rows));
+            catalogVersion.changed();
+        }// end of if block
+        conflicts.sort(Comparator.comparingInt(BookConflictDTO::getIndex)); // report conflicts in payload order
+        return new BulkPatchResultDTO(updated, conflicts);
+    }// end of patchBooks method
+
+    // statistics of the ISBN cache
+    @Override
+    public CacheStatsDTO getCacheStats() {
+        return bookISBNCache.stats();
+    }// end of getCacheStats method
+
+    // statistics of the catalog, counted as the books are written
+    @Override
+    public BookStatisticsDTO getStatistics() {
+        return bookStatistics.snapshot();
+    }// end of getStatistics method
+
+    // helper method to apply a patch to a book as it was read, the same way the patch statement does
+    private static BookRow patched(BookRow row, BookPatch patch) {
+        return new BookRow(
+                row.id(),
+                patch.bookTitle() != null ? patch.bookTitle() : row.bookTitle(),
+                patch.authors() != null ? patch.authors() : row.authors(),
+                patch.publisher() != null ? patch.publisher() : row.publisher(),
+                row.isbn(),
+                patch.yearPublished() != null ? patch.yearPublished() : row.yearPublished(),
+                patch.price() != null ? patch.price() : row.price(),
+                row.version() + 1);
+    }// end of patched method
+
+    // helper methods to take the fields the catalog statistics are kept on
+    private static BookFigures figures(BookDTO bookDTO) {
+        return new BookFigures(bookDTO.getIsbn(), bookDTO.getPublisher(), bookDTO.getYearPublished(), bookDTO.getPrice());
+    }// end of figures method
+
+    private static BookFigures figures(BookRow row) {
+        return new BookFigures(row.isbn(), row.publisher(), row.yearPublished(), row.price());
+    }// end of figures method
+
+    // helper method to key the authors of the given books by their ISBN, for the author links
+    private static Map<String, String> authorsByIsbn(List<Book> books) {
+        Map<String, String> authorsByIsbn = new HashMap<>(books.size() * 2);
+        books.forEach(book -> authorsByIsbn.put(book.getIsbn(), book.getAuthors()));
+        return authorsByIsbn;
+    }// end of authorsByIsbn method
+
+    // helper method to add new books to the search index, once they are committed
+    private void indexBooks(List<BookDTO> bookDTOS) {
+        AfterCommit.inCommitOrder(() -> bookDTOS.forEach(bookDTO -> bookSearchIndex.put(
+                bookDTO.getIsbn(), bookDTO.getBookTitle(), bookDTO.getAuthors(), bookDTO.getPublisher())));
+    }// end of indexBooks method
+
     // helper method to map a list of Book entities to a list of BookDTO
-    private List<BookDTO> mapToBookDTOList(List<Book> books) {
+    private List<BookDTO> mapToBookDTOList(List<BookRow> books) {
         return books.stream()
                 .map(book -> mapToBookDTO(book, new BookDTO()))
                 .collect(Collectors.toList());
     }// end of mapToBookDTOList method
 
-    // helper method to validate if a book exists by its ISBN
-    private boolean validateBookByISBN(String isbn) {
-        bookRepository.findByIsbn(isbn)
-                .orElseThrow(() -> new BookISBNNotFoundException(ISBN_NOT_FOUND + isbn));
-        return true;
-    }// end of validateBookByISBN method
+    // helper method to apply the default page size and reject sizes outside the configured bounds
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return booksProperties.getPaging().getDefaultSize();
+        }// end of if block
+        if (size < 1 || size > booksProperties.getPaging().getMaxSize()) {
+            throw new InvalidPageRequestException(INVALID_PAGE_SIZE + size);
+        }// end of if block
+        return size;
+    }// end of resolvePageSize method
+
+    // helper method to default the page number to the first page and reject negative ones
+    private int resolvePageNumber(Integer page) {
+        if (page == null) {
+            return 0;
+        }// end of if block
+        if (page < 0) {
+            throw new InvalidPageRequestException(INVALID_PAGE_NUMBER + page);
+        }// end of if block
+        return page;
+    }// end of resolvePageNumber method
+
+    // helper method to sort by "property" or "property,direction", breaking ties by id so that pages do not overlap
+    private Sort resolveSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.by("id");
+        }// end of if block
+        String[] parts = sort.split(",", -1);
+        String property = parts[0].trim();
+        if (parts.length > 2 || !SORTABLE_PROPERTIES.contains(property)) {
+            throw new InvalidFilterException(INVALID_SORT + sort);
+        }// end of if block
+        Sort.Direction direction = parts.length == 2
+                ? Sort.Direction.fromOptionalString(parts[1].trim())
+                        .orElseThrow(() -> new InvalidFilterException(INVALID_SORT + sort))
+                : Sort.Direction.ASC;
+        if (property.equals("id")) {
+            return Sort.by(direction, "id");
+        }// end of if block
+        return Sort.by(direction, property).and(Sort.by("id"));
+    }// end of resolveSort method
+
+    // helper method to reject a range whose minimum is greater than its maximum
+    private <T extends Comparable<T>> void validateRange(T min, T max) {
+        if (min != null && max != null && min.compareTo(max) > 0) {
+            throw new InvalidFilterException(INVALID_RANGE + min + " > " + max);
+        }// end of if block
+    }// end of validateRange method
 }// end of BookServiceImpl class
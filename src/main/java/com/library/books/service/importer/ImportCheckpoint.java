@@ -0,0 +1,115 @@
+package com.library.books.service.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/*
+ * Progress of an import as of its last committed chunk, kept next to the imported file as <file>.checkpoint.
+ * An interrupted import resumes at the byte offset of the checkpoint. The rows of a chunk committed after
+ * the last checkpoint are read again, and rejected as already existing, so nothing is imported twice.
+ * The size of the file is kept as well, with a CRC32 of its first bytes and of the bytes just before the offset:
+ * a file changed since, even to the same size, is imported from the start. Only those bytes are read again to
+ * check it, not the whole part already imported.
+ */
+public record ImportCheckpoint(long offset,
+                               long rows,
+                               long added,
+                               long rejected,
+                               String header, // header record of a CSV file, null for JSONL
+                               long fileSize,
+                               long fileHash) {
+
+    private static final int HASHED_BYTES = 64 * 1024; // hashed at the start of the file, and again before the offset
+
+    public static Path pathOf(Path file) {
+        return file.resolveSibling(file.getFileName() + ".checkpoint");
+    }// end of pathOf method
+
+    // the checkpoint of the given file, if there is one that still matches the file
+    public static Optional<ImportCheckpoint> load(Path file, long fileSize) throws IOException {
+        Path path = pathOf(file);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }// end of if block
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }// end of try-with-resources block
+        ImportCheckpoint checkpoint;
+        try {
+            checkpoint = new ImportCheckpoint(
+                    Long.parseLong(properties.getProperty("offset")),
+                    Long.parseLong(properties.getProperty("rows")),
+                    Long.parseLong(properties.getProperty("added")),
+                    Long.parseLong(properties.getProperty("rejected")),
+                    properties.getProperty("header"),
+                    Long.parseLong(properties.getProperty("fileSize")),
+                    Long.parseLong(properties.getProperty("fileHash")));
+        } catch (NumberFormatException e) { // also a missing property
+            return Optional.empty(); // not a checkpoint this version wrote, the file is imported from the start
+        }// end of try-catch block
+        if (checkpoint.fileSize != fileSize || checkpoint.offset > fileSize
+                || checkpoint.fileHash != hash(file, checkpoint.offset)) {
+            return Optional.empty();
+        }// end of if block
+        return Optional.of(checkpoint);
+    }// end of load method
+
+    // CRC32 of the first bytes of the file and of the bytes before the offset, the part an import resumed there relies on
+    public static long hash(Path file, long offset) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            update(crc, channel, 0, Math.min(offset, HASHED_BYTES));
+            long from = Math.max(HASHED_BYTES, offset - HASHED_BYTES); // not the first bytes again
+            update(crc, channel, from, offset - from);
+        }// end of try-with-resources block
+        return crc.getValue();
+    }// end of hash method
+
+    private static void update(CRC32 crc, FileChannel channel, long position, long length) throws IOException {
+        if (length <= 0) {
+            return;
+        }// end of if block
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            // read until the buffer is full, or the file ends
+        }// end of while loop
+        crc.update(buffer.flip());
+    }// end of update method
+
+    // write the checkpoint to a temporary file first and move it in place, so that a crash never leaves half of it
+    public void save(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("offset", Long.toString(offset));
+        properties.setProperty("rows", Long.toString(rows));
+        properties.setProperty("added", Long.toString(added));
+        properties.setProperty("rejected", Long.toString(rejected));
+        if (header != null) {
+            properties.setProperty("header", header);
+        }// end of if block
+        properties.setProperty("fileSize", Long.toString(fileSize));
+        properties.setProperty("fileHash", Long.toString(fileHash));
+        Path path = pathOf(file);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }// end of try-with-resources block
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }// end of save method
+
+    public static void delete(Path file) throws IOException {
+        Files.deleteIfExists(pathOf(file));
+    }// end of delete method
+
+}// end of ImportCheckpoint record
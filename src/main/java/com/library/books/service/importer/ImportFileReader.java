@@ -0,0 +1,110 @@
+package com.library.books.service.importer;
+
+import com.library.books.utility.CsvFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+ * Reads the records of an import file through a FileChannel and one fixed buffer, so that a file of any size
+ * is streamed, starting at a byte offset so that a resumed import goes straight to its checkpoint.
+ * A record is a line, a CSV record also goes on over the line breaks inside a quoted field.
+ * Lines are split on '\n' bytes, which never occur inside a multi-byte UTF-8 character.
+ */
+public class ImportFileReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final boolean csv;
+    private byte[] line = new byte[512]; // bytes of the line being read
+    private long position; // byte offset of the next record
+
+    public ImportFileReader(Path path, long offset, boolean csv) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.channel.position(offset);
+        this.position = offset;
+        this.csv = csv;
+        buffer.flip(); // nothing read yet
+    }// end of ImportFileReader constructor
+
+    // the next record, or null at the end of the file
+    public String nextRecord() throws IOException {
+        String record = nextLine();
+        while (csv && record != null && CsvFormat.hasOpenQuote(record)) {
+            String next = nextLine();
+            if (next == null) {
+                break; // unterminated quote, left to the parser to reject
+            }// end of if block
+            record = record + "\n" + next;
+        }// end of while loop
+        return record;
+    }// end of nextRecord method
+
+    // byte offset of the next record, where a checkpoint taken now resumes
+    public long position() {
+        return position;
+    }// end of position method
+
+    public long size() throws IOException {
+        return channel.size();
+    }// end of size method
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }// end of close method
+
+    private String nextLine() throws IOException {
+        long start = position;
+        int length = 0;
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read < 0) {
+                    if (position == start) {
+                        return null; // end of the file
+                    }// end of if block
+                    break; // last line, without a line break
+                }// end of if block
+            }// end of if block
+            // copy up to the line break straight from the backing array
+            byte[] bytes = buffer.array();
+            int from = buffer.position(), to = from;
+            while (to < buffer.limit() && bytes[to] != '\n') {
+                to++;
+            }// end of while loop
+            if (length + (to - from) > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + (to - from)));
+            }// end of if block
+            System.arraycopy(bytes, from, line, length, to - from);
+            length += to - from;
+            position += to - from;
+            if (to < buffer.limit()) {
+                buffer.position(to + 1);
+                position++; // the line break
+                break;
+            }// end of if block
+            buffer.position(to);
+        }// end of while loop
+
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }// end of if block
+        int offset = 0;
+        if (start == 0 && length >= 3 && line[0] == (byte) 0xEF && line[1] == (byte) 0xBB && line[2] == (byte) 0xBF) {
+            offset = 3; // UTF-8 byte order mark
+        }// end of if block
+        return new String(line, offset, length - offset, StandardCharsets.UTF_8);
+    }// end of nextLine method
+
+}// end of ImportFileReader class
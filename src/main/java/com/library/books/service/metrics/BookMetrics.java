@@ -0,0 +1,53 @@
+package com.library.books.service.metrics;
+
+import com.library.books.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Meters of the books service that Spring Boot does not record on its own. The requests, the @Timed service
+ * methods, the repository invocations and the ISBN cache are timed and counted by their own instrumentation.
+ * The counters are kept once created, so that the hot paths do not look them up by name and tags every time.
+ */
+@Component
+public class BookMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> rowsReturned = new ConcurrentHashMap<>(); // by operation
+    private final Map<String, Counter> errors = new ConcurrentHashMap<>(); // by exception and status
+
+    public BookMetrics(MeterRegistry meterRegistry, BookRepository bookRepository) {
+        this.meterRegistry = meterRegistry;
+        // read when scraped, H2 answers an unfiltered count from the table's row count
+        Gauge.builder("books.catalog.size", bookRepository, BookRepository::count)
+                .description("Books in the catalog")
+                .register(meterRegistry);
+    }// end of BookMetrics constructor
+
+    // count the books returned by the given service operation
+    public void rowsReturned(String operation, long rows) {
+        rowsReturned.computeIfAbsent(operation, key -> Counter.builder("books.rows.returned")
+                        .description("Books returned by the service operations")
+                        .tag("operation", key)
+                        .register(meterRegistry))
+                .increment(rows);
+    }// end of rowsReturned method
+
+    // count an exception answered with an error response, not-found ones included
+    public void error(RuntimeException e, HttpStatus status) {
+        String exception = e.getClass().getSimpleName();
+        errors.computeIfAbsent(exception + " " + status.value(), key -> Counter.builder("books.errors")
+                        .description("Requests answered with an error")
+                        .tag("exception", exception)
+                        .tag("status", Integer.toString(status.value()))
+                        .register(meterRegistry))
+                .increment();
+    }// end of error method
+
+}// end of BookMetrics class
@@ -0,0 +1,536 @@
+package com.library.books.service.search;
+
+import com.library.books.config.BooksProperties;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * In-memory inverted index over the title, authors and publisher of every book, keyed by formatted ISBN.
+ * Queries are tokenized like the indexed text and every query term must match, either exactly,
+ * as the prefix of an indexed term, or within a small edit distance (typo tolerance).
+ * Matches are ranked by the kind of match, the field they hit and how rare the matched term is.
+ *
+ * Books are numbered internally and every term keeps a sorted array of book numbers, so a query only
+ * walks the postings of its own terms, intersects them with binary searches and keeps the best
+ * matches in a bounded heap of primitives.
+ * Typos are looked up among the terms of the same first letter and of a close enough length only,
+ * which are kept grouped together, so a misspelled term does not scan the whole vocabulary.
+ */
+@Component
+public class BookSearchIndex {
+
+    // fields a term was found in, kept as a bit mask per book
+    private static final byte TITLE = 1, AUTHORS = 2, PUBLISHER = 4;
+    // relative weight of each kind of match
+    private static final float EXACT = 1.0f, PREFIX = 0.6f, FUZZY = 0.4f;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> postings = new TreeMap<>(); // term -> books containing it
+    private final Map<Integer, TreeSet<String>> termsByShape = new HashMap<>(); // first letter and length -> terms
+    private final Map<String, Integer> docByIsbn = new HashMap<>();
+    private String[] isbnByDoc = new String[1024];
+    private String[][] termsByDoc = new String[1024][]; // distinct terms of each book, to remove it
+    private int[] freeDocs = new int[64]; // numbers of removed books, reused by the next books
+    private int freeDocCount, nextDoc;
+    private final Set<String> touchedWhileLoading = new HashSet<>(); // isbns written while the index loads
+    private boolean loading, clearedWhileLoading;
+    private final BooksProperties.Search settings;
+
+    // one page of ranked ISBNs and the number of books that matched
+    public record SearchHits(long totalHits, List<String> isbns) {
+    }// end of SearchHits record
+
+    public BookSearchIndex(BooksProperties booksProperties) {
+        this.settings = booksProperties.getSearch();
+    }// end of BookSearchIndex constructor
+
+    // add a book to the index, or replace the indexed text of a book with the same ISBN
+    public void put(String isbn, String bookTitle, String authors, String publisher) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                touchedWhileLoading.add(isbn);
+            }// end of if block
+            index(isbn, bookTitle, authors, publisher);
+        } finally {
+            lock.writeLock().unlock();
+        }// end of try-finally block
+    }// end of put method
+
+    // remove the book with the given ISBN from the index
+    public void remove(String isbn) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                touchedWhileLoading.add(isbn);
+            }// end of if block
+            unindex(isbn);
+        } finally {
+            lock.writeLock().unlock();
+        }// end of try-finally block
+    }// end of remove method
+
+    // remove every book from the index
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                clearedWhileLoading = true; // every book still to load was read before the catalog was emptied
+            }// end of if block
+            postings.clear();
+            termsByShape.clear();
+            docByIsbn.clear();
+            isbnByDoc = new String[1024];
+            termsByDoc = new String[1024][];
+            freeDocCount = 0;
+            nextDoc = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }// end of try-finally block
+    }// end of clear method
+
+    /*
+     * Loading the index from the database runs concurrently with the write paths.
+     * A book written or deleted while loading is newer than the loaded row, so the loaded row is skipped,
+     * and once the index is cleared no loaded row is added at all.
+     */
+    public void startLoading() {
+        lock.writeLock().lock();
+        try {
+            loading = true;
+            clearedWhileLoading = false;
+            touchedWhileLoading.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }// end of try-finally block
+    }// end of startLoading method
+
+    // add a book read from the database while loading the index
+    public void load(String isbn, String bookTitle, String authors, String publisher) {
+        lock.writeLock().lock();
+        try {
+            if (!clearedWhileLoading && !touchedWhileLoading.contains(isbn)) {
+                index(isbn, bookTitle, authors, publisher);
+            }// end of if block
+        } finally {
+            lock.writeLock().unlock();
+        }// end of try-finally block
+    }// end of load method
+
+    public void finishLoading() {
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            clearedWhileLoading = false;
+            touchedWhileLoading.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }// end of try-finally block
+    }// end of finishLoading method
+
+    // number of indexed books
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByIsbn.size();
+        } finally {
+            lock.readLock().unlock();
+        }// end of try-finally block
+    }// end of size method
+
+    // rank the books matching every term of the query and return the requested page of ISBNs
+    public SearchHits search(String query, long offset, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty()) {
+            return new SearchHits(0, List.of());
+        }// end of if block
+
+        lock.readLock().lock();
+        try {
+            // score the books matching each query term, then keep the books matching all of them
+            List<Matches> termMatches = new ArrayList<>(queryTerms.size());
+            for (String queryTerm : queryTerms) {
+                Matches matches = matchTerm(queryTerm);
+                if (matches.size == 0) {
+                    return new SearchHits(0, List.of());
+                }// end of if block
+                termMatches.add(matches);
+            }// end of for loop
+            termMatches.sort(Comparator.comparingInt(matches -> matches.size)); // start from the rarest term
+            Matches result = termMatches.getFirst();
+            for (int i = 1; i < termMatches.size() && result.size > 0; i++) {
+                result = result.intersect(termMatches.get(i));
+            }// end of for loop
+            return new SearchHits(result.size, topIsbns(result, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }// end of try-finally block
+    }// end of search method
+
+    // the books matching one query term through its exact, prefix and fuzzy expansions, with their best score
+    private Matches matchTerm(String queryTerm) {
+        List<Postings> expansions = new ArrayList<>();
+        List<Float> weights = new ArrayList<>();
+        Postings exact = postings.get(queryTerm);
+        if (exact != null) {
+            expansions.add(exact);
+            weights.add(EXACT);
+        }// end of if block
+
+        // expand the query term to the indexed terms that start with it
+        if (queryTerm.length() >= settings.getMinPrefixLength()) {
+            int count = 0;
+            for (Postings prefixed : postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).values()) {
+                if (++count > settings.getMaxExpansions()) {
+                    break;
+                }// end of if block
+                expansions.add(prefixed);
+                weights.add(PREFIX);
+            }// end of for loop
+        }// end of if block
+
+        // only look for misspellings when the term itself is unknown, assuming the first letter is right
+        // a term within the distance is at most that many letters longer or shorter, only those are compared
+        if (exact == null && queryTerm.length() >= settings.getMinFuzzyLength()) {
+            int maxDistance = queryTerm.length() >= 8 ? 2 : 1;
+            int[][] rows = new int[2][];
+            int count = 0;
+            fuzzy:
+            for (int length = queryTerm.length() - maxDistance; length <= queryTerm.length() + maxDistance; length++) {
+                TreeSet<String> candidates = termsByShape.get(shape(queryTerm.charAt(0), length));
+                if (candidates == null) {
+                    continue;
+                }// end of if block
+                for (String term : candidates) {
+                    if (!term.startsWith(queryTerm) // already matched as a prefix
+                            && editDistance(queryTerm, term, maxDistance, rows) <= maxDistance) {
+                        if (++count > settings.getMaxExpansions()) {
+                            break fuzzy;
+                        }// end of if block
+                        expansions.add(postings.get(term));
+                        weights.add(FUZZY);
+                    }// end of if block
+                }// end of for loop
+            }// end of for loop
+        }// end of if block
+
+        if (expansions.size() == 1) {
+            return Matches.of(expansions.getFirst(), weights.getFirst(), docByIsbn.size());
+        }// end of if block
+        return Matches.union(expansions, weights, docByIsbn.size());
+    }// end of matchTerm method
+
+    // ISBNs of the requested page, by descending score and then by book number so that pages are stable
+    private List<String> topIsbns(Matches matches, long offset, int limit) {
+        if (offset >= matches.size) {
+            return List.of();
+        }// end of if block
+        int keep = (int) Math.min(offset + limit, matches.size);
+        // bounded min-heap of the best "keep" matches, each packed as score then reversed book number
+        long[] heap = new long[keep];
+        int heapSize = 0;
+        for (int i = 0; i < matches.size; i++) {
+            long packed = pack(matches.scores[i], matches.docs[i]);
+            if (heapSize < keep) {
+                heap[heapSize] = packed;
+                siftUp(heap, heapSize++);
+            } else if (packed > heap[0]) {
+                heap[0] = packed;
+                siftDown(heap, heapSize);
+            }// end of if-else block
+        }// end of for loop
+        Arrays.sort(heap, 0, heapSize);
+        List<String> isbns = new ArrayList<>(heapSize);
+        for (long i = heapSize - 1 - offset; i >= 0; i--) {
+            isbns.add(isbnByDoc[Integer.MAX_VALUE - (int) heap[(int) i]]);
+        }// end of for loop
+        return isbns;
+    }// end of topIsbns method
+
+    // positive floats compare like their bits, and a lower book number wins a tie
+    private static long pack(float score, int doc) {
+        return ((long) Float.floatToIntBits(score) << 32) | (Integer.MAX_VALUE - doc);
+    }// end of pack method
+
+    private static void siftUp(long[] heap, int i) {
+        while (i > 0 && heap[(i - 1) / 2] > heap[i]) {
+            swap(heap, i, (i - 1) / 2);
+            i = (i - 1) / 2;
+        }// end of while loop
+    }// end of siftUp method
+
+    private static void siftDown(long[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int smallest = i, left = 2 * i + 1, right = left + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }// end of if block
+            if (right < size && heap[right] < heap[smallest]) {
+                smallest = right;
+            }// end of if block
+            if (smallest == i) {
+                return;
+            }// end of if block
+            swap(heap, i, smallest);
+            i = smallest;
+        }// end of while loop
+    }// end of siftDown method
+
+    private static void swap(long[] heap, int i, int j) {
+        long tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }// end of swap method
+
+    private void index(String isbn, String bookTitle, String authors, String publisher) {
+        unindex(isbn);
+        int doc = allocateDoc(isbn);
+        Set<String> terms = new LinkedHashSet<>();
+        addTerms(doc, bookTitle, TITLE, terms);
+        addTerms(doc, authors, AUTHORS, terms);
+        addTerms(doc, publisher, PUBLISHER, terms);
+        termsByDoc[doc] = terms.toArray(String[]::new);
+    }// end of index method
+
+    private void addTerms(int doc, String text, byte field, Set<String> terms) {
+        for (String term : tokenize(text)) {
+            postings.computeIfAbsent(term, key -> {
+                termsByShape.computeIfAbsent(shape(key.charAt(0), key.length()), shape -> new TreeSet<>()).add(key);
+                return new Postings();
+            }).add(doc, field);
+            terms.add(term);
+        }// end of for loop
+    }// end of addTerms method
+
+    private void unindex(String isbn) {
+        Integer doc = docByIsbn.remove(isbn);
+        if (doc == null) {
+            return;
+        }// end of if block
+        for (String term : termsByDoc[doc]) {
+            Postings books = postings.get(term);
+            books.remove(doc);
+            if (books.size == 0) {
+                postings.remove(term);
+                TreeSet<String> sameShape = termsByShape.get(shape(term.charAt(0), term.length()));
+                sameShape.remove(term);
+                if (sameShape.isEmpty()) {
+                    termsByShape.remove(shape(term.charAt(0), term.length()));
+                }// end of if block
+            }// end of if block
+        }// end of for loop
+        isbnByDoc[doc] = null;
+        termsByDoc[doc] = null;
+        if (freeDocCount == freeDocs.length) {
+            freeDocs = Arrays.copyOf(freeDocs, freeDocs.length * 2);
+        }// end of if block
+        freeDocs[freeDocCount++] = doc;
+    }// end of unindex method
+
+    // number the book, reusing the number of a removed book when there is one
+    private int allocateDoc(String isbn) {
+        int doc = freeDocCount > 0 ? freeDocs[--freeDocCount] : nextDoc++;
+        if (doc == isbnByDoc.length) {
+            isbnByDoc = Arrays.copyOf(isbnByDoc, doc * 2);
+            termsByDoc = Arrays.copyOf(termsByDoc, doc * 2);
+        }// end of if block
+        isbnByDoc[doc] = isbn;
+        docByIsbn.put(isbn, doc);
+        return doc;
+    }// end of allocateDoc method
+
+    // key of the group of terms with the given first letter and length
+    private static int shape(char first, int length) {
+        return (first << 16) | Math.min(length, 0xFFFF);
+    }// end of shape method
+
+    // lower case words of letters and digits, with accents removed
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }// end of if block
+        // decompose accented letters so that the accent becomes a separate mark that can be dropped
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                term.append(c);
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK && !term.isEmpty()) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }// end of if-else block
+        }// end of for loop
+        if (!term.isEmpty()) {
+            terms.add(term.toString());
+        }// end of if block
+        return terms;
+    }// end of tokenize method
+
+    // Levenshtein distance, giving up with max + 1 as soon as it exceeds max, the two rows are reused between calls
+    static int editDistance(String a, String b, int max, int[][] rows) {
+        if (rows[0] == null || rows[0].length <= b.length()) {
+            rows[0] = new int[b.length() + 1];
+            rows[1] = new int[b.length() + 1];
+        }// end of if block
+        int[] previous = rows[0];
+        int[] current = rows[1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }// end of for loop
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }// end of for loop
+            if (rowMin > max) {
+                return max + 1;
+            }// end of if block
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }// end of for loop
+        return previous[b.length()];
+    }// end of editDistance method
+
+    // book numbers containing a term, sorted, with the fields the term was found in
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private byte[] fields = new byte[2];
+        private int size;
+
+        void add(int doc, byte field) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            if (i >= 0) {
+                fields[i] |= field;
+                return;
+            }// end of if block
+            i = -i - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }// end of if block
+            System.arraycopy(docs, i, docs, i + 1, size - i);
+            System.arraycopy(fields, i, fields, i + 1, size - i);
+            docs[i] = doc;
+            fields[i] = field;
+            size++;
+        }// end of add method
+
+        void remove(int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            if (i < 0) {
+                return;
+            }// end of if block
+            System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+            System.arraycopy(fields, i + 1, fields, i, size - i - 1);
+            size--;
+        }// end of remove method
+    }// end of Postings class
+
+    // books matched by a query term, sorted by book number, with their scores
+    private static final class Matches {
+        private final int[] docs;
+        private final float[] scores;
+        private final int size;
+
+        private Matches(int[] docs, float[] scores, int size) {
+            this.docs = docs;
+            this.scores = scores;
+            this.size = size;
+        }// end of Matches constructor
+
+        // the books of a single indexed term, sharing its (read locked) array of book numbers
+        static Matches of(Postings postings, float weight, int bookCount) {
+            float[] scores = new float[postings.size];
+            float idfWeight = weight * idf(postings, bookCount);
+            for (int i = 0; i < postings.size; i++) {
+                scores[i] = idfWeight * fieldWeight(postings.fields[i]);
+            }// end of for loop
+            return new Matches(postings.docs, scores, postings.size);
+        }// end of of method
+
+        // the books of several indexed terms, each book keeping its best score
+        static Matches union(List<Postings> expansions, List<Float> weights, int bookCount) {
+            int total = 0;
+            for (Postings postings : expansions) {
+                total += postings.size;
+            }// end of for loop
+            // pack book number then score, so that sorting groups the books with their best score last
+            long[] packed = new long[total];
+            int n = 0;
+            for (int e = 0; e < expansions.size(); e++) {
+                Postings postings = expansions.get(e);
+                float idfWeight = weights.get(e) * idf(postings, bookCount);
+                for (int i = 0; i < postings.size; i++) {
+                    float score = idfWeight * fieldWeight(postings.fields[i]);
+                    packed[n++] = ((long) postings.docs[i] << 32) | Float.floatToIntBits(score);
+                }// end of for loop
+            }// end of for loop
+            Arrays.sort(packed);
+            int[] docs = new int[total];
+            float[] scores = new float[total];
+            int size = 0;
+            for (int i = 0; i < total; i++) {
+                if (i + 1 < total && (packed[i + 1] >>> 32) == (packed[i] >>> 32)) {
+                    continue; // a better score of the same book follows
+                }// end of if block
+                docs[size] = (int) (packed[i] >>> 32);
+                scores[size++] = Float.intBitsToFloat((int) packed[i]);
+            }// end of for loop
+            return new Matches(docs, scores, size);
+        }// end of union method
+
+        // books in both, with the sum of their scores, looking up this (smaller) set's books in the other one
+        Matches intersect(Matches other) {
+            int[] resultDocs = new int[size];
+            float[] resultScores = new float[size];
+            int resultSize = 0;
+            int from = 0;
+            for (int i = 0; i < size && from < other.size; i++) {
+                int j = Arrays.binarySearch(other.docs, from, other.size, docs[i]);
+                if (j >= 0) {
+                    resultDocs[resultSize] = docs[i];
+                    resultScores[resultSize++] = scores[i] + other.scores[j];
+                    from = j + 1;
+                } else {
+                    from = -j - 1;
+                }// end of if-else block
+            }// end of for loop
+            return new Matches(resultDocs, resultScores, resultSize);
+        }// end of intersect method
+
+        // rarer terms weigh more
+        private static float idf(Postings postings, int bookCount) {
+            return (float) Math.log(1 + (double) bookCount / postings.size);
+        }// end of idf method
+
+        // a match in the title weighs more than in the authors, which weighs more than in the publisher
+        private static float fieldWeight(byte fields) {
+            if ((fields & TITLE) != 0) {
+                return 3;
+            }// end of if block
+            return (fields & AUTHORS) != 0 ? 2 : 1;
+        }// end of fieldWeight method
+    }// end of Matches class
+
+}// end of BookSearchIndex class
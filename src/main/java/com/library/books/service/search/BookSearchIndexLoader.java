@@ -0,0 +1,34 @@
+package com.library.books.service.search;
+
+import com.library.books.config.ReadWriteRoutingDataSource;
+import com.library.books.service.IBookService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// fills the search index from the database once the application is up, searches are served meanwhile
+@Slf4j
+@Component
+@AllArgsConstructor
+public class BookSearchIndexLoader {
+
+    private final IBookService bookService;
+    private final BookSearchIndex bookSearchIndex;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSearchIndex() {
+        long start = System.nanoTime();
+        bookSearchIndex.startLoading();
+        try {
+            // stream the catalog, so that it is never held in memory as a whole, from the primary as the writes index from then on
+            ReadWriteRoutingDataSource.onPrimary(() -> bookService.exportAllBooks(bookDTO -> bookSearchIndex.load(
+                    bookDTO.getIsbn(), bookDTO.getBookTitle(), bookDTO.getAuthors(), bookDTO.getPublisher())));
+        } finally {
+            bookSearchIndex.finishLoading();
+        }// end of try-finally block
+        log.info("Search index loaded with {} books in {} ms", bookSearchIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }// end of loadSearchIndex method
+
+}// end of BookSearchIndexLoader class
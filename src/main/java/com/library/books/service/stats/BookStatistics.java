@@ -0,0 +1,155 @@
+package com.library.books.service.stats;
+
+import com.library.books.config.BooksProperties;
+import com.library.books.repository.projection.BookFigures;
+import com.library.books.repository.projection.BookFiguresGroup;
+import com.library.books.service.dto.BookStatisticsDTO;
+import com.library.books.utility.AfterCommit;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Counts of the catalog by publisher, by year and by price, kept up to date by every write instead of
+ * being counted by a query on every request. Each write adds the books it stores and takes off the ones it
+ * removes or replaces, once its transaction has committed and in commit order, so the counts move with the catalog:
+ * a clear is never followed by the books of a write that committed before it.
+ * The prices are counted by distinct value, which gives the minimum and maximum after any delete, and summed
+ * as decimals so that adding and taking off a price leaves no rounding error behind.
+ * The answer is built once per change of the counts and handed out as is until the next one,
+ * so a read costs the same whatever the size of the catalog.
+ */
+@Component
+public class BookStatistics {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Long> booksByPublisher = new HashMap<>();
+    private final Map<Integer, Long> booksByYearPublished = new HashMap<>();
+    private final TreeMap<Double, Long> booksByPrice = new TreeMap<>();
+    private final double[] bucketBounds; // upper bound of every price range but the last
+    private final long[] booksByBucket;
+    private long books;
+    private BigDecimal priceSum = BigDecimal.ZERO;
+    private volatile BookStatisticsDTO snapshot; // null when the counts changed since it was built
+
+    public BookStatistics(BooksProperties booksProperties) {
+        this.bucketBounds = booksProperties.getStatistics().getPriceBuckets().stream()
+                .mapToDouble(Double::doubleValue)
+                .sorted()
+                .toArray();
+        this.booksByBucket = new long[bucketBounds.length + 1];
+    }// end of BookStatistics constructor
+
+    // the books were stored
+    public void added(List<BookFigures> books) {
+        AfterCommit.inCommitOrder(() -> change(books, 1));
+    }// end of added method
+
+    // the books were deleted, or replaced by other figures
+    public void removed(List<BookFigures> books) {
+        AfterCommit.inCommitOrder(() -> change(books, -1));
+    }// end of removed method
+
+    // every book was deleted at once, in the transaction of the caller
+    public void cleared() {
+        AfterCommit.inCommitOrder(() -> load(List.of()));
+    }// end of cleared method
+
+    // count the catalog again from the groups of books sharing a publisher, a year and a price
+    public void load(List<BookFiguresGroup> groups) {
+        lock.lock();
+        try {
+            booksByPublisher.clear();
+            booksByYearPublished.clear();
+            booksByPrice.clear();
+            Arrays.fill(booksByBucket, 0);
+            books = 0;
+            priceSum = BigDecimal.ZERO;
+            for (BookFiguresGroup group : groups) {
+                count(group.publisher(), group.yearPublished(), group.price(), group.books());
+            }// end of for loop
+            snapshot = null;
+        } finally {
+            lock.unlock();
+        }// end of try-finally block
+    }// end of load method
+
+    // the statistics as of the last committed write
+    public BookStatisticsDTO snapshot() {
+        BookStatisticsDTO current = snapshot;
+        if (current != null) {
+            return current;
+        }// end of if block
+        lock.lock();
+        try {
+            if (snapshot == null) {
+                snapshot = build();
+            }// end of if block
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }// end of try-finally block
+    }// end of snapshot method
+
+    private void change(List<BookFigures> figures, long sign) {
+        lock.lock();
+        try {
+            for (BookFigures book : figures) {
+                count(book.publisher(), book.yearPublished(), book.price(), sign);
+            }// end of for loop
+            snapshot = null;
+        } finally {
+            lock.unlock();
+        }// end of try-finally block
+    }// end of change method
+
+    // helper method to add (or take off, when negative) a number of books with the same figures, entries at 0 are dropped
+    private void count(String publisher, int yearPublished, double price, long count) {
+        booksByPublisher.compute(publisher, (key, current) -> sum(current, count));
+        booksByYearPublished.compute(yearPublished, (key, current) -> sum(current, count));
+        booksByPrice.compute(price, (key, current) -> sum(current, count));
+        booksByBucket[bucket(price)] += count;
+        books += count;
+        priceSum = priceSum.add(BigDecimal.valueOf(price).multiply(BigDecimal.valueOf(count)));
+    }// end of count method
+
+    private static Long sum(Long current, long count) {
+        long sum = (current == null ? 0 : current) + count;
+        return sum == 0 ? null : sum;
+    }// end of sum method
+
+    // helper method to find the price range of a price, the ranges include their lower bound
+    private int bucket(double price) {
+        int index = Arrays.binarySearch(bucketBounds, price);
+        return index >= 0 ? index + 1 : -index - 1;
+    }// end of bucket method
+
+    private BookStatisticsDTO build() {
+        List<BookStatisticsDTO.PriceBucket> histogram = new ArrayList<>(booksByBucket.length);
+        for (int i = 0; i < booksByBucket.length; i++) {
+            histogram.add(new BookStatisticsDTO.PriceBucket(
+                    i == 0 ? 0 : bucketBounds[i - 1],
+                    i < bucketBounds.length ? bucketBounds[i] : null,
+                    booksByBucket[i]));
+        }// end of for loop
+        boolean empty = books == 0;
+        return new BookStatisticsDTO(
+                books,
+                Collections.unmodifiableMap(new TreeMap<>(booksByPublisher)),
+                Collections.unmodifiableMap(new TreeMap<>(booksByYearPublished)),
+                empty ? null : booksByPrice.firstKey(),
+                empty ? null : booksByPrice.lastKey(),
+                empty ? null : priceSum.divide(BigDecimal.valueOf(books), MathContext.DECIMAL64).doubleValue(),
+                List.copyOf(histogram));
+    }// end of build method
+
+}// end of BookStatistics class
@@ -0,0 +1,32 @@
+package com.library.books.service.stats;
+
+import com.library.books.config.ReadWriteRoutingDataSource;
+import com.library.books.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/*
+ * Counts the catalog for its statistics at startup, with a single GROUP BY over the books.
+ * Runs before the web server is started: the writes then only move counts that already include
+ * every stored book, none of them is counted twice or missed. They are counted on the primary, a lagging replica
+ * would leave out books no later write would ever add.
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+public class BookStatisticsLoader {
+
+    private final BookRepository bookRepository;
+    private final BookStatistics bookStatistics;
+
+    @PostConstruct
+    public void loadStatistics() {
+        long start = System.nanoTime();
+        bookStatistics.load(ReadWriteRoutingDataSource.onPrimary(bookRepository::countByPublisherAndYearPublishedAndPrice));
+        log.info("Catalog statistics loaded with {} books in {} ms",
+                bookStatistics.snapshot().getBooks(), (System.nanoTime() - start) / 1_000_000);
+    }// end of loadStatistics method
+
+}// end of BookStatisticsLoader class
@@ -0,0 +1,117 @@
+package com.library.books.utility;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Utility class to run in-memory side effects of a write (cache invalidation, index updates, ...)
+ * only once the database transaction has committed, or right away when there is no transaction.
+ *
+ * The after-commit callbacks of two transactions run in no set order. The effects that have to follow the order
+ * of the commits (the change feed, the search index, the statistics and the catalog counter) go through inCommitOrder instead:
+ * a write takes its place in one queue just before it commits, while it still holds the row locks of its statements,
+ * and its effects run in that order once it has committed, after the effects of the writes queued before it.
+ * The effects of a write that rolls back are dropped.
+ */
+public class AfterCommit {
+
+    private static final ReentrantLock lock = new ReentrantLock(); // not synchronized, writers may be virtual threads
+    private static final ArrayDeque<Pending> pending = new ArrayDeque<>(); // writes about to commit, in order
+
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }// end of if-else block
+    }// end of run method
+
+    // run the action once the current transaction (if any) has committed, after those of the transactions committed before it
+    // the actions are run one at a time and must be short, the actions of later commits wait for them
+    public static void inCommitOrder(Runnable action) {
+        Pending write = new Pending(action);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(write);
+            complete(write, true);
+            return;
+        }// end of if block
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                enqueue(write); // the row locks of the write are still held
+            }
+
+            @Override
+            public void afterCommit() {
+                complete(write, true);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    complete(write, false); // rolled back, or failed after beforeCommit
+                }// end of if block
+            }
+        });
+    }// end of inCommitOrder method
+
+    private static void enqueue(Pending write) {
+        lock.lock();
+        try {
+            pending.addLast(write);
+        } finally {
+            lock.unlock();
+        }// end of try-finally block
+    }// end of enqueue method
+
+    // mark the write as committed or rolled back, then run the actions of every leading write that is done, in order
+    private static void complete(Pending write, boolean committed) {
+        lock.lock();
+        try {
+            if (!pending.contains(write)) {
+                return; // rolled back before it took its place
+            }// end of if block
+            write.state = committed ? Pending.COMMITTED : Pending.ROLLED_BACK;
+            List<RuntimeException> failures = new ArrayList<>();
+            while (!pending.isEmpty() && pending.peekFirst().state != Pending.WAITING) {
+                Pending done = pending.removeFirst();
+                if (done.state == Pending.COMMITTED) {
+                    try {
+                        done.action.run();
+                    } catch (RuntimeException e) {
+                        failures.add(e); // the following writes still run
+                    }// end of try-catch block
+                }// end of if block
+            }// end of while loop
+            if (!failures.isEmpty()) {
+                throw failures.getFirst();
+            }// end of if block
+        } finally {
+            lock.unlock();
+        }// end of try-finally block
+    }// end of complete method
+
+    // the action of a write waiting in the queue for the writes before it, guarded by the lock
+    private static final class Pending {
+        static final int WAITING = 0;
+        static final int COMMITTED = 1;
+        static final int ROLLED_BACK = 2;
+
+        final Runnable action;
+        int state = WAITING;
+
+        Pending(Runnable action) {
+            this.action = action;
+        }// end of Pending constructor
+    }// end of Pending class
+}// end of AfterCommit class
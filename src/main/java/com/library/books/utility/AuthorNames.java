@@ -0,0 +1,52 @@
+package com.library.books.utility;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/*
+ * Utility class to split the authors of a book into author names, and to normalize a name into its lookup key.
+ * Names are separated by ';', '&' or ','. A comma after a single word is kept, as in a name written last name first,
+ * "Tolkien, J.R.R.", and so is a comma before a suffix, as in "Martin Luther King, Jr.".
+ * The key is the name trimmed, with single spaces and in lower case, so that "Jane  Austen" and "jane austen" are the same author.
+ */
+public class AuthorNames {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[;&]");
+    private static final Pattern COMMA = Pattern.compile(",");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern SUFFIX = Pattern.compile("(?i)(jr|sr)\\.?|i{2,3}|iv");
+
+    // the distinct author names of the given authors, in order, by their lookup key
+    public static Map<String, String> split(String authors) {
+        Map<String, String> names = new LinkedHashMap<>();
+        if (authors == null) {
+            return names;
+        }// end of if block
+        for (String group : SEPARATORS.split(authors)) {
+            String[] parts = COMMA.split(group);
+            for (int i = 0; i < parts.length; i++) {
+                String normalized = normalize(parts[i]);
+                // "Last, First" or "Name, Jr." is one name, the comma of "Terry Pratchett, Neil Gaiman" separates two
+                if (i + 1 < parts.length && !normalized.isEmpty()) {
+                    String next = normalize(parts[i + 1]);
+                    if (!next.isEmpty() && (normalized.indexOf(' ') < 0 || SUFFIX.matcher(next).matches())) {
+                        normalized = normalized + ", " + next;
+                        i++;
+                    }// end of if block
+                }// end of if block
+                if (!normalized.isEmpty()) {
+                    names.putIfAbsent(normalized.toLowerCase(Locale.ROOT), normalized);
+                }// end of if block
+            }// end of for loop
+        }// end of for loop
+        return names;
+    }// end of split method
+
+    // helper method to trim a name and collapse its spaces
+    private static String normalize(String name) {
+        return SPACES.matcher(name.strip()).replaceAll(" ");
+    }// end of normalize method
+
+}// end of AuthorNames class
@@ -0,0 +1,224 @@
+package com.library.books.utility;
+
+import com.library.books.service.dto.BookDTO;
+import com.library.books.service.dto.BookPageDTO;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Columnar binary encoding of a list of books, the application/vnd.library.book-columns media type.
+ * The values of each field are written together, one column after the other, so that a column of few distinct values
+ * (publishers, authors) is written once per value and referenced by index, and numbers take the bytes they need:
+ *
+ *   'B' 'K' 'C' 1        magic and version
+ *   varint n             number of books
+ *   bookTitle, authors, publisher, isbn     string columns, each either
+ *                        0, then n strings, or
+ *                        1, varint d, d distinct strings, then n varint indexes into them
+ *   yearPublished        n zigzag varints, each the difference from the year before it (from 0 for the first)
+ *   price                n doubles, 8 bytes big-endian
+ *   0 | 1                whether the page fields follow: zigzag varint page (-1 when read with a cursor),
+ *                        varint size, 1 byte hasNext, string nextCursor
+ *
+ * A string is the varint of its UTF-8 length plus one, then its bytes, and 0 for null. A varint is an unsigned
+ * LEB128 integer, 7 bits per byte with the high bit set on all but the last one.
+ * The links and the internal id and version of the books are not part of the encoding.
+ */
+public class BookColumns {
+
+    private static final byte[] MAGIC = {'B', 'K', 'C', 1};
+    private static final int PLAIN = 0, DICTIONARY = 1;
+    private static final int MAX_INITIAL_CAPACITY = 1024; // the count comes from the client, the lists grow as books are read
+
+    // write a page of books, with its page fields
+    public static void write(BookPageDTO page, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        writeBooks(page.getContent(), out);
+        out.writeByte(1);
+        writeVarint(out, zigzag(page.getPage() == null ? -1 : page.getPage()));
+        writeVarint(out, page.getSize());
+        out.writeBoolean(page.isHasNext());
+        writeString(out, page.getNextCursor());
+        out.flush();
+    }// end of write method
+
+    // write a list of books, such as the body of add-books:
+    public static void write(List<BookDTO> bookDTOS, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        writeBooks(bookDTOS, out);
+        out.writeByte(0);
+        out.flush();
+    }// end of write method
+
+    // read a page or a list of books, a list is read as a page without page fields (null page, size 0, no next page)
+    public static BookPageDTO read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        byte[] magic = in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a book columns body, or not version " + MAGIC[3]);
+        }// end of if block
+        int count = readLength(in);
+        List<String> titles = readStrings(in, count),
+                authors = readStrings(in, count),
+                publishers = readStrings(in, count),
+                isbns = readStrings(in, count);
+        List<BookDTO> bookDTOS = new ArrayList<>(Math.min(count, MAX_INITIAL_CAPACITY));
+        int year = 0;
+        for (int i = 0; i < count; i++) {
+            BookDTO bookDTO = new BookDTO();
+            bookDTO.setBookTitle(titles.get(i));
+            bookDTO.setAuthors(authors.get(i));
+            bookDTO.setPublisher(publishers.get(i));
+            bookDTO.setIsbn(isbns.get(i));
+            year += unzigzag(readVarint(in));
+            bookDTO.setYearPublished(year);
+            bookDTOS.add(bookDTO);
+        }// end of for loop
+        for (BookDTO bookDTO : bookDTOS) {
+            bookDTO.setPrice(in.readDouble());
+        }// end of for loop
+        if (in.readUnsignedByte() == 0) {
+            return new BookPageDTO(bookDTOS, null, 0, false, null);
+        }// end of if block
+        int page = unzigzag(readVarint(in));
+        return new BookPageDTO(bookDTOS, page < 0 ? null : page, readLength(in), in.readBoolean(), readString(in));
+    }// end of read method
+
+    private static void writeBooks(List<BookDTO> bookDTOS, DataOutputStream out) throws IOException {
+        out.write(MAGIC);
+        writeVarint(out, bookDTOS.size());
+        writeStrings(out, bookDTOS.stream().map(BookDTO::getBookTitle).toList());
+        writeStrings(out, bookDTOS.stream().map(BookDTO::getAuthors).toList());
+        writeStrings(out, bookDTOS.stream().map(BookDTO::getPublisher).toList());
+        writeStrings(out, bookDTOS.stream().map(BookDTO::getIsbn).toList());
+        int year = 0;
+        for (BookDTO bookDTO : bookDTOS) {
+            writeVarint(out, zigzag(bookDTO.getYearPublished() - year));
+            year = bookDTO.getYearPublished();
+        }// end of for loop
+        for (BookDTO bookDTO : bookDTOS) {
+            out.writeDouble(bookDTO.getPrice());
+        }// end of for loop
+    }// end of writeBooks method
+
+    // helper method to write a string column, as a dictionary when at most half of its values are distinct
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        Map<String, Integer> indexes = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        for (String value : values) {
+            if (indexes.putIfAbsent(value, distinct.size()) == null) {
+                distinct.add(value);
+                if (distinct.size() > values.size() / 2) {
+                    break;
+                }// end of if block
+            }// end of if block
+        }// end of for loop
+        if (distinct.size() > values.size() / 2) {
+            out.writeByte(PLAIN);
+            for (String value : values) {
+                writeString(out, value);
+            }// end of for loop
+        } else {
+            out.writeByte(DICTIONARY);
+            writeVarint(out, distinct.size());
+            for (String value : distinct) {
+                writeString(out, value);
+            }// end of for loop
+            for (String value : values) {
+                writeVarint(out, indexes.get(value));
+            }// end of for loop
+        }// end of if-else block
+    }// end of writeStrings method
+
+    private static List<String> readStrings(DataInputStream in, int count) throws IOException {
+        int encoding = in.readUnsignedByte();
+        List<String> values = new ArrayList<>(Math.min(count, MAX_INITIAL_CAPACITY));
+        if (encoding == PLAIN) {
+            for (int i = 0; i < count; i++) {
+                values.add(readString(in));
+            }// end of for loop
+        } else if (encoding == DICTIONARY) {
+            int size = readLength(in);
+            List<String> distinct = new ArrayList<>(Math.min(size, MAX_INITIAL_CAPACITY));
+            for (int i = 0; i < size; i++) {
+                distinct.add(readString(in));
+            }// end of for loop
+            for (int i = 0; i < count; i++) {
+                int index = readLength(in);
+                if (index >= distinct.size()) {
+                    throw new IOException("Dictionary index " + index + " out of " + distinct.size() + " values");
+                }// end of if block
+                values.add(distinct.get(index));
+            }// end of for loop
+        } else {
+            throw new IOException("Unknown column encoding " + encoding);
+        }// end of if-else block
+        return values;
+    }// end of readStrings method
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }// end of if block
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1);
+        out.write(bytes);
+    }// end of writeString method
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readLength(in);
+        if (length == 0) {
+            return null;
+        }// end of if block
+        byte[] bytes = in.readNBytes(length - 1); // reads in chunks, a forged length cannot allocate more than the body
+        if (bytes.length < length - 1) {
+            throw new EOFException("String of " + (length - 1) + " bytes cut short");
+        }// end of if block
+        return new String(bytes, StandardCharsets.UTF_8);
+    }// end of readString method
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }// end of while loop
+        out.writeByte(value);
+    }// end of writeVarint method
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte(); // EOFException at the end of the body
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }// end of if block
+        }// end of for loop
+        throw new IOException("Varint longer than 5 bytes");
+    }// end of readVarint method
+
+    // helper method to read a count, a length or an index, which a forged body could make negative
+    private static int readLength(DataInputStream in) throws IOException {
+        int value = readVarint(in);
+        if (value < 0) {
+            throw new IOException("Length out of range");
+        }// end of if block
+        return value;
+    }// end of readLength method
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }// end of zigzag method
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }// end of unzigzag method
+
+}// end of BookColumns class
@@ -0,0 +1,48 @@
+package com.library.books.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Utility class to split the records of a CSV file (RFC 4180: comma separated, "" escapes a quote inside quotes)
+public class CsvFormat {
+
+    // whether the record ends inside a quoted field, so that it goes on after the line break
+    public static boolean hasOpenQuote(String record) {
+        boolean open = false;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                open = !open; // an escaped quote toggles twice
+            }// end of if block
+        }// end of for loop
+        return open;
+    }// end of hasOpenQuote method
+
+    // split a record into its fields, unquoting the quoted ones
+    public static List<String> split(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }// end of if-else block
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }// end of if-else block
+        }// end of for loop
+        fields.add(field.toString());
+        return fields;
+    }// end of split method
+}// end of CsvFormat class
@@ -1,22 +1,121 @@
 package com.library.books.utility;
 
-// Utility class to format ISBN
+import com.library.books.controller.exception.BookISBNInvalidException;
+
+/*
+ * Utility class to format ISBN
+ * Every ISBN is normalized to its canonical ISBN-13 form, 978-1-2345-6789-7, so that it can be used as a key.
+ * ISBN-10 values are converted to ISBN-13 and the check digit of both forms is validated.
+ * The input is read in a single pass without regular expressions, and an input that is already canonical
+ * is returned as is, so the only allocation on the slow path is the output string.
+ */
 public class ISBNFormatter {
+
+    private static final String INVALID_ISBN = "Invalid ISBN! It must be a valid ISBN-10 or ISBN-13 : ";
+    private static final int FORMATTED_LENGTH = 17; // 13 digits and 4 dashes
+    private static final long ISBN_978_PREFIX = 978_000_000_000L; // 978 followed by 9 digit positions
+
     public static String formatISBN(String isbn) {
         if (isbn == null) {
             return null;
         }
-        // Remove any existing dashes
-        isbn = isbn.replaceAll("-", "");
-        // Format ISBN-10
-        if (isbn.length() == 10) {
-            return isbn.replaceAll("(.)(.{3})(.{5})(.)", "$1-$2-$3-$4");
+        // fast path, nothing to allocate when the ISBN is already in canonical form
+        if (isCanonical(isbn)) {
+            return isbn;
+        }
+
+        // read the digits into a number, ignoring dashes and spaces
+        long digits = 0;
+        int count = 0;
+        boolean checkDigitX = false;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c >= '0' && c <= '9' && !checkDigitX && count < 13) {
+                digits = digits * 10 + (c - '0');
+                count++;
+            } else if ((c == 'X' || c == 'x') && count == 9 && !checkDigitX) {
+                checkDigitX = true; // an ISBN-10 check digit of 10, only allowed in last position
+                count++;
+            } else if (c != '-' && c != ' ') {
+                throw new BookISBNInvalidException(INVALID_ISBN + isbn);
+            }
+        }// end of for loop
+
+        // Format ISBN-10 as ISBN-13
+        if (count == 10) {
+            int checkDigit = checkDigitX ? 10 : (int) (digits % 10);
+            long body = checkDigitX ? digits : digits / 10; // the 9 digits before the check digit
+            if (isbn10CheckDigit(body) != checkDigit) {
+                throw new BookISBNInvalidException(INVALID_ISBN + isbn);
+            }
+            long isbn13Body = ISBN_978_PREFIX + body; // 978 followed by the 9 digits
+            return format(isbn13Body * 10 + isbn13CheckDigit(isbn13Body));
         }
         // Format ISBN-13
-        if (isbn.length() == 13) {
-            return isbn.replaceAll("(.{3})(.)(.{4})(.{4})(.)", "$1-$2-$3-$4-$5");
+        if (count == 13 && !checkDigitX) {
+            long prefix = digits / 10_000_000_000L;
+            if ((prefix != 978 && prefix != 979) || isbn13CheckDigit(digits / 10) != digits % 10) {
+                throw new BookISBNInvalidException(INVALID_ISBN + isbn);
+            }
+            return format(digits);
         }
-        // Return the original ISBN if it doesn't match ISBN-10 or ISBN-13 length
-        return isbn;
+        // anything else is not an ISBN
+        throw new BookISBNInvalidException(INVALID_ISBN + isbn);
     }// end of formatISBN method
+
+    // check if the ISBN is a valid ISBN-13 already formatted as 978-1-2345-6789-7
+    private static boolean isCanonical(String isbn) {
+        if (isbn.length() != FORMATTED_LENGTH) {
+            return false;
+        }
+        long digits = 0;
+        for (int i = 0; i < FORMATTED_LENGTH; i++) {
+            char c = isbn.charAt(i);
+            boolean dashPosition = i == 3 || i == 5 || i == 10 || i == 15;
+            if (dashPosition) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (c >= '0' && c <= '9') {
+                digits = digits * 10 + (c - '0');
+            } else {
+                return false;
+            }
+        }// end of for loop
+        long prefix = digits / 10_000_000_000L;
+        return (prefix == 978 || prefix == 979) && isbn13CheckDigit(digits / 10) == digits % 10;
+    }// end of isCanonical method
+
+    // check digit of an ISBN-10 from its first 9 digits, 10 stands for X
+    private static int isbn10CheckDigit(long body) {
+        int sum = 0;
+        for (int weight = 2; weight <= 10; weight++, body /= 10) {
+            sum += weight * (int) (body % 10);
+        }
+        return (11 - sum % 11) % 11;
+    }// end of isbn10CheckDigit method
+
+    // check digit of an ISBN-13 from its first 12 digits
+    private static int isbn13CheckDigit(long body) {
+        int sum = 0;
+        for (int position = 12; position >= 1; position--, body /= 10) {
+            int digit = (int) (body % 10);
+            sum += position % 2 == 0 ? 3 * digit : digit; // weights alternate 1, 3 from the first digit
+        }
+        return (10 - sum % 10) % 10;
+    }// end of isbn13CheckDigit method
+
+    // write the 13 digits as 978-1-2345-6789-7, filling the characters from the last one
+    private static String format(long digits) {
+        char[] formatted = new char[FORMATTED_LENGTH];
+        for (int i = FORMATTED_LENGTH - 1; i >= 0; i--) {
+            if (i == 3 || i == 5 || i == 10 || i == 15) {
+                formatted[i] = '-';
+            } else {
+                formatted[i] = (char) ('0' + digits % 10);
+                digits /= 10;
+            }
+        }// end of for loop
+        return new String(formatted);
+    }// end of format method
 }// end of ISBNFormatter class
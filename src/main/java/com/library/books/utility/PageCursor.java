@@ -0,0 +1,27 @@
+package com.library.books.utility;
+
+import com.library.books.controller.exception.InvalidPageRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Utility class to encode and decode the opaque keyset cursors handed out to clients
+public class PageCursor {
+
+    private static final String INVALID_CURSOR = "Invalid page cursor! : ";
+
+    // encode the id of the last book of a page as an opaque, URL safe token
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }// end of encode method
+
+    // decode a token produced by encode back into the id to continue after
+    public static long decode(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) { // also covers NumberFormatException
+            throw new InvalidPageRequestException(INVALID_CURSOR + cursor);
+        }// end of try-catch block
+    }// end of decode method
+}// end of PageCursor class
@@ -1,9 +1,39 @@
+CREATE SEQUENCE IF NOT EXISTS `book_seq` START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS `book` (
-    `id` int AUTO_INCREMENT  PRIMARY KEY,
+    `id` bigint PRIMARY KEY,
     `book_title` varchar(100) NOT NULL,
     `authors` varchar(100) NOT NULL,
     `publisher` varchar(100) NOT NULL,
     `isbn` varchar(30) NOT NULL,
     `year_published` integer NOT NULL,
-    `price` double NOT NULL
+    `price` double NOT NULL,
+    `version` bigint DEFAULT 0 NOT NULL
     );
+
+-- the database enforces ISBN uniqueness and serves the ISBN lookups
+CREATE UNIQUE INDEX IF NOT EXISTS `book_isbn_uq` ON `book` (`isbn`);
+CREATE INDEX IF NOT EXISTS `book_title_idx` ON `book` (`book_title`);
+-- equality on publisher, optionally narrowed by a year range
+CREATE INDEX IF NOT EXISTS `book_publisher_idx` ON `book` (`publisher`, `year_published`);
+-- year and price range filters, and sorting by year or price
+CREATE INDEX IF NOT EXISTS `book_year_idx` ON `book` (`year_published`, `price`);
+CREATE INDEX IF NOT EXISTS `book_price_idx` ON `book` (`price`);
+
+-- every author once, looked up by the lookup key of the name (trimmed, single spaces, lower case)
+CREATE TABLE IF NOT EXISTS `author` (
+    `id` bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    `name` varchar(100) NOT NULL,
+    `name_key` varchar(100) NOT NULL
+    );
+CREATE UNIQUE INDEX IF NOT EXISTS `author_name_key_uq` ON `author` (`name_key`);
+
+-- the authors of each book: the primary key serves the books of an author, book_author_book_idx the authors of a book
+-- the deletes of books remove their rows first, in the same transaction
+CREATE TABLE IF NOT EXISTS `book_author` (
+    `author_id` bigint NOT NULL REFERENCES `author` (`id`),
+    `book_id` bigint NOT NULL,
+    PRIMARY KEY (`author_id`, `book_id`)
+    );
+CREATE INDEX IF NOT EXISTS `book_author_book_idx` ON `book_author` (`book_id`);
+ALTER TABLE `book_author` ADD CONSTRAINT IF NOT EXISTS `book_author_book_fk` FOREIGN KEY (`book_id`) REFERENCES `book` (`id`);
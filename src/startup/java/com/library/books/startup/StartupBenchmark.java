@@ -0,0 +1,155 @@
+package com.library.books.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Cold-start benchmark of the service: launches it in a fresh JVM, in each mode in turn, and measures the time
+ * from the launch to the first successful getBookByISBN: answer, the time a new instance takes to serve traffic.
+ * The book looked up is inserted by a seed script at startup, so every mode does the same work.
+ *   standard  the executable jar as built by default
+ *   aot       the extracted jar with the AOT-processed context (-Dspring.aot.enabled=true) and the fast-startup profile
+ *   aot-cds   the same, with the classes loaded from the AppCDS archive of the training run
+ * Run by the fast-startup Maven profile: ./mvnw -Pfast-startup -DskipTests verify
+ * Settings are the "startup.*" system properties, the results are written to the result file as JSON.
+ */
+public class StartupBenchmark {
+
+    private static final String ISBN = "978-0-3064-0615-7";
+    private static final Duration TIMEOUT = Duration.ofMinutes(2); // a mode that is not serving by then fails the run
+    private static final Pattern STARTED = Pattern.compile("Started BooksApplication in ([\\d.]+) seconds");
+
+    private final Path directory; // the extracted jar, its libraries and the archive
+    private final Path seed;
+    private final Map<String, List<String>> commands = new LinkedHashMap<>();
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    StartupBenchmark(Path standardJar, Path directory, String jar) {
+        this.directory = directory;
+        this.seed = directory.resolve("startup-seed.sql");
+        Path extractedJar = directory.resolve(jar);
+        commands.put("standard", List.of("java", "-jar", standardJar.toString()));
+        commands.put("aot", List.of("java", "-Dspring.aot.enabled=true", "-jar", extractedJar.toString(),
+                "--spring.profiles.active=fast-startup"));
+        commands.put("aot-cds", List.of("java", "-XX:SharedArchiveFile=" + directory.resolve("books.jsa"),
+                "-Dspring.aot.enabled=true", "-jar", extractedJar.toString(), "--spring.profiles.active=fast-startup"));
+    }// end of StartupBenchmark constructor
+
+    public static void main(String[] args) throws Exception {
+        StartupBenchmark benchmark = new StartupBenchmark(
+                Path.of(System.getProperty("startup.standard-jar", "target/books-0.0.1-SNAPSHOT.jar")),
+                Path.of(System.getProperty("startup.directory", "target/fast-startup")),
+                System.getProperty("startup.jar", "books-0.0.1-SNAPSHOT.jar"));
+        int runs = Integer.getInteger("startup.runs", 5);
+        Path resultFile = Path.of(System.getProperty("startup.result-file", "target/startup-result.json"));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("runs", runs);
+        summary.put("java", System.getProperty("java.version"));
+        summary.put("modes", benchmark.run(runs));
+        Files.createDirectories(resultFile.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(resultFile.toFile(), summary);
+        System.out.println("Startup results written to " + resultFile);
+    }// end of main method
+
+    // the modes take turns, so that a slower phase of the machine weighs on all of them alike
+    Map<String, Object> run(int runs) throws IOException, InterruptedException {
+        Files.writeString(seed, "INSERT INTO `book` (`id`, `book_title`, `authors`, `publisher`, `isbn`, `year_published`, `price`, `version`) "
+                + "VALUES (1, 'Startup', 'Benchmark', 'Books', '" + ISBN + "', 2025, 10.0, 0);\n");
+        Map<String, List<double[]>> timings = new LinkedHashMap<>();
+        for (int run = 0; run < runs; run++) {
+            for (Map.Entry<String, List<String>> mode : commands.entrySet()) {
+                double[] timing = launch(mode.getKey(), mode.getValue());
+                timings.computeIfAbsent(mode.getKey(), key -> new ArrayList<>()).add(timing);
+                System.out.printf("%-8s run %d: first getBookByISBN: after %.0f ms, started in %.0f ms%n",
+                        mode.getKey(), run + 1, timing[0], timing[1]);
+            }// end of for loop
+        }// end of for loop
+
+        Map<String, Object> modes = new LinkedHashMap<>();
+        timings.forEach((mode, runTimings) -> {
+            Map<String, Object> figures = new LinkedHashMap<>();
+            figures.put("command", String.join(" ", commands.get(mode)));
+            figures.put("firstRequestMillis", figures(runTimings, 0));
+            figures.put("startedMillis", figures(runTimings, 1));
+            modes.put(mode, figures);
+        });
+        return modes;
+    }// end of run method
+
+    // helper method to start the service, wait for its first successful lookup and stop it, returns
+    // the milliseconds to that lookup and the startup time Spring Boot logged
+    private double[] launch(String mode, List<String> command) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add("--server.port=" + port);
+        arguments.add("--spring.sql.init.data-locations=file:" + seed.toAbsolutePath());
+        Path log = directory.resolve("startup-" + mode + ".log");
+        HttpRequest lookup = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/books/getBookByISBN:?isbn=" + ISBN))
+                .timeout(TIMEOUT)
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(arguments)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode + " exited with " + process.exitValue() + ", see " + log);
+                }// end of if block
+                if (System.nanoTime() - start > TIMEOUT.toNanos()) {
+                    throw new IllegalStateException(mode + " did not answer within " + TIMEOUT + ", see " + log);
+                }// end of if block
+                try {
+                    if (httpClient.send(lookup, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }// end of if block
+                } catch (ConnectException e) {
+                    // not listening yet
+                }// end of try-catch block
+                Thread.sleep(5);
+            }// end of while loop
+            double firstRequest = (System.nanoTime() - start) / 1e6;
+            Matcher started = STARTED.matcher(Files.readString(log));
+            return new double[]{firstRequest, started.find() ? Double.parseDouble(started.group(1)) * 1000 : Double.NaN};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }// end of if block
+        }// end of try-finally block
+    }// end of launch method
+
+    private static Map<String, Object> figures(List<double[]> runTimings, int index) {
+        double[] values = runTimings.stream().mapToDouble(timing -> timing[index]).sorted().toArray();
+        Map<String, Object> figures = new LinkedHashMap<>();
+        figures.put("median", Math.round(values[values.length / 2]));
+        figures.put("min", Math.round(values[0]));
+        figures.put("max", Math.round(values[values.length - 1]));
+        return figures;
+    }// end of figures method
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }// end of try-with-resources block
+    }// end of freePort method
+
+}// end of StartupBenchmark class
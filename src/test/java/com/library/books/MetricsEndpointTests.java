@@ -0,0 +1,56 @@
+package com.library.books;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// scrapes the Prometheus endpoint of a running server, as Prometheus itself would
+// the metrics export is off in tests unless it is asked for
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class MetricsEndpointTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void exposesBookMetricsInPrometheusFormat() {
+		Map<String, Object> book = Map.of(
+				"bookTitle", "Metrics",
+				"authors", "Ann Lee",
+				"publisher", "Pub",
+				"isbn", "978-0-3064-0615-7",
+				"yearPublished", 2001,
+				"price", 12.5);
+		assertEquals(HttpStatus.CREATED, restTemplate.postForEntity("/books/add-book:", book, String.class).getStatusCode());
+		restTemplate.getForEntity("/books/getBookByISBN:?isbn=978-0-3064-0615-7", String.class); // miss
+		restTemplate.getForEntity("/books/getBookByISBN:?isbn=978-0-3064-0615-7", String.class); // hit
+		restTemplate.getForEntity("/books/getBookByISBN:?isbn=978-0-8044-2957-3", String.class); // not found
+		restTemplate.getForEntity("/books/getAllBooks:", String.class);
+
+		ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertTrue(response.getHeaders().getContentType().toString().startsWith("text/plain"));
+		String metrics = response.getBody();
+
+		assertTrue(metrics.contains("http_server_requests_seconds_bucket{"), "request histograms");
+		assertTrue(metrics.contains("uri=\"/books/getBookByISBN:\""), "requests tagged by endpoint");
+		assertTrue(metrics.contains("books_service_seconds_bucket{"), "service histograms");
+		assertTrue(metrics.contains("method=\"getBookByISBN\""), "service timers tagged by method");
+		assertTrue(metrics.contains("spring_data_repository_invocations_seconds_bucket{"), "repository histograms");
+		assertTrue(metrics.contains("books_rows_returned_total{operation=\"getAllBooks\"} 1.0"), "rows returned");
+		assertTrue(metrics.contains("cache_gets_total{cache=\"books.isbn\",cache_manager=\"none\",result=\"hit\"}")
+				|| metrics.contains("cache_gets_total{cache=\"books.isbn\",result=\"hit\"}"), "cache hits");
+		assertTrue(metrics.contains("books_errors_total{exception=\"BookISBNNotFoundException\",status=\"400\"} 1.0"), "not found");
+		assertTrue(metrics.contains("books_catalog_size "), "catalog size");
+	}
+
+}
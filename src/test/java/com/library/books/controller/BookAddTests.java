@@ -0,0 +1,93 @@
+package com.library.books.controller;
+
+import com.library.books.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.library.books.utility.ISBNFormatter.formatISBN;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// adding books, a single one and a list with the books it could not add reported by their index in the request
+// every test adds its own books first, under ISBNs no other test uses
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookAddTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Test
+	void addBookIgnoresAnIdSentByTheClient() throws Exception {
+		mockMvc.perform(post("/books/add-book:").contentType(MediaType.APPLICATION_JSON).content(book(6100, "Kept", null)))
+				.andExpect(status().isCreated());
+		long id = bookRepository.findByIsbn(formatted(6100)).orElseThrow().getId();
+
+		// the id of the first book must not make the second one overwrite it
+		mockMvc.perform(post("/books/add-book:").contentType(MediaType.APPLICATION_JSON).content(book(6101, "Other", id)))
+				.andExpect(status().isCreated());
+		assertEquals("Kept 6100", bookRepository.findByIsbn(formatted(6100)).orElseThrow().getBookTitle());
+		assertNotEquals(id, bookRepository.findByIsbn(formatted(6101)).orElseThrow().getId());
+	}
+
+	@Test
+	void addBooksReportsEveryConflictByItsIndex() throws Exception {
+		mockMvc.perform(post("/books/add-book:").contentType(MediaType.APPLICATION_JSON).content(book(6200, "Stored", null)))
+				.andExpect(status().isCreated());
+
+		String payload = "[" + String.join(",",
+				book(6201, "Bulk", null), // added
+				book(6200, "Bulk", null), // already in the database
+				"""
+						{"bookTitle":"Bulk Invalid","authors":"Bulk Author","publisher":"Bulk Press","isbn":"12345","yearPublished":1999,"price":19.99}""",
+				book(6201, "Bulk", null), // twice in the request
+				book(6202, "Bulk", null)) + "]"; // added
+		mockMvc.perform(post("/books/add-books:").contentType(MediaType.APPLICATION_JSON).content(payload))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.added.length()").value(2))
+				.andExpect(jsonPath("$.added[0].isbn").value(formatted(6201)))
+				.andExpect(jsonPath("$.added[1].isbn").value(formatted(6202)))
+				.andExpect(jsonPath("$.conflicts.length()").value(3))
+				.andExpect(jsonPath("$.conflicts[0].index").value(1))
+				.andExpect(jsonPath("$.conflicts[0].isbn").value(formatted(6200)))
+				.andExpect(jsonPath("$.conflicts[0].reason").value(startsWith("Book with the following ISBN already exists")))
+				.andExpect(jsonPath("$.conflicts[1].index").value(2))
+				.andExpect(jsonPath("$.conflicts[1].isbn").value("12345"))
+				.andExpect(jsonPath("$.conflicts[1].reason").value(startsWith("Invalid ISBN!")))
+				.andExpect(jsonPath("$.conflicts[2].index").value(3))
+				.andExpect(jsonPath("$.conflicts[2].isbn").value(formatted(6201)))
+				.andExpect(jsonPath("$.conflicts[2].reason").value(startsWith("Book with the following ISBN appears more than once")));
+		assertEquals("Stored 6200", bookRepository.findByIsbn(formatted(6200)).orElseThrow().getBookTitle());
+	}
+
+	private static String book(int index, String title, Long id) {
+		return """
+				{%s"bookTitle":"%s %d","authors":"%s Author","publisher":"%s Press","isbn":"%s","yearPublished":1999,"price":19.99}"""
+				.formatted(id == null ? "" : "\"id\":" + id + ",", title, index, title, title, isbn(index));
+	}
+
+	private static String formatted(int index) {
+		return formatISBN(isbn(index));
+	}
+
+	// a valid ISBN-13 for the given index
+	private static String isbn(int index) {
+		String digits = String.format("978%09d", index);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.library.books.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// a client reloads the catalog with the export, then follows the changes from the sequence it was taken at
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BookChangeStreamTests {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void streamsCommittedChangesInOrderFromTheExportSequence() throws Exception {
+		ResponseEntity<String> export = restTemplate.getForEntity("/books/export:", String.class);
+		long sequence = Long.parseLong(export.getHeaders().getFirst(BookChangeStream.CHANGE_SEQUENCE_HEADER));
+
+		String isbn = "978-0-0003-0000-3";
+		assertEquals(HttpStatus.CREATED, restTemplate.postForEntity("/books/add-book:", book(isbn, "Streamed"), String.class).getStatusCode());
+		restTemplate.exchange("/books/update-book:isbn={isbn}", HttpMethod.PUT,
+				new HttpEntity<>(book(isbn, "Streamed again")), String.class, isbn);
+		restTemplate.delete("/books/delete-book:isbn={isbn}", isbn);
+
+		List<JsonNode> changes = new ArrayList<>();
+		List<String> ids = new ArrayList<>();
+		try (BufferedReader reader = open("/books/changes:?after=" + sequence, null)) {
+			String line;
+			while (changes.size() < 3 && (line = reader.readLine()) != null) {
+				if (line.startsWith("id:")) {
+					ids.add(line.substring(3));
+				} else if (line.startsWith("data:")) {
+					changes.add(objectMapper.readTree(line.substring(5)));
+				}
+			}
+		}
+		assertEquals(List.of("ADDED", "UPDATED", "DELETED"), changes.stream().map(change -> change.get("type").asText()).toList());
+		assertEquals("Streamed again", changes.get(1).get("book").get("bookTitle").asText());
+		assertEquals(List.of(sequence + 1, sequence + 2, sequence + 3), ids.stream().map(Long::parseLong).toList());
+	}
+
+	@Test
+	void unknownLastEventIdGetsAReset() throws Exception {
+		try (BufferedReader reader = open("/books/changes:", "999999999")) {
+			assertEquals("event:reset", reader.readLine());
+			assertTrue(reader.readLine().contains("\"snapshot\":\"/books/export:\""));
+		}
+	}
+
+	@Test
+	void negativeLastEventIdGetsAReset() throws Exception {
+		try (BufferedReader reader = open("/books/changes:", "-5")) {
+			assertEquals("event:reset", reader.readLine());
+			assertTrue(reader.readLine().contains("\"snapshot\":\"/books/export:\""));
+		}
+	}
+
+	private BufferedReader open(String path, String lastEventId) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+				.timeout(Duration.ofSeconds(10));
+		if (lastEventId != null) {
+			request.header("Last-Event-ID", lastEventId);
+		}
+		HttpResponse<java.io.InputStream> response = HttpClient.newHttpClient()
+				.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+		assertEquals(200, response.statusCode());
+		return new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+	}
+
+	private static Map<String, Object> book(String isbn, String title) {
+		return Map.of("bookTitle", title, "authors", "Ann Lee", "publisher", "Pub", "isbn", isbn, "yearPublished", 2001, "price", 12.5);
+	}
+
+}
@@ -0,0 +1,148 @@
+package com.library.books.controller;
+
+import com.library.books.service.cache.BookISBNCache;
+import com.library.books.support.QueryCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the ETag of a book: If-None-Match on a read answers 304 without reading the book, If-Match on an update answers 412
+// every test adds its own books first, under ISBNs no other test uses
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(QueryCounter.class)
+class BookConditionalRequestTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private QueryCounter queryCounter;
+
+	@Autowired
+	private BookISBNCache bookISBNCache;
+
+	@Test
+	void unchangedBookIsNotSentAgain() throws Exception {
+		String isbn = addBook(9200, "Tagged");
+		String tag = etag(isbn);
+
+		queryCounter.reset();
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn).header(HttpHeaders.IF_NONE_MATCH, tag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, tag));
+		queryCounter.assertStatements(0); // from the ISBN cache
+
+		bookISBNCache.invalidateAll(); // no transaction, dropped right away
+		queryCounter.reset();
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn).header(HttpHeaders.IF_NONE_MATCH, tag))
+				.andExpect(status().isNotModified());
+		queryCounter.assertStatements(1); // the id and version only, the book is not read
+	}
+
+	@Test
+	void changedBookIsSentWithItsNewTag() throws Exception {
+		String isbn = addBook(9201, "Tagged");
+		String tag = etag(isbn);
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn).contentType(MediaType.APPLICATION_JSON).content(book(9201, "Retagged")))
+				.andExpect(status().isAccepted());
+
+		String newTag = mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn).header(HttpHeaders.IF_NONE_MATCH, tag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookTitle").value("Retagged 9201"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotEquals(tag, newTag);
+		assertEquals(newTag, etag(isbn));
+	}
+
+	@Test
+	void eachEncodingHasItsOwnTag() throws Exception {
+		String isbn = addBook(9202, "Tagged");
+		String json = etag(isbn);
+		String cbor = mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn).accept(MediaType.APPLICATION_CBOR))
+				.andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotEquals(json, cbor);
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void updateWithAnOutdatedTagFails() throws Exception {
+		String isbn = addBook(9203, "Tagged");
+		String tag = etag(isbn);
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn).header(HttpHeaders.IF_MATCH, tag)
+						.contentType(MediaType.APPLICATION_JSON).content(book(9203, "First")))
+				.andExpect(status().isAccepted());
+
+		// a second client still holding the first tag
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn).header(HttpHeaders.IF_MATCH, tag)
+						.contentType(MediaType.APPLICATION_JSON).content(book(9203, "Second")))
+				.andExpect(status().isPreconditionFailed());
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn).header(HttpHeaders.IF_MATCH, "W/" + etag(isbn))
+						.contentType(MediaType.APPLICATION_JSON).content(book(9203, "Weak")))
+				.andExpect(status().isPreconditionFailed()); // a weak tag never matches
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn))
+				.andExpect(jsonPath("$.bookTitle").value("First 9203"));
+
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn).header(HttpHeaders.IF_MATCH, etag(isbn))
+						.contentType(MediaType.APPLICATION_JSON).content(book(9203, "Second")))
+				.andExpect(status().isAccepted());
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn).header(HttpHeaders.IF_MATCH, "*")
+						.contentType(MediaType.APPLICATION_JSON).content(book(9203, "Any")))
+				.andExpect(status().isAccepted());
+	}
+
+	@Test
+	void conditionsOnAMissingBookFail() throws Exception {
+		String isbn = isbn(9204);
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn).header(HttpHeaders.IF_NONE_MATCH, "\"any\""))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn).header(HttpHeaders.IF_MATCH, "*")
+						.contentType(MediaType.APPLICATION_JSON).content(book(9204, "Missing")))
+				.andExpect(status().isPreconditionFailed());
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn)
+						.contentType(MediaType.APPLICATION_JSON).content(book(9204, "Missing")))
+				.andExpect(status().isBadRequest());
+	}
+
+	private String etag(String isbn) throws Exception {
+		String tag = mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn))
+				.andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(tag);
+		return tag;
+	}
+
+	private String addBook(int index, String title) throws Exception {
+		mockMvc.perform(post("/books/add-book:").contentType(MediaType.APPLICATION_JSON).content(book(index, title)))
+				.andExpect(status().isCreated());
+		return isbn(index);
+	}
+
+	private static String book(int index, String title) {
+		return """
+				{"bookTitle":"%s %d","authors":"%s Author","publisher":"%s Press","isbn":"%s","yearPublished":1999,"price":19.99}"""
+				.formatted(title, index, title, title, isbn(index));
+	}
+
+	// a valid ISBN-13 for the given index
+	private static String isbn(int index) {
+		String digits = String.format("978%09d", index);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+
+}
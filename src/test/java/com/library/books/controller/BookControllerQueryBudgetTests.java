@@ -0,0 +1,207 @@
+package com.library.books.controller;
+
+import com.library.books.support.QueryCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the exact number of statements each endpoint sends to the database, so that an added N+1 or round trip fails the build
+// every test adds its own books first, under ISBNs no other test uses
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(QueryCounter.class)
+class BookControllerQueryBudgetTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private QueryCounter queryCounter;
+
+	@Test
+	void addBookChecksTheIsbnInsertsAndLinksTheAuthors() throws Exception {
+		queryCounter.reset();
+		mockMvc.perform(post("/books/add-book:").contentType(MediaType.APPLICATION_JSON).content(book(100, "Budget")))
+				.andExpect(status().isCreated());
+		queryCounter.assertStatements(4); // the ISBN check, the insert, then one batch of authors and one of author links
+	}
+
+	@Test
+	void addBooksTakesOneRoundTripPerStepWhateverTheCount() throws Exception {
+		queryCounter.reset();
+		addBooks(200, 30, "Bulk");
+		queryCounter.assertStatements(4); // the ISBNs already there, one insert batch, one author batch, one link batch
+	}
+
+	@Test
+	void getBookByIsbnReadsOnlyOnACacheMiss() throws Exception {
+		addBooks(300, 1, "Cached");
+		String isbn = isbn(300);
+		queryCounter.reset();
+		MvcResult result = mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn))
+				.andExpect(status().isOk()).andReturn(); // miss, a book is cached when it is first read
+		queryCounter.assertStatements(1);
+
+		queryCounter.reset();
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn))
+				.andExpect(status().isOk());
+		queryCounter.assertStatements(0);
+
+		queryCounter.reset();
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn)
+						.header(HttpHeaders.IF_NONE_MATCH, result.getResponse().getHeader(HttpHeaders.ETAG)))
+				.andExpect(status().isNotModified());
+		queryCounter.assertStatements(0);
+	}
+
+	@Test
+	void pagesAreOneQueryWhateverTheirSize() throws Exception {
+		addBooks(400, 25, "Paged");
+		String[][] requests = {
+				{"/books/getAllBooks:", "size", "25"},
+				{"/books/getAllBooksByAuthors:", "authors", "Paged Author"},
+				{"/books/getAllBooksByPublisher:", "publishers", "Paged Press"},
+				{"/books/getAllBooksByYearPublished:", "yearPublished", "1999"},
+				{"/books/getAllBooksByPrice:", "price", "19.99"},
+				{"/books/filter:", "publisher", "Paged Press"},
+				{"/books/filter:", "authors", "paged author"},
+				{"/books/search:", "q", "Paged"},
+		};
+		for (String[] request : requests) {
+			queryCounter.reset();
+			mockMvc.perform(get(request[0]).param(request[1], request[2]))
+					.andExpect(status().isOk());
+			queryCounter.assertStatements(1);
+		}
+	}
+
+	@Test
+	void unchangedCatalogIsAnsweredWithoutAQuery() throws Exception {
+		addBooks(500, 3, "Tagged");
+		MvcResult result = mockMvc.perform(get("/books/getAllBooks:"))
+				.andExpect(status().isOk()).andReturn();
+		queryCounter.reset();
+		mockMvc.perform(get("/books/getAllBooks:")
+						.header(HttpHeaders.IF_NONE_MATCH, result.getResponse().getHeader(HttpHeaders.ETAG)))
+				.andExpect(status().isNotModified());
+		queryCounter.assertStatements(0);
+	}
+
+	@Test
+	void getBookByTitleIsOneQuery() throws Exception {
+		addBooks(600, 1, "Titled");
+		queryCounter.reset();
+		mockMvc.perform(get("/books/getBookByBookTitle:").param("bookTitle", "Titled 600"))
+				.andExpect(status().isOk());
+		queryCounter.assertStatements(1);
+	}
+
+	@Test
+	void updateBookIsALockedReadOneStatementAndTheAuthorLinks() throws Exception {
+		addBooks(700, 1, "Updated");
+		queryCounter.reset();
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn(700))
+						.contentType(MediaType.APPLICATION_JSON).content(book(700, "Updated again")))
+				.andExpect(status().isAccepted());
+		queryCounter.assertStatements(5); // the book read and locked, the update, then the authors, the old links and the new links
+	}
+
+	@Test
+	void patchBooksIsOneBatchAndOneReadWhateverTheCount() throws Exception {
+		addBooks(800, 20, "Patched");
+		List<String> patches = new ArrayList<>();
+		for (int i = 800; i < 820; i++) {
+			patches.add("{\"isbn\":\"" + isbn(i) + "\",\"price\":9.5}");
+		}
+		queryCounter.reset();
+		mockMvc.perform(patch("/books/update-books:").contentType(MediaType.APPLICATION_JSON)
+						.content("[" + String.join(",", patches) + "]"))
+				.andExpect(status().isOk());
+		queryCounter.assertStatements(2); // the books read and locked, then the update batch
+	}
+
+	@Test
+	void deletesAreALockedReadOneStatementAndOneForTheAuthorLinks() throws Exception {
+		addBooks(900, 22, "Deleted");
+		queryCounter.reset();
+		mockMvc.perform(delete("/books/delete-book:isbn={isbn}", isbn(900)))
+				.andExpect(status().isOk());
+		queryCounter.assertStatements(3); // the book read and locked, the author links, then the book
+
+		List<String> isbns = new ArrayList<>();
+		for (int i = 901; i < 921; i++) {
+			isbns.add("\"" + isbn(i) + "\"");
+		}
+		queryCounter.reset();
+		mockMvc.perform(post("/books/delete-books:batch").contentType(MediaType.APPLICATION_JSON)
+						.content("[" + String.join(",", isbns) + "]"))
+				.andExpect(status().isOk());
+		queryCounter.assertStatements(3);
+
+		queryCounter.reset();
+		mockMvc.perform(delete("/books/delete-book:bookTitle={bookTitle}", "Deleted 921"))
+				.andExpect(status().isOk());
+		queryCounter.assertStatements(3);
+	}
+
+	@Test
+	void deleteAllIsOneStatementAndOneForTheAuthorLinks() throws Exception {
+		addBooks(1100, 5, "Cleared");
+		queryCounter.reset();
+		mockMvc.perform(delete("/books/delete-books:"))
+				.andExpect(status().isOk());
+		queryCounter.assertStatements(2); // the author links, then the books, in one transaction
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn(1100)))
+				.andExpect(status().isBadRequest()); // not found
+	}
+
+	@Test
+	void exportIsOneQuery() throws Exception {
+		addBooks(1000, 10, "Exported");
+		queryCounter.reset();
+		MvcResult result = mockMvc.perform(get("/books/export:"))
+				.andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+		queryCounter.assertStatements(1);
+	}
+
+	private void addBooks(int first, int count, String title) throws Exception {
+		List<String> books = new ArrayList<>();
+		for (int i = first; i < first + count; i++) {
+			books.add(book(i, title));
+		}
+		mockMvc.perform(post("/books/add-books:").contentType(MediaType.APPLICATION_JSON)
+						.content("[" + String.join(",", books) + "]"))
+				.andExpect(status().isCreated());
+	}
+
+	private static String book(int index, String title) {
+		return """
+				{"bookTitle":"%s %d","authors":"%s Author","publisher":"%s Press","isbn":"%s","yearPublished":1999,"price":19.99}"""
+				.formatted(title, index, title, title, isbn(index));
+	}
+
+	// a valid ISBN-13 for the given index
+	private static String isbn(int index) {
+		String digits = String.format("978%09d", index);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+
+}
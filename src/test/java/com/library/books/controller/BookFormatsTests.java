@@ -0,0 +1,204 @@
+package com.library.books.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.library.books.service.dto.BookDTO;
+import com.library.books.utility.BookColumns;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// every encoding of a page holds the same books, and add-books: reads each of them, compressed or not
+// in a database of its own, so that the pages hold only the books added here
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:formats",
+		"library.books.request-compression.max-inflated-size=1MB"})
+class BookFormatsTests {
+
+	private static final String COLUMNS = BookColumnsHttpMessageConverter.BOOK_COLUMNS_VALUE;
+
+	@LocalServerPort
+	private int port;
+
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+	private final ObjectMapper json = new ObjectMapper();
+
+	@Test
+	void addBooksReadsEveryFormat() throws Exception {
+		assertEquals(201, post(json(0, 100, "Format Press"), "application/json", false).statusCode());
+		assertEquals(201, post(new ObjectMapper(new CBORFactory()).writeValueAsBytes(books(100, 200, "Format Press")), "application/cbor", false).statusCode());
+		assertEquals(201, post(new ObjectMapper(new SmileFactory()).writeValueAsBytes(books(200, 300, "Format Press")), "application/x-jackson-smile", true).statusCode());
+		ByteArrayOutputStream columns = new ByteArrayOutputStream();
+		BookColumns.write(bookDTOs(300, 400, "Format Press"), columns);
+		assertEquals(201, post(columns.toByteArray(), COLUMNS, true).statusCode());
+
+		List<Map<String, Object>> expected = books(0, 400, "Format Press");
+		String path = "/books/getAllBooksByPublisher:?publishers=Format%20Press&size=1000";
+		HttpResponse<byte[]> page = get(path, "application/json", false);
+		assertEquals(expected, content(json, page.body()));
+		assertTrue(page.headers().allValues("Vary").stream().flatMap(vary -> Arrays.stream(vary.split(",")))
+				.anyMatch(header -> header.trim().equalsIgnoreCase("Accept"))); // joined with accept-encoding by Tomcat
+		assertEquals(expected, content(new ObjectMapper(new CBORFactory()), get(path, "application/cbor", false).body()));
+		assertEquals(expected, content(new ObjectMapper(new SmileFactory()), get(path, "application/x-jackson-smile", false).body()));
+		List<BookDTO> read = BookColumns.read(new ByteArrayInputStream(get(path, COLUMNS, false).body())).getContent();
+		assertEquals(expected, read.stream().map(BookFormatsTests::book).toList());
+	}
+
+	@Test
+	void largeResponsesAreCompressed() throws Exception {
+		post(json(1000, 1100, "Compressed Press"), "application/json", false);
+
+		HttpResponse<byte[]> page = get("/books/getAllBooksByPublisher:?publishers=Compressed%20Press&size=1000", COLUMNS, true);
+		assertEquals("gzip", page.headers().firstValue("Content-Encoding").orElse(null));
+		assertEquals(100, BookColumns.read(new GZIPInputStream(new ByteArrayInputStream(page.body()))).getContent().size());
+
+		HttpResponse<byte[]> book = get("/books/getBookByISBN:?isbn=" + isbn(1000), "application/json", true);
+		assertEquals(200, book.statusCode());
+		assertTrue(book.headers().firstValue("Content-Encoding").isEmpty()); // below min-response-size
+	}
+
+	@Test
+	void tagsTellTheEncodingsApart() throws Exception {
+		post(json(2000, 2100, "Tagged Press"), "application/json", false);
+
+		// one weak tag for every encoding of a page, which leaves Tomcat free to compress it
+		HttpResponse<byte[]> page = get("/books/getAllBooks:?size=1000", "application/json", true);
+		String pageTag = page.headers().firstValue("ETag").orElseThrow();
+		assertTrue(pageTag.startsWith("W/\""));
+		assertEquals("gzip", page.headers().firstValue("Content-Encoding").orElse(null));
+		assertEquals(304, get("/books/getAllBooks:?size=1000", COLUMNS, false, "If-None-Match", pageTag).statusCode());
+
+		// a strong tag for each encoding of a book, any of them is a valid If-Match
+		String path = "/books/getBookByISBN:?isbn=" + isbn(2000);
+		String jsonTag = get(path, "application/json", false).headers().firstValue("ETag").orElseThrow();
+		String cborTag = get(path, "application/cbor", false).headers().firstValue("ETag").orElseThrow();
+		assertFalse(jsonTag.startsWith("W/"));
+		assertNotEquals(jsonTag, cborTag);
+		assertEquals(304, get(path, "application/json", false, "If-None-Match", jsonTag).statusCode());
+		assertEquals(200, get(path, "application/cbor", false, "If-None-Match", jsonTag).statusCode());
+		HttpResponse<String> update = httpClient.send(HttpRequest.newBuilder(uri("/books/update-book:isbn=" + isbn(2000)))
+				.header("Content-Type", "application/json").header("If-Match", cborTag)
+				.PUT(HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(books(2000, 2001, "Tagged Press").getFirst()))).build(),
+				HttpResponse.BodyHandlers.ofString());
+		assertEquals(202, update.statusCode());
+	}
+
+	@Test
+	void refusesWhatCannotBeRead() throws Exception {
+		// 2 MB of white space around an empty list, a few kilobytes once compressed
+		byte[] bomb = ("[" + " ".repeat(2 * 1024 * 1024) + "]").getBytes();
+		assertEquals(413, post(bomb, "application/json", true).statusCode());
+		ByteArrayOutputStream columns = new ByteArrayOutputStream();
+		BookDTO book = bookDTOs(0, 1, "Format Press").getFirst();
+		book.setBookTitle(" ".repeat(2 * 1024 * 1024));
+		BookColumns.write(List.of(book), columns);
+		assertEquals(413, post(columns.toByteArray(), COLUMNS, true).statusCode());
+
+		HttpResponse<byte[]> brotli = httpClient.send(HttpRequest.newBuilder(uri("/books/add-books:"))
+				.header("Content-Type", "application/json").header("Content-Encoding", "br")
+				.POST(HttpRequest.BodyPublishers.ofString("[]")).build(), HttpResponse.BodyHandlers.ofByteArray());
+		assertEquals(415, brotli.statusCode());
+		assertEquals("gzip", brotli.headers().firstValue("Accept-Encoding").orElse(null));
+
+		assertEquals(400, post("not columns".getBytes(), COLUMNS, false).statusCode());
+		assertEquals(406, get("/books/getBookByISBN:?isbn=" + isbn(1), COLUMNS, false).statusCode()); // only pages are columns
+	}
+
+	private HttpResponse<byte[]> post(byte[] body, String contentType, boolean gzip) throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(uri("/books/add-books:"))
+				.header("Content-Type", contentType)
+				.header("Accept", "application/json");
+		if (gzip) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			try (OutputStream out = new GZIPOutputStream(compressed)) {
+				out.write(body);
+			}
+			body = compressed.toByteArray();
+			request.header("Content-Encoding", "gzip");
+		}
+		return httpClient.send(request.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build(), HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	private HttpResponse<byte[]> get(String path, String accept, boolean gzip, String... headers) throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).header("Accept", accept);
+		if (headers.length > 0) {
+			request.headers(headers);
+		}
+		if (gzip) {
+			request.header("Accept-Encoding", "gzip");
+		}
+		return httpClient.send(request.GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private byte[] json(int from, int to, String publisher) throws IOException {
+		return json.writeValueAsBytes(books(from, to, publisher));
+	}
+
+	// the books of a page, without their links, which the columns do not hold
+	private static List<Map<String, Object>> content(ObjectMapper objectMapper, byte[] page) throws IOException {
+		List<Map<String, Object>> books = objectMapper.convertValue(objectMapper.readTree(page).get("content"), new TypeReference<>() {});
+		books.forEach(book -> book.remove("links"));
+		return books;
+	}
+
+	// the books as the pages hold them, in ISBN order
+	private static List<Map<String, Object>> books(int from, int to, String publisher) {
+		return bookDTOs(from, to, publisher).stream().map(BookFormatsTests::book).toList();
+	}
+
+	private static List<BookDTO> bookDTOs(int from, int to, String publisher) {
+		List<BookDTO> books = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			BookDTO book = new BookDTO();
+			book.setBookTitle("Format " + i);
+			book.setAuthors("Format Author " + i % 5);
+			book.setPublisher(publisher);
+			book.setIsbn(isbn(i));
+			book.setYearPublished(1950 + i % 70);
+			book.setPrice(5.25 + i % 30);
+			books.add(book);
+		}
+		return books;
+	}
+
+	private static Map<String, Object> book(BookDTO book) {
+		return Map.of("bookTitle", book.getBookTitle(), "authors", book.getAuthors(), "publisher", book.getPublisher(),
+				"isbn", book.getIsbn(), "yearPublished", book.getYearPublished(), "price", book.getPrice());
+	}
+
+	// a valid ISBN-13 for the given index, with the dashes the service formats it with
+	private static String isbn(int index) {
+		String digits = String.format("978%09d", 50_000 + index);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		digits += (10 - sum % 10) % 10;
+		return digits.substring(0, 3) + "-" + digits.charAt(3) + "-" + digits.substring(4, 8)
+				+ "-" + digits.substring(8, 12) + "-" + digits.charAt(12);
+	}
+
+}
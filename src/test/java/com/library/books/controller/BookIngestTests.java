@@ -0,0 +1,106 @@
+package com.library.books.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// books posted to the asynchronous add-book endpoint are queued, then added in batches by the worker
+@SpringBootTest(properties = "library.books.ingest.max-delay=200ms")
+@AutoConfigureMockMvc
+class BookIngestTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void queuedBooksAreAddedInBatchesAndDuplicatesRejected() throws Exception {
+		mockMvc.perform(post("/books/add-book:").contentType(MediaType.APPLICATION_JSON).content(book(20_000)))
+				.andExpect(status().isCreated());
+
+		List<String> tickets = new ArrayList<>();
+		for (int i = 20_001; i <= 20_030; i++) {
+			tickets.add(submit(book(i)));
+		}
+		String repeated = submit(book(20_005)); // repeats an ISBN queued before it
+		String existing = submit(book(20_000)); // already in the catalog
+		String invalid = submit(book(20_031).replace(isbn(20_031), "123"));
+
+		int largestBatch = 0;
+		for (String ticket : tickets) {
+			JsonNode status = awaitOutcome(ticket);
+			assertEquals("ADDED", status.get("state").asText(), status.toString());
+			largestBatch = Math.max(largestBatch, status.get("batchSize").asInt());
+		}
+		assertTrue(largestBatch > 1, "queued books are coalesced, largest batch " + largestBatch);
+		assertEquals("REJECTED", awaitOutcome(repeated).get("state").asText());
+		assertEquals("REJECTED", awaitOutcome(existing).get("state").asText());
+		assertEquals("REJECTED", awaitOutcome(invalid).get("state").asText());
+
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn(20_030)))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void unknownTicketIsABadRequest() throws Exception {
+		mockMvc.perform(get("/books/ingest-status:").param("ticket", "no-such-ticket"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private String submit(String book) throws Exception {
+		MvcResult result = mockMvc.perform(post("/books/add-book:async").contentType(MediaType.APPLICATION_JSON).content(book))
+				.andExpect(status().isAccepted())
+				.andReturn();
+		JsonNode ticket = objectMapper.readTree(result.getResponse().getContentAsString());
+		assertTrue(result.getResponse().getHeader(HttpHeaders.LOCATION).endsWith("/books/ingest-status:?ticket=" + ticket.get("ticket").asText()));
+		return ticket.get("ticket").asText();
+	}
+
+	// poll the ticket until the worker has handled its book
+	private JsonNode awaitOutcome(String ticket) throws Exception {
+		long deadline = System.nanoTime() + 10_000_000_000L;
+		while (true) {
+			JsonNode status = objectMapper.readTree(mockMvc.perform(get("/books/ingest-status:").param("ticket", ticket))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString());
+			if (!status.get("state").asText().equals("QUEUED") || System.nanoTime() > deadline) {
+				return status;
+			}
+			Thread.sleep(20);
+		}
+	}
+
+	private static String book(int index) {
+		return """
+				{"bookTitle":"Ingested %d","authors":"Ingest Author","publisher":"Ingest Press","isbn":"%s","yearPublished":2020,"price":5.5}"""
+				.formatted(index, isbn(index));
+	}
+
+	// a valid ISBN-13 for the given index
+	private static String isbn(int index) {
+		String digits = String.format("978%09d", index);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+
+}
@@ -0,0 +1,156 @@
+package com.library.books.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static com.library.books.utility.ISBNFormatter.formatISBN;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// scrolling a list with the cursor of each page gives the same books as offset paging, each one once
+// every test lists the books of its own publisher, so the books of the other tests are not in its pages
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookKeysetPagingTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void cursorsWalkTheSameBooksAsOffsetPaging() throws Exception {
+		addBooks(7000, 11, "Walked");
+
+		List<String> offset = new ArrayList<>();
+		for (int page = 0; ; page++) {
+			JsonNode result = read(get("/books/getAllBooksByPublisher:").param("publishers", "Walked Press")
+					.param("page", String.valueOf(page)).param("size", "4"));
+			offset.addAll(isbns(result));
+			if (!result.get("hasNext").asBoolean()) {
+				break;
+			}
+		}
+
+		List<String> keyset = new ArrayList<>();
+		String cursor = null;
+		do {
+			MockHttpServletRequestBuilder request = get("/books/getAllBooksByPublisher:").param("publishers", "Walked Press").param("size", "4");
+			JsonNode result = read(cursor == null ? request : request.param("cursor", cursor));
+			keyset.addAll(isbns(result));
+			cursor = result.get("nextCursor").isNull() ? null : result.get("nextCursor").asText();
+			assertEquals(result.get("hasNext").asBoolean(), cursor != null);
+		} while (cursor != null);
+
+		assertEquals(11, offset.size());
+		assertEquals(offset, keyset);
+	}
+
+	@Test
+	void booksAddedBetweenPagesAreNeitherSkippedNorRepeated() throws Exception {
+		addBooks(7100, 6, "Growing");
+		List<String> keyset = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			MockHttpServletRequestBuilder request = get("/books/getAllBooksByPublisher:").param("publishers", "Growing Press").param("size", "4");
+			JsonNode result = read(cursor == null ? request : request.param("cursor", cursor));
+			keyset.addAll(isbns(result));
+			cursor = result.get("nextCursor").isNull() ? null : result.get("nextCursor").asText();
+			if (++pages == 1) {
+				addBooks(7106, 3, "Growing"); // after the first page, behind the cursor
+			}
+		} while (cursor != null);
+
+		List<String> expected = new ArrayList<>();
+		for (int i = 7100; i < 7109; i++) {
+			expected.add(formatISBN(isbn(i)));
+		}
+		assertEquals(expected, keyset); // in id order, each one once
+	}
+
+	@Test
+	void onlyAFilterSortedByIdHasACursor() throws Exception {
+		addBooks(7300, 5, "Sorted");
+		List<String> keyset = new ArrayList<>();
+		List<String> cursors = new ArrayList<>();
+		String cursor = null;
+		do {
+			MockHttpServletRequestBuilder request = get("/books/filter:").param("publisher", "Sorted Press").param("size", "2");
+			JsonNode result = read(cursor == null ? request : request.param("cursor", cursor));
+			keyset.addAll(isbns(result));
+			cursor = result.get("nextCursor").isNull() ? null : result.get("nextCursor").asText();
+			cursors.add(cursor);
+		} while (cursor != null);
+		assertEquals(5, keyset.size());
+		assertEquals(3, cursors.size()); // pages of 2, 2 and 1 books, the last one without a cursor
+
+		for (String sort : List.of("price,desc", "yearPublished", "id,desc")) {
+			JsonNode result = read(get("/books/filter:").param("publisher", "Sorted Press").param("size", "2").param("sort", sort));
+			assertTrue(result.get("hasNext").asBoolean());
+			assertTrue(result.get("nextCursor").isNull(), sort);
+			mockMvc.perform(get("/books/filter:").param("publisher", "Sorted Press").param("sort", sort)
+							.param("cursor", cursors.getFirst()))
+					.andExpect(status().isBadRequest());
+		}
+	}
+
+	@Test
+	void invalidOrTamperedCursorsAreRejected() throws Exception {
+		addBooks(7200, 2, "Rejected");
+		String notBase64 = "not a cursor!";
+		String notAnId = Base64.getUrlEncoder().withoutPadding().encodeToString("7200 or 1=1".getBytes(StandardCharsets.US_ASCII));
+		for (String cursor : List.of(notBase64, notAnId)) {
+			mockMvc.perform(get("/books/getAllBooksByPublisher:").param("publishers", "Rejected Press").param("cursor", cursor))
+					.andExpect(status().isBadRequest());
+		}
+	}
+
+	private JsonNode read(MockHttpServletRequestBuilder request) throws Exception {
+		String body = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private static List<String> isbns(JsonNode page) {
+		List<String> isbns = new ArrayList<>();
+		page.get("content").forEach(book -> isbns.add(book.get("isbn").asText()));
+		return isbns;
+	}
+
+	private void addBooks(int first, int count, String title) throws Exception {
+		List<String> books = new ArrayList<>();
+		for (int i = first; i < first + count; i++) {
+			books.add("""
+					{"bookTitle":"%s %d","authors":"%s Author","publisher":"%s Press","isbn":"%s","yearPublished":1999,"price":19.99}"""
+					.formatted(title, i, title, title, isbn(i)));
+		}
+		mockMvc.perform(post("/books/add-books:").contentType(MediaType.APPLICATION_JSON)
+						.content("[" + String.join(",", books) + "]"))
+				.andExpect(status().isCreated());
+	}
+
+	// a valid ISBN-13 for the given index
+	private static String isbn(int index) {
+		String digits = String.format("978%09d", index);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+
+}
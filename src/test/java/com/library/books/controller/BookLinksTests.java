@@ -0,0 +1,130 @@
+package com.library.books.controller;
+
+import com.library.books.service.dto.BookDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the links filled in from the templates are the links WebMvcLinkBuilder resolves for every book
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookLinksTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BookLinks bookLinks;
+
+	@AfterEach
+	void unbindRequest() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void templatesExpandToTheLinksOfTheLinkBuilder() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/library/books/getAllBooks:");
+		request.setScheme("https");
+		request.setServerName("books.example.org");
+		request.setServerPort(8443);
+		request.setContextPath("/library");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+		List<BookDTO> books = List.of(
+				bookDTO("978-0-3064-0615-7", "Plain Title", "Ann Lee", "North Press", 1999, 19.99),
+				bookDTO("979-1-0000-0000-8", "C++ & Java: 100% / Ünïcode?", "O'Brien, Pat; Lee & Co", "A+B #1 Press", -44, 0.5),
+				bookDTO("978-0-8044-2957-3", "Spaces  and\ttabs", "Zoë", "Ed. = 2", 2024, 1234567.891));
+		bookLinks.addLinks(books);
+
+		for (BookDTO book : books) {
+			List<Link> expected = linkBuilderLinks(book);
+			List<Link> actual = book.getLinks().toList();
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i).getRel(), actual.get(i).getRel());
+				assertEquals(expected.get(i).getHref(), actual.get(i).getHref(), expected.get(i).getRel().value());
+			}
+			assertTrue(actual.getFirst().getHref().startsWith("https://books.example.org:8443/library/books/"));
+		}
+	}
+
+	@Test
+	void compactModeSendsTheTemplatesOnce() throws Exception {
+		String book = """
+				{"bookTitle":"Compact Links","authors":"Ann Lee","publisher":"North Press","isbn":"%s","yearPublished":1999,"price":19.99}""";
+		mockMvc.perform(post("/library/books/add-book:").contextPath("/library")
+						.header(BookLinks.LINK_MODE_HEADER, BookLinks.COMPACT_LINK_MODE)
+						.contentType(MediaType.APPLICATION_JSON).content(book.formatted(isbn(9100))))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$._links.self.href").value("http://localhost/library/books/getAllBooks:{?page,size,cursor}"))
+				.andExpect(jsonPath("$._links['delete-book:isbn='].href").value("http://localhost/library/books/delete-book:isbn={isbn}"))
+				.andExpect(jsonPath("$._links['delete-book:isbn='].templated").value(true))
+				.andExpect(jsonPath("$._links['getBookByISBN:'].href").value("http://localhost/library/books/getBookByISBN:?isbn={isbn}"))
+				.andExpect(jsonPath("$._links['getAllBooksByPrice:'].href").value(containsString("/library/books/getAllBooksByPrice:?price={price}")));
+
+		mockMvc.perform(post("/books/add-books:")
+						.header(BookLinks.LINK_MODE_HEADER, "COMPACT")
+						.contentType(MediaType.APPLICATION_JSON).content("[" + book.formatted(isbn(9101)) + "]"))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$._links['update-book:isbn='].href").value("http://localhost/books/update-book:isbn={isbn}"))
+				.andExpect(jsonPath("$.added[0]._links").doesNotExist()); // not repeated for every book
+	}
+
+	// the links as they were built before the templates, one WebMvcLinkBuilder resolution per link
+	private static List<Link> linkBuilderLinks(BookDTO bookDTO) {
+		return List.of(
+				linkTo(methodOn(BookController.class).getAllBooks(null, null, null, null)).withSelfRel(),
+				linkTo(methodOn(BookController.class).addBook(null, null, null)).withRel("add-book:"),
+				linkTo(methodOn(BookController.class).addAllBooks(List.of(), null, null)).withRel("add-books:"),
+				linkTo(methodOn(BookController.class).deleteBookByISBN(bookDTO.getIsbn())).withRel("delete-book:isbn="),
+				linkTo(methodOn(BookController.class).deleteBookByBookTitle(bookDTO.getBookTitle())).withRel("delete-book:bookTitle="),
+				linkTo(methodOn(BookController.class).deleteAllBooks()).withRel("delete-books:"),
+				linkTo(methodOn(BookController.class).updateBook(bookDTO.getIsbn(), null, null)).withRel("update-book:isbn="),
+				linkTo(methodOn(BookController.class).getBookByISBN(bookDTO.getIsbn(), null)).withRel("getBookByISBN:"),
+				linkTo(methodOn(BookController.class).getAllBooksByAuthors(bookDTO.getAuthors(), null, null, null)).withRel("getAllBooksByAuthors:"),
+				linkTo(methodOn(BookController.class).getBookByBookTitle(bookDTO.getBookTitle())).withRel("getAllBookByBookTitle:"),
+				linkTo(methodOn(BookController.class).getBookByPublisher(bookDTO.getPublisher(), null, null, null)).withRel("getAllBooksByPublisher:"),
+				linkTo(methodOn(BookController.class).getBookByYearPublished(bookDTO.getYearPublished(), null, null, null)).withRel("getAllBooksByYearPublished:"),
+				linkTo(methodOn(BookController.class).getBookByPrice(bookDTO.getPrice(), null, null, null)).withRel("getAllBooksByPrice:"));
+	}
+
+	private static BookDTO bookDTO(String isbn, String bookTitle, String authors, String publisher, int yearPublished, double price) {
+		BookDTO bookDTO = new BookDTO();
+		bookDTO.setIsbn(isbn);
+		bookDTO.setBookTitle(bookTitle);
+		bookDTO.setAuthors(authors);
+		bookDTO.setPublisher(publisher);
+		bookDTO.setYearPublished(yearPublished);
+		bookDTO.setPrice(price);
+		return bookDTO;
+	}
+
+	// a valid ISBN-13 for the given index
+	private static String isbn(int index) {
+		String digits = String.format("978%09d", index);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+
+}
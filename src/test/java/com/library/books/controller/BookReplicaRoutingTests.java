@@ -0,0 +1,205 @@
+package com.library.books.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.books.config.ReplicaRoutingConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.library.books.utility.ISBNFormatter.formatISBN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the replicas profile with two replicas, each an in-memory H2 database created from schema.sql that nothing replicates to:
+// a book found on a replica was put there by the test, and a book written through the service is only on the primary
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:replication-primary",
+		"library.books.replication.replicas[0].url=" + BookReplicaRoutingTests.REPLICA_1,
+		"library.books.replication.replicas[1].url=" + BookReplicaRoutingTests.REPLICA_2})
+@ActiveProfiles("replicas")
+@AutoConfigureMockMvc
+class BookReplicaRoutingTests {
+
+	static final String PRIMARY = "jdbc:h2:mem:replication-primary";
+	static final String REPLICA_1 = "jdbc:h2:mem:replication-replica-1;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:schema.sql'";
+	static final String REPLICA_2 = "jdbc:h2:mem:replication-replica-2;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:schema.sql'";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void readsAreSpreadOverTheReplicas() throws Exception {
+		insert(REPLICA_1, 1, "On replica 1", "Replicated", isbn(60_000));
+		insert(REPLICA_2, 1, "On replica 2", "Replicated", isbn(60_001));
+
+		Set<String> titles = new HashSet<>();
+		for (int i = 0; i < 2; i++) {
+			JsonNode content = objectMapper.readTree(mockMvc.perform(get("/books/getAllBooksByPublisher:").param("publishers", "Replicated"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString()).get("content");
+			assertEquals(1, content.size());
+			titles.add(content.get(0).get("bookTitle").asText());
+		}
+		assertEquals(Set.of("On replica 1", "On replica 2"), titles);
+		assertEquals(0, count(PRIMARY, "Replicated"));
+	}
+
+	@Test
+	void writesGoToThePrimaryAndAreReadBackOnRequest() throws Exception {
+		mockMvc.perform(post("/books/add-book:").contentType(MediaType.APPLICATION_JSON).content("""
+						{"bookTitle":"Written","authors":"Replica Author","publisher":"Written Press","isbn":"%s","yearPublished":2024,"price":20}"""
+						.formatted(isbn(60_010))))
+				.andExpect(status().isCreated());
+		assertEquals(1, count(PRIMARY, "Written Press"));
+		assertEquals(0, count(REPLICA_1, "Written Press"));
+		assertEquals(0, count(REPLICA_2, "Written Press"));
+
+		// the replicas have not seen the write, the publisher is not found
+		mockMvc.perform(get("/books/getAllBooksByPublisher:").param("publishers", "Written Press"))
+				.andExpect(status().isBadRequest());
+		MvcResult result = mockMvc.perform(get("/books/getAllBooksByPublisher:").param("publishers", "Written Press")
+						.header(ReplicaRoutingConfiguration.READ_YOUR_WRITES_HEADER, "true"))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertTrue(result.getResponse().getContentAsString().contains("\"bookTitle\":\"Written\""));
+		assertTrue(result.getResponse().getHeaders(HttpHeaders.VARY).contains(ReplicaRoutingConfiguration.READ_YOUR_WRITES_HEADER));
+
+		// the export reads the primary either way
+		MvcResult export = mockMvc.perform(get("/books/export:")).andReturn();
+		String lines = mockMvc.perform(asyncDispatch(export)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		assertTrue(lines.contains("\"bookTitle\":\"Written\""));
+	}
+
+	@Test
+	void pagesAreReadFromTheReplicasAndTaggedByTheirBooks() throws Exception {
+		insert(REPLICA_1, 2, "Listed on replica 1", "Listed", isbn(60_020));
+		insert(REPLICA_2, 4, "Listed on replica 2", "Listed", isbn(60_021)); // another id, as a replica only differs by the writes it has not seen
+		mockMvc.perform(post("/books/add-book:").contentType(MediaType.APPLICATION_JSON).content("""
+						{"bookTitle":"Tagged","authors":"Replica Author","publisher":"Tagged Press","isbn":"%s","yearPublished":2024,"price":20}"""
+						.formatted(isbn(60_022))))
+				.andExpect(status().isCreated());
+
+		// the replicas take turns, each sends its own books under a tag of its own
+		Set<String> titles = new HashSet<>();
+		Set<String> tags = new HashSet<>();
+		for (int i = 0; i < 2; i++) {
+			MvcResult page = mockMvc.perform(get("/books/getAllBooks:").param("size", "1000"))
+					.andExpect(status().isOk())
+					.andReturn();
+			String content = page.getResponse().getContentAsString();
+			assertFalse(content.contains("\"bookTitle\":\"Tagged\""));
+			titles.add(objectMapper.readTree(content).get("content").get(0).get("bookTitle").asText());
+			tags.add(page.getResponse().getHeader(HttpHeaders.ETAG));
+		}
+		assertEquals(Set.of("Listed on replica 1", "Listed on replica 2"), titles);
+		assertEquals(2, tags.size());
+		assertTrue(tags.stream().allMatch(tag -> tag.startsWith("W/\"")));
+
+		// a tag matches the page of its replica only
+		String tag = tags.iterator().next();
+		Set<Integer> statuses = new HashSet<>();
+		for (int i = 0; i < 2; i++) {
+			statuses.add(mockMvc.perform(get("/books/getAllBooks:").param("size", "1000").header(HttpHeaders.IF_NONE_MATCH, tag))
+					.andReturn().getResponse().getStatus());
+		}
+		assertEquals(Set.of(200, 304), statuses);
+
+		// from the primary, the page is tagged by the commit counter and answered with 304 before it is read
+		MvcResult primaryPage = mockMvc.perform(get("/books/getAllBooks:").param("size", "1000")
+						.header(ReplicaRoutingConfiguration.READ_YOUR_WRITES_HEADER, "true"))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertTrue(primaryPage.getResponse().getContentAsString().contains("\"bookTitle\":\"Tagged\""));
+		mockMvc.perform(get("/books/getAllBooks:").param("size", "1000")
+						.header(ReplicaRoutingConfiguration.READ_YOUR_WRITES_HEADER, "true")
+						.header(HttpHeaders.IF_NONE_MATCH, primaryPage.getResponse().getHeader(HttpHeaders.ETAG)))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void booksByIsbnAreReadFromTheReplicasUnlessJustWritten() throws Exception {
+		insert(REPLICA_1, 3, "Looked up", "Looked Up", formatISBN(isbn(60_030))); // stored formatted, as the service stores it
+		insert(REPLICA_2, 3, "Looked up", "Looked Up", formatISBN(isbn(60_030)));
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn(60_030)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookTitle").value("Looked up"));
+		assertEquals(0, count(PRIMARY, "Looked Up"));
+
+		// added on the primary only: not found on the replicas, unless the request reads its writes
+		mockMvc.perform(post("/books/add-book:").contentType(MediaType.APPLICATION_JSON).content("""
+						{"bookTitle":"Just added","authors":"Replica Author","publisher":"Just Press","isbn":"%s","yearPublished":2024,"price":20}"""
+						.formatted(isbn(60_031))))
+				.andExpect(status().isCreated());
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn(60_031)))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn(60_031))
+						.header(ReplicaRoutingConfiguration.READ_YOUR_WRITES_HEADER, "true"))
+				.andExpect(jsonPath("$.bookTitle").value("Just added"));
+
+		// updated on the primary: read from it while the replicas may still hold the book as it was
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn(60_031)).contentType(MediaType.APPLICATION_JSON).content("""
+						{"bookTitle":"Just updated","authors":"Replica Author","publisher":"Just Press","yearPublished":2024,"price":20}"""))
+				.andExpect(status().isAccepted());
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn(60_031)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookTitle").value("Just updated"));
+	}
+
+	private static void insert(String url, long id, String title, String publisher, String isbn) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url, "admin", "");
+			 PreparedStatement statement = connection.prepareStatement(
+					 "INSERT INTO book (id, book_title, authors, publisher, isbn, year_published, price) VALUES (?, ?, 'Replica Author', ?, ?, 2020, 10)")) {
+			statement.setLong(1, id);
+			statement.setString(2, title);
+			statement.setString(3, publisher);
+			statement.setString(4, isbn);
+			statement.executeUpdate();
+		}
+	}
+
+	private static int count(String url, String publisher) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url, "admin", "");
+			 PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM book WHERE publisher = ?")) {
+			statement.setString(1, publisher);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				resultSet.next();
+				return resultSet.getInt(1);
+			}
+		}
+	}
+
+	// a valid ISBN-13 for the given index
+	private static String isbn(int index) {
+		String digits = String.format("978%09d", index);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+}
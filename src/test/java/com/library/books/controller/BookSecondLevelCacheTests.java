@@ -0,0 +1,136 @@
+package com.library.books.controller;
+
+import com.library.books.repository.BookRepository;
+import com.library.books.support.QueryCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.library.books.utility.ISBNFormatter.formatISBN;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// with the second-level cache on, the writes made around Hibernate (JDBC batches, bulk JPQL) evict what they change
+// every test adds its own books first, under ISBNs and publishers no other test uses
+@SpringBootTest(properties = "library.books.second-level-cache.enabled=true")
+@AutoConfigureMockMvc
+@Import(QueryCounter.class)
+class BookSecondLevelCacheTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private QueryCounter queryCounter;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Test
+	void patchedBooksAreNotServedFromTheCache() throws Exception {
+		addBook(9300, "Cached Patched");
+		long id = bookRepository.findByIsbn(formatISBN(isbn(9300))).orElseThrow().getId();
+		assertCached(() -> mockMvc.perform(get("/books/getAllBooksByPublisher:").param("publishers", "Cached Patched Press"))
+				.andExpect(jsonPath("$.content[0].price").value(19.99)));
+		assertCached(() -> assertEquals(19.99, bookRepository.findById(id).orElseThrow().getPrice()));
+
+		mockMvc.perform(patch("/books/update-books:").contentType(MediaType.APPLICATION_JSON)
+						.content("[{\"isbn\":\"%s\",\"price\":5.0}]".formatted(isbn(9300))))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/books/getAllBooksByPublisher:").param("publishers", "Cached Patched Press"))
+				.andExpect(jsonPath("$.content[0].price").value(5.0));
+		assertEquals(5.0, bookRepository.findById(id).orElseThrow().getPrice());
+	}
+
+	@Test
+	void updatedAndRelinkedBooksAreNotServedFromTheCache() throws Exception {
+		addBook(9301, "Cached Relinked");
+		long id = bookRepository.findByIsbn(formatISBN(isbn(9301))).orElseThrow().getId();
+		assertCached(() -> mockMvc.perform(get("/books/getBookByBookTitle:").param("bookTitle", "Cached Relinked 9301"))
+				.andExpect(status().isOk()));
+		assertCached(() -> mockMvc.perform(get("/books/getAllBooksByYearPublished:").param("yearPublished", "1999"))
+				.andExpect(status().isOk()));
+		assertCached(() -> assertEquals("Cached Relinked Author", bookRepository.findById(id).orElseThrow().getAuthors()));
+
+		// the book row is written with a bulk JPQL update, its author links with JDBC batches
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn(9301)).contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"bookTitle":"Cached Renamed 9301","authors":"Cached Other Author","publisher":"Cached Relinked Press","yearPublished":1888,"price":19.99}"""))
+				.andExpect(status().isAccepted());
+
+		mockMvc.perform(get("/books/getBookByBookTitle:").param("bookTitle", "Cached Relinked 9301"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/books/getBookByBookTitle:").param("bookTitle", "Cached Renamed 9301"))
+				.andExpect(jsonPath("$.authors").value("Cached Other Author"));
+		mockMvc.perform(get("/books/getAllBooksByYearPublished:").param("yearPublished", "1888"))
+				.andExpect(jsonPath("$.content[0].isbn").value(formatISBN(isbn(9301))));
+		mockMvc.perform(get("/books/getAllBooksByAuthors:").param("authors", "Cached Relinked Author"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/books/getAllBooksByAuthors:").param("authors", "Cached Other Author"))
+				.andExpect(jsonPath("$.content[0].bookTitle").value("Cached Renamed 9301"));
+		assertEquals("Cached Other Author", bookRepository.findById(id).orElseThrow().getAuthors());
+	}
+
+	@Test
+	void deletedBooksAreNotServedFromTheCache() throws Exception {
+		addBook(9302, "Cached Deleted");
+		addBook(9303, "Cached Deleted");
+		long id = bookRepository.findByIsbn(formatISBN(isbn(9302))).orElseThrow().getId();
+		assertCached(() -> mockMvc.perform(get("/books/getAllBooksByPublisher:").param("publishers", "Cached Deleted Press"))
+				.andExpect(jsonPath("$.content.length()").value(2)));
+		assertCached(() -> mockMvc.perform(get("/books/getBookByBookTitle:").param("bookTitle", "Cached Deleted 9303"))
+				.andExpect(status().isOk()));
+		assertCached(() -> assertTrue(bookRepository.findById(id).isPresent()));
+
+		mockMvc.perform(post("/books/delete-books:batch").contentType(MediaType.APPLICATION_JSON)
+						.content("[\"%s\"]".formatted(isbn(9302))))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/books/getAllBooksByPublisher:").param("publishers", "Cached Deleted Press"))
+				.andExpect(jsonPath("$.content.length()").value(1));
+		assertFalse(bookRepository.findById(id).isPresent());
+
+		mockMvc.perform(delete("/books/delete-book:bookTitle={bookTitle}", "Cached Deleted 9303"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/books/getBookByBookTitle:").param("bookTitle", "Cached Deleted 9303"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/books/getAllBooksByPublisher:").param("publishers", "Cached Deleted Press"))
+				.andExpect(status().isBadRequest());
+	}
+
+	// the read goes to the database once, then is served from the cache without any statement
+	private void assertCached(CheckedRunnable read) throws Exception {
+		read.run();
+		queryCounter.reset();
+		read.run();
+		queryCounter.assertStatements(0);
+	}
+
+	private interface CheckedRunnable {
+		void run() throws Exception;
+	}
+
+	private void addBook(int index, String title) throws Exception {
+		mockMvc.perform(post("/books/add-book:").contentType(MediaType.APPLICATION_JSON).content("""
+						{"bookTitle":"%s %d","authors":"%s Author","publisher":"%s Press","isbn":"%s","yearPublished":1999,"price":19.99}"""
+						.formatted(title, index, title, title, isbn(index))))
+				.andExpect(status().isCreated());
+	}
+
+	// a valid ISBN-13 for the given index
+	private static String isbn(int index) {
+		String digits = String.format("978%09d", index);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.library.books.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.books.config.BooksProperties;
+import com.library.books.repository.BookRepository;
+import com.library.books.service.stats.BookStatistics;
+import com.library.books.support.QueryCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the statistics kept up to date by the writes match the catalog counted again from scratch
+// in a database of its own, the other test contexts write to the shared one without going through these statistics
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:statistics")
+@AutoConfigureMockMvc
+@Import(QueryCounter.class)
+class BookStatisticsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private BooksProperties booksProperties;
+
+	@Autowired
+	private QueryCounter queryCounter;
+
+	@Test
+	void statisticsFollowEveryWrite() throws Exception {
+		List<String> books = new ArrayList<>();
+		for (int i = 40_000; i < 40_020; i++) {
+			books.add(book(i, "Counted " + i, "Press " + (i % 3), 1990 + i % 5, 5 + i % 40));
+		}
+		mockMvc.perform(post("/books/add-books:").contentType(MediaType.APPLICATION_JSON).content("[" + String.join(",", books) + "]"))
+				.andExpect(status().isCreated());
+		mockMvc.perform(post("/books/add-book:").contentType(MediaType.APPLICATION_JSON).content(book(40_020, "Single", "Press 9", 2024, 250)))
+				.andExpect(status().isCreated());
+		assertMatchesCatalog();
+
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn(40_001)).contentType(MediaType.APPLICATION_JSON)
+						.content(book(40_001, "Updated", "Press 7", 1980, 75)))
+				.andExpect(status().isAccepted());
+		MvcResult read = mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn(40_002))).andReturn();
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn(40_002)).contentType(MediaType.APPLICATION_JSON)
+						.header(HttpHeaders.IF_MATCH, read.getResponse().getHeader(HttpHeaders.ETAG))
+						.content(book(40_002, "Updated", "Press 7", 1981, 12)))
+				.andExpect(status().isAccepted());
+		mockMvc.perform(patch("/books/update-books:").contentType(MediaType.APPLICATION_JSON)
+						.content("[{\"isbn\":\"" + isbn(40_003) + "\",\"price\":99.5},{\"isbn\":\"" + isbn(40_004) + "\",\"publisher\":\"Press 8\"}]"))
+				.andExpect(status().isOk());
+		assertMatchesCatalog();
+
+		mockMvc.perform(delete("/books/delete-book:isbn={isbn}", isbn(40_005))).andExpect(status().isOk());
+		mockMvc.perform(post("/books/delete-books:batch").contentType(MediaType.APPLICATION_JSON)
+						.content("[\"" + isbn(40_006) + "\",\"" + isbn(40_007) + "\"]"))
+				.andExpect(status().isOk());
+		mockMvc.perform(delete("/books/delete-book:bookTitle={bookTitle}", "Updated")).andExpect(status().isOk());
+		assertMatchesCatalog();
+
+		queryCounter.reset();
+		mockMvc.perform(get("/books/statistics:")).andExpect(status().isOk());
+		queryCounter.assertStatements(0);
+	}
+
+	// helper method to compare the served statistics with the ones of a GROUP BY over the books now stored
+	private void assertMatchesCatalog() throws Exception {
+		BookStatistics recounted = new BookStatistics(booksProperties);
+		recounted.load(bookRepository.countByPublisherAndYearPublishedAndPrice());
+		String served = mockMvc.perform(get("/books/statistics:")).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(recounted.snapshot())), objectMapper.readTree(served));
+	}
+
+	private static String book(int index, String title, String publisher, int year, double price) {
+		return """
+				{"bookTitle":"%s","authors":"Stats Author","publisher":"%s","isbn":"%s","yearPublished":%d,"price":%s}"""
+				.formatted(title, publisher, isbn(index), year, price);
+	}
+
+	// a valid ISBN-13 for the given index
+	private static String isbn(int index) {
+		String digits = String.format("978%09d", index);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.library.books.controller;
+
+import com.library.books.controller.exception.RequestBodyTooLargeException;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// gzip request bodies read by a servlet that blocks and by one that reads without blocking, within the limit or past it
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:gzip",
+		"library.books.request-compression.max-inflated-size=1MB"})
+class GzipRequestFilterTests {
+
+	@LocalServerPort
+	private int port;
+
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+
+	@Test
+	void nonBlockingReadGetsTheInflatedBody() throws Exception {
+		HttpResponse<String> response = post("/test/non-blocking-length", gzip(" ".repeat(300_000).getBytes()), "gzip");
+		assertEquals(200, response.statusCode());
+		assertEquals("300000", response.body());
+		assertEquals("5", post("/test/non-blocking-length", "plain".getBytes(), null).body());
+	}
+
+	@Test
+	void bodiesPastTheLimitAreRefused() throws Exception {
+		// 2 MB of white space, a few kilobytes once compressed
+		byte[] bomb = gzip(" ".repeat(2 * 1024 * 1024).getBytes());
+		assertEquals(413, post("/test/non-blocking-length", bomb, "gzip").statusCode());
+		assertEquals(413, post("/books/add-books:", gzip(("[" + " ".repeat(2 * 1024 * 1024) + "]").getBytes()), "gzip").statusCode());
+
+		// 2 MB that gzip cannot compress, refused before it is inflated
+		byte[] noise = new byte[2 * 1024 * 1024];
+		new Random(7).nextBytes(noise);
+		assertEquals(413, post("/test/non-blocking-length", gzip(noise), "gzip").statusCode());
+	}
+
+	@Test
+	void unknownEncodingsAreRefused() throws Exception {
+		assertEquals(415, post("/test/non-blocking-length", "[]".getBytes(), "br").statusCode());
+		HttpResponse<String> response = post("/books/add-books:", "[]".getBytes(), "zstd");
+		assertEquals(415, response.statusCode());
+		assertEquals("gzip", response.headers().firstValue("Accept-Encoding").orElse(null));
+	}
+
+	private HttpResponse<String> post(String path, byte[] body, String encoding) throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("Content-Type", "application/json");
+		if (encoding != null) {
+			request.header("Content-Encoding", encoding);
+		}
+		return httpClient.send(request.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static byte[] gzip(byte[] body) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(body);
+		}
+		return compressed.toByteArray();
+	}
+
+	@TestConfiguration
+	static class NonBlockingServletConfiguration {
+
+		@Bean
+		ServletRegistrationBean<LengthServlet> nonBlockingLengthServlet() {
+			ServletRegistrationBean<LengthServlet> registration = new ServletRegistrationBean<>(new LengthServlet(), "/test/non-blocking-length");
+			registration.setAsyncSupported(true);
+			return registration;
+		}
+
+	}
+
+	// answers the length of the request body, read with a ReadListener
+	static class LengthServlet extends HttpServlet {
+
+		@Override
+		protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+			AsyncContext async = request.startAsync();
+			ServletInputStream in = request.getInputStream();
+			byte[] chunk = new byte[8192];
+			long[] length = new long[1];
+			in.setReadListener(new ReadListener() {
+				@Override
+				public void onDataAvailable() throws IOException {
+					while (in.isReady()) {
+						int read = in.read(chunk);
+						if (read < 0) {
+							return;
+						}
+						length[0] += read;
+					}
+				}
+
+				@Override
+				public void onAllDataRead() throws IOException {
+					response.getWriter().write(String.valueOf(length[0]));
+					async.complete();
+				}
+
+				@Override
+				public void onError(Throwable failure) {
+					response.setStatus(failure instanceof RequestBodyTooLargeException ? 413 : 400);
+					async.complete();
+				}
+			});
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.library.books.service.cache;
+
+import com.library.books.service.dto.BookDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// a book read through the ISBN cache is read again from the database once it was changed, never served stale
+// every test adds its own books first, under ISBNs no other test uses
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookISBNCacheTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BookISBNCache bookISBNCache;
+
+	@Test
+	void updatedBookIsReadAgain() throws Exception {
+		String isbn = addBook(8000, "Cached");
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn)).andExpect(status().isOk());
+		long misses = bookISBNCache.stats().getMisses();
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn)).andExpect(status().isOk());
+		assertEquals(misses, bookISBNCache.stats().getMisses()); // cached
+
+		mockMvc.perform(put("/books/update-book:isbn={isbn}", isbn).contentType(MediaType.APPLICATION_JSON).content(book(8000, "Changed")))
+				.andExpect(status().isAccepted());
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookTitle").value("Changed 8000"));
+		assertEquals(misses + 1, bookISBNCache.stats().getMisses());
+	}
+
+	@Test
+	void deletedBookIsNotFound() throws Exception {
+		String isbn = addBook(8001, "Cached");
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn)).andExpect(status().isOk());
+		long misses = bookISBNCache.stats().getMisses();
+
+		mockMvc.perform(delete("/books/delete-book:isbn={isbn}", isbn)).andExpect(status().isOk());
+		mockMvc.perform(get("/books/getBookByISBN:").param("isbn", isbn)).andExpect(status().isBadRequest());
+		assertEquals(misses + 1, bookISBNCache.stats().getMisses());
+	}
+
+	@Test
+	void bookInvalidatedWhileItIsLoadedIsNotStored() {
+		String isbn = "978-0-0000-8002-9";
+		// the book is changed, and invalidated, after the loader read it but before it is stored
+		Optional<BookDTO> stale = bookISBNCache.get(isbn, key -> {
+			bookISBNCache.invalidate(key); // no transaction, runs right away
+			return Optional.of(bookDTO(key, "Stale"));
+		});
+		assertEquals("Stale", stale.orElseThrow().getBookTitle()); // the reader that loaded it still gets it
+
+		AtomicInteger loads = new AtomicInteger();
+		Optional<BookDTO> fresh = bookISBNCache.get(isbn, key -> {
+			loads.incrementAndGet();
+			return Optional.of(bookDTO(key, "Fresh"));
+		});
+		assertEquals(1, loads.get()); // the stale book was not stored
+		assertEquals("Fresh", fresh.orElseThrow().getBookTitle());
+		assertEquals("Fresh", bookISBNCache.get(isbn, key -> Optional.empty()).orElseThrow().getBookTitle());
+	}
+
+	private String addBook(int index, String title) throws Exception {
+		mockMvc.perform(post("/books/add-book:").contentType(MediaType.APPLICATION_JSON).content(book(index, title)))
+				.andExpect(status().isCreated());
+		return isbn(index);
+	}
+
+	private static BookDTO bookDTO(String isbn, String title) {
+		BookDTO bookDTO = new BookDTO();
+		bookDTO.setIsbn(isbn);
+		bookDTO.setBookTitle(title);
+		return bookDTO;
+	}
+
+	private static String book(int index, String title) {
+		return """
+				{"bookTitle":"%s %d","authors":"%s Author","publisher":"%s Press","isbn":"%s","yearPublished":1999,"price":19.99}"""
+				.formatted(title, index, title, title, isbn(index));
+	}
+
+	// a valid ISBN-13 for the given index
+	private static String isbn(int index) {
+		String digits = String.format("978%09d", index);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.library.books.service.changes;
+
+import com.library.books.config.BooksProperties;
+import com.library.books.service.dto.BookChangeDTO;
+import com.library.books.service.dto.BookDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the feed replays the changes it still holds in order, and reports the ones it no longer holds
+class BookChangeFeedTests {
+
+	@Test
+	void replaysKeptChangesAndResetsClientsTooFarBehind() throws Exception {
+		BooksProperties properties = new BooksProperties();
+		properties.getChangeFeed().setCapacity(4);
+		BookChangeFeed feed = new BookChangeFeed(properties, new SimpleMeterRegistry());
+
+		assertEquals(List.of(), feed.after(0, 10, Duration.ZERO)); // nothing yet
+		feed.deleted(List.of("a", "b", "c"));
+		assertEquals(List.of("a", "b", "c"), isbns(feed.after(0, 10, Duration.ZERO)));
+		assertEquals(List.of("b"), isbns(feed.after(1, 1, Duration.ZERO)));
+		assertNull(feed.after(-1, 10, Duration.ZERO), "negative sequence");
+
+		feed.deleted(List.of("d", "e", "f"));
+		assertEquals(6, feed.lastSequence());
+		assertNull(feed.after(1, 10, Duration.ZERO), "change 2 is no longer kept");
+		assertEquals(List.of("c", "d", "e", "f"), isbns(feed.after(2, 10, Duration.ZERO)));
+		assertEquals(List.of(3L, 4L, 5L, 6L), feed.after(2, 10, Duration.ZERO).stream().map(BookChangeDTO::sequence).toList());
+		assertNull(feed.after(7, 10, Duration.ZERO), "sequence never handed out");
+	}
+
+	@Test
+	void waitingReaderIsWokenByTheNextChange() throws Exception {
+		BookChangeFeed feed = new BookChangeFeed(new BooksProperties(), new SimpleMeterRegistry());
+		Thread writer = Thread.ofVirtual().start(() -> {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			feed.cleared();
+		});
+		List<BookChangeDTO> changes = feed.after(0, 10, Duration.ofSeconds(10));
+		assertEquals(1, changes.size());
+		assertEquals("CLEARED", changes.getFirst().type());
+		writer.join();
+	}
+
+	@Test
+	void appendsInCommitOrderWhateverTheOrderOfTheCallbacks() throws Exception {
+		BookChangeFeed feed = new BookChangeFeed(new BooksProperties(), new SimpleMeterRegistry());
+		List<TransactionSynchronization> first = write(() -> feed.updated(List.of(book("a", "First"))));
+		List<TransactionSynchronization> second = write(() -> feed.updated(List.of(book("a", "Second"))));
+		List<TransactionSynchronization> rolledBack = write(() -> feed.deleted(List.of("b")));
+
+		first.forEach(sync -> sync.beforeCommit(false));
+		second.forEach(sync -> sync.beforeCommit(false));
+		rolledBack.forEach(sync -> sync.beforeCommit(false));
+		second.forEach(TransactionSynchronization::afterCommit); // the callback of the later commit runs first
+		assertEquals(List.of(), feed.after(0, 10, Duration.ZERO), "waits for the earlier commit");
+
+		first.forEach(TransactionSynchronization::afterCommit);
+		List<BookChangeDTO> changes = feed.after(0, 10, Duration.ZERO);
+		assertEquals(List.of("First", "Second"), changes.stream().map(change -> change.book().getBookTitle()).toList());
+		assertEquals(List.of(1L, 2L), changes.stream().map(BookChangeDTO::sequence).toList());
+
+		rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+		feed.cleared(); // outside of a transaction
+		assertEquals(List.of(3L), feed.after(2, 10, Duration.ZERO).stream().map(BookChangeDTO::sequence).toList(),
+				"the rolled back write takes no number");
+	}
+
+	// helper method to publish changes as a transaction would, returning its synchronizations to run by hand
+	private static List<TransactionSynchronization> write(Runnable publish) {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			publish.run();
+			return TransactionSynchronizationManager.getSynchronizations();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	private static BookDTO book(String isbn, String bookTitle) {
+		BookDTO bookDTO = new BookDTO();
+		bookDTO.setIsbn(isbn);
+		bookDTO.setBookTitle(bookTitle);
+		return bookDTO;
+	}
+
+	private static List<String> isbns(List<BookChangeDTO> changes) {
+		return changes.stream().map(BookChangeDTO::isbn).toList();
+	}
+
+}
@@ -0,0 +1,154 @@
+package com.library.books.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.books.config.BooksProperties;
+import com.library.books.repository.entity.Book;
+import com.library.books.service.IBookService;
+import com.library.books.service.dto.BookConflictDTO;
+import com.library.books.service.dto.BookDTO;
+import com.library.books.service.dto.BulkInsertResultDTO;
+import com.library.books.service.dto.ImportRejectionDTO;
+import com.library.books.service.dto.ImportStatusDTO;
+import com.library.books.service.importer.ImportCheckpoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// a file is imported chunk by chunk, and an interrupted import resumes after its last committed chunk
+// the imports run on the calling thread, so that their status is final once startImport returns
+class BookImportServiceImplTests {
+
+	@TempDir
+	private Path directory;
+
+	private final List<Book> inserted = new ArrayList<>(); // every book passed to addAllBooks
+	private final IBookService bookService = mock(IBookService.class);
+	private BookImportServiceImpl importService;
+	private int failAtChunk = -1; // the chunk addAllBooks fails on, to interrupt an import
+	private int chunks;
+
+	@BeforeEach
+	void setUp() {
+		when(bookService.addAllBooks(anyList())).thenAnswer(invocation -> {
+			if (chunks++ == failAtChunk) {
+				throw new IllegalStateException("database is down");
+			}
+			List<Book> books = new ArrayList<>(invocation.<List<Book>>getArgument(0));
+			List<BookConflictDTO> conflicts = new ArrayList<>();
+			for (int i = 0; i < books.size(); i++) {
+				if ("duplicate".equals(books.get(i).getIsbn())) {
+					conflicts.add(new BookConflictDTO(i, "duplicate", "already exists"));
+				}
+			}
+			books.removeIf(book -> "duplicate".equals(book.getIsbn()));
+			inserted.addAll(books);
+			return new BulkInsertResultDTO(books.stream().map(BookImportServiceImplTests::bookDTO).toList(), conflicts);
+		});
+		BooksProperties properties = new BooksProperties();
+		properties.getFileImport().setDirectory(directory.toString());
+		properties.getFileImport().setChunkSize(2);
+		importService = new BookImportServiceImpl(bookService, new ObjectMapper(), properties, new TaskExecutorAdapter(Runnable::run));
+	}
+
+	@Test
+	void importsACsvFileWithAByteOrderMarkAndQuotedFields() throws IOException {
+		Files.writeString(directory.resolve("books.csv"), """
+				\uFEFFISBN,Book_Title,authors,publisher,year_published,price\r
+				978-1,"Commas, ""Quotes"" and
+				Line Breaks","Lee, Ann; Ray, Bob",North Press,1999,19.99\r
+				978-2,Plain,Ann Lee,"South, Press",2001, 5.5 \r
+				""");
+		ImportStatusDTO status = importService.startImport("books.csv", null);
+
+		assertEquals("COMPLETED", status.getState());
+		assertEquals(2, status.getRowsRead());
+		assertEquals(List.of("978-1", "978-2"), inserted.stream().map(Book::getIsbn).toList());
+		Book first = inserted.getFirst();
+		assertEquals("Commas, \"Quotes\" and\nLine Breaks", first.getBookTitle());
+		assertEquals("Lee, Ann; Ray, Bob", first.getAuthors());
+		assertEquals(1999, first.getYearPublished());
+		assertEquals("South, Press", inserted.get(1).getPublisher());
+		assertEquals(5.5, inserted.get(1).getPrice());
+		assertFalse(Files.exists(ImportCheckpoint.pathOf(directory.resolve("books.csv")))); // done, a new import starts over
+	}
+
+	@Test
+	void importsJsonlAndReportsRejectedRowsByTheirNumber() throws IOException {
+		Files.writeString(directory.resolve("books.jsonl"), """
+				{"isbn":"978-1","bookTitle":"First"}
+
+				not json
+				{"isbn":"duplicate","bookTitle":"Second"}
+				{"isbn":"978-3","bookTitle":"Third"}
+				""");
+		ImportStatusDTO status = importService.startImport("books.jsonl", null);
+
+		assertEquals("COMPLETED", status.getState());
+		assertEquals(4, status.getRowsRead()); // the blank line is not a row
+		assertEquals(2, status.getAdded());
+		assertEquals(2, status.getRejected());
+		assertEquals(List.of(2L, 3L), status.getRejections().stream().map(ImportRejectionDTO::getIndex).toList());
+		assertEquals("duplicate", status.getRejections().get(1).getIsbn());
+		assertEquals(List.of("978-1", "978-3"), inserted.stream().map(Book::getIsbn).toList());
+	}
+
+	@Test
+	void resumesAfterTheLastCommittedChunk() throws IOException {
+		Path file = Files.writeString(directory.resolve("books.csv"), csv(1, 5));
+		failAtChunk = 1; // the second chunk fails
+		ImportStatusDTO failed = importService.startImport("books.csv", null);
+		assertEquals("FAILED", failed.getState());
+		assertEquals(List.of("1", "2"), inserted.stream().map(Book::getIsbn).toList());
+		assertTrue(Files.exists(ImportCheckpoint.pathOf(file)));
+
+		inserted.clear();
+		ImportStatusDTO resumed = importService.startImport("books.csv", null);
+		assertEquals("COMPLETED", resumed.getState());
+		assertEquals(2, resumed.getResumedFromRow());
+		assertEquals(5, resumed.getRowsRead());
+		assertEquals(5, resumed.getAdded()); // the counts of the first run carry over
+		assertEquals(List.of("3", "4", "5"), inserted.stream().map(Book::getIsbn).toList()); // with the header of the checkpoint
+	}
+
+	@Test
+	void startsOverWhenTheFileChangedSinceItsCheckpoint() throws IOException {
+		Path file = Files.writeString(directory.resolve("books.csv"), csv(1, 5));
+		failAtChunk = 1;
+		importService.startImport("books.csv", null);
+
+		Files.writeString(file, csv(1, 5).replace("Title 1", "Title X")); // the same size, another first row
+		inserted.clear();
+		ImportStatusDTO restarted = importService.startImport("books.csv", null);
+		assertEquals("COMPLETED", restarted.getState());
+		assertEquals(0, restarted.getResumedFromRow());
+		assertEquals(List.of("1", "2", "3", "4", "5"), inserted.stream().map(Book::getIsbn).toList());
+		assertEquals("Title X", inserted.getFirst().getBookTitle());
+	}
+
+	private static BookDTO bookDTO(Book book) {
+		BookDTO bookDTO = new BookDTO();
+		bookDTO.setIsbn(book.getIsbn());
+		return bookDTO;
+	}
+
+	private static String csv(int first, int last) {
+		StringBuilder csv = new StringBuilder("bookTitle,authors,publisher,isbn,yearPublished,price\n");
+		for (int i = first; i <= last; i++) {
+			csv.append("Title ").append(i).append(",Ann Lee,North Press,").append(i).append(",1999,19.99\n");
+		}
+		return csv.toString();
+	}
+
+}
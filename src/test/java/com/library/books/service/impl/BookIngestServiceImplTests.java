@@ -0,0 +1,110 @@
+package com.library.books.service.impl;
+
+import com.library.books.config.BooksProperties;
+import com.library.books.controller.exception.IngestQueueFullException;
+import com.library.books.controller.exception.IngestUnavailableException;
+import com.library.books.repository.entity.Book;
+import com.library.books.service.IBookService;
+import com.library.books.service.dto.BulkInsertResultDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// the queue refuses books once full instead of growing, and the worker empties it before the service stops
+class BookIngestServiceImplTests {
+
+	@Test
+	void fullQueueRefusesBooksUntilTheWorkerCatchesUp() throws Exception {
+		CountDownLatch inserting = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		IBookService bookService = mock(IBookService.class);
+		when(bookService.addAllBooks(anyList())).thenAnswer(invocation -> {
+			inserting.countDown();
+			assertTrue(release.await(10, TimeUnit.SECONDS));
+			return new BulkInsertResultDTO(List.of(), List.of());
+		});
+
+		BooksProperties properties = new BooksProperties();
+		properties.getIngest().setQueueCapacity(2);
+		properties.getIngest().setMaxBatchSize(1);
+		properties.getIngest().setMaxDelay(Duration.ZERO);
+		BookIngestServiceImpl ingest = new BookIngestServiceImpl(bookService, properties, new SimpleMeterRegistry());
+		ingest.start();
+
+		String first = ingest.submit(book("1")).getTicket();
+		assertTrue(inserting.await(10, TimeUnit.SECONDS)); // the worker holds the first book
+		String second = ingest.submit(book("2")).getTicket();
+		String third = ingest.submit(book("3")).getTicket();
+		assertThrows(IngestQueueFullException.class, () -> ingest.submit(book("4")));
+
+		release.countDown();
+		ingest.stop(); // waits for the queued books
+		for (String ticket : List.of(first, second, third)) {
+			assertEquals("ADDED", ingest.getTicket(ticket).getState());
+		}
+		assertThrows(IngestUnavailableException.class, () -> ingest.submit(book("5")));
+	}
+
+	@Test
+	void booksSubmittedDuringShutdownAreAddedOrRefused() throws Exception {
+		IBookService bookService = mock(IBookService.class);
+		when(bookService.addAllBooks(anyList())).thenReturn(new BulkInsertResultDTO(List.of(), List.of()));
+
+		BooksProperties properties = new BooksProperties();
+		properties.getIngest().setQueueCapacity(10_000);
+		properties.getIngest().setMaxDelay(Duration.ZERO);
+		BookIngestServiceImpl ingest = new BookIngestServiceImpl(bookService, properties, new SimpleMeterRegistry());
+		ingest.start();
+
+		// submitters keep queueing books while the service stops, no accepted book may stay queued
+		Queue<String> accepted = new ConcurrentLinkedQueue<>();
+		CountDownLatch submitting = new CountDownLatch(4);
+		List<Thread> submitters = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			submitters.add(Thread.ofPlatform().start(() -> {
+				submitting.countDown();
+				try {
+					for (int n = 0; ; n++) {
+						try {
+							accepted.add(ingest.submit(book(String.valueOf(n))).getTicket());
+						} catch (IngestQueueFullException full) {
+							Thread.onSpinWait(); // the worker catches up
+						}
+					}
+				} catch (IngestUnavailableException stopped) {
+					// refused once the service stops
+				}
+			}));
+		}
+		assertTrue(submitting.await(10, TimeUnit.SECONDS));
+		ingest.stop();
+		for (Thread submitter : submitters) {
+			submitter.join(10_000);
+			assertFalse(submitter.isAlive());
+		}
+
+		assertFalse(accepted.isEmpty());
+		for (String ticket : accepted) {
+			assertEquals("ADDED", ingest.getTicket(ticket).getState());
+		}
+	}
+
+	private static Book book(String isbn) {
+		Book book = new Book();
+		book.setIsbn(isbn);
+		return book;
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.library.books.service.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportCheckpointTests {
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void loadsTheCheckpointItSaved() throws IOException {
+		Path file = Files.writeString(directory.resolve("books.csv"), "title,isbn\nFirst,1\nSecond,2\n");
+		long offset = "title,isbn\nFirst,1\n".length();
+		ImportCheckpoint checkpoint = checkpoint(file, offset, "\"title, with a comma\",isbn");
+		checkpoint.save(file);
+
+		assertEquals(Optional.of(checkpoint), ImportCheckpoint.load(file, Files.size(file)));
+		assertFalse(Files.exists(directory.resolve("books.csv.checkpoint.tmp")));
+		ImportCheckpoint.delete(file);
+		assertEquals(Optional.empty(), ImportCheckpoint.load(file, Files.size(file)));
+	}
+
+	@Test
+	void rejectsACheckpointOfAFileOfAnotherSize() throws IOException {
+		Path file = Files.writeString(directory.resolve("books.csv"), "title,isbn\nFirst,1\nSecond,2\n");
+		checkpoint(file, "title,isbn\nFirst,1\n".length(), "title,isbn").save(file);
+
+		Files.writeString(file, "title,isbn\nFirst,1\nSecond,2\nThird,3\n");
+		assertEquals(Optional.empty(), ImportCheckpoint.load(file, Files.size(file)));
+	}
+
+	@Test
+	void rejectsACheckpointOfAFileRewrittenToTheSameSize() throws IOException {
+		Path file = Files.writeString(directory.resolve("books.csv"), "title,isbn\nFirst,1\nSecond,2\n");
+		checkpoint(file, "title,isbn\nFirst,1\n".length(), "title,isbn").save(file);
+
+		Files.writeString(file, "title,isbn\nOther,1\nSecond,2\n"); // the imported part changed
+		assertEquals(Optional.empty(), ImportCheckpoint.load(file, Files.size(file)));
+
+		Files.writeString(file, "title,isbn\nFirst,1\nAnother,\n"); // only the part still to import changed
+		assertTrue(ImportCheckpoint.load(file, Files.size(file)).isPresent());
+	}
+
+	@Test
+	void hashesTheStartOfALargeFileAndTheBytesBeforeTheOffset() throws IOException {
+		byte[] content = new byte[512 * 1024];
+		Path file = Files.write(directory.resolve("books.jsonl"), content);
+		long offset = 300 * 1024;
+		checkpoint(file, offset, null).save(file);
+
+		content[150 * 1024] = 1; // neither at the start nor just before the offset, not checked
+		Files.write(file, content);
+		assertTrue(ImportCheckpoint.load(file, Files.size(file)).isPresent());
+
+		content[(int) offset - 1] = 1;
+		Files.write(file, content);
+		assertEquals(Optional.empty(), ImportCheckpoint.load(file, Files.size(file)));
+	}
+
+	@Test
+	void ignoresACheckpointItCannotRead() throws IOException {
+		Path file = Files.writeString(directory.resolve("books.csv"), "title,isbn\nFirst,1\n");
+		Files.writeString(ImportCheckpoint.pathOf(file), "offset=11\nrows=1\nadded=1\nrejected=0\nfileSize=19\nfileModified=0\n");
+		assertEquals(Optional.empty(), ImportCheckpoint.load(file, Files.size(file)));
+	}
+
+	private static ImportCheckpoint checkpoint(Path file, long offset, String header) throws IOException {
+		return new ImportCheckpoint(offset, 1, 1, 0, header, Files.size(file), ImportCheckpoint.hash(file, offset));
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.library.books.service.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportFileReaderTests {
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void dropsTheByteOrderMarkAndCarriageReturns() throws IOException {
+		Path file = write("\uFEFFbookTitle,isbn\r\nÉtude,1\r\nLast,2");
+		assertEquals(List.of("bookTitle,isbn", "Étude,1", "Last,2"), records(file, 0, true));
+	}
+
+	@Test
+	void keepsQuotedLineBreaksInsideTheirCsvRecord() throws IOException {
+		Path file = write("title,isbn\n\"Two\r\nlines, \"\"quoted\"\"\",1\n\"\",2\n");
+		assertEquals(List.of("title,isbn", "\"Two\nlines, \"\"quoted\"\"\",1", "\"\",2"), records(file, 0, true));
+	}
+
+	@Test
+	void readsJsonlLineByLine() throws IOException {
+		Path file = write("{\"isbn\":\"1\",\"bookTitle\":\"\\\"quoted\"}\n\n{\"isbn\":\"2\"}\n");
+		assertEquals(List.of("{\"isbn\":\"1\",\"bookTitle\":\"\\\"quoted\"}", "", "{\"isbn\":\"2\"}"), records(file, 0, false));
+	}
+
+	@Test
+	void resumesAtThePositionOfARecord() throws IOException {
+		Path file = write("title,isbn\r\n\"Ünïcode\nin two lines\",1\r\nSecond,2\r\nThird,3\r\n");
+		long position;
+		try (ImportFileReader reader = new ImportFileReader(file, 0, true)) {
+			reader.nextRecord();
+			reader.nextRecord();
+			position = reader.position();
+			assertEquals(Files.size(file), position + "Second,2\r\nThird,3\r\n".length());
+		}
+		assertEquals(List.of("Second,2", "Third,3"), records(file, position, true));
+	}
+
+	@Test
+	void readsLinesLongerThanItsBuffer() throws IOException {
+		String longTitle = "x".repeat(3 << 20);
+		Path file = write("title,isbn\n" + longTitle + ",1\nShort,2\n");
+		assertEquals(List.of("title,isbn", longTitle + ",1", "Short,2"), records(file, 0, true));
+	}
+
+	private Path write(String content) throws IOException {
+		return Files.writeString(directory.resolve("books.csv"), content, StandardCharsets.UTF_8);
+	}
+
+	private static List<String> records(Path file, long offset, boolean csv) throws IOException {
+		List<String> records = new ArrayList<>();
+		try (ImportFileReader reader = new ImportFileReader(file, offset, csv)) {
+			String record;
+			while ((record = reader.nextRecord()) != null) {
+				records.add(record);
+			}
+			assertEquals(reader.size(), reader.position());
+		}
+		return records;
+	}
+
+}
@@ -0,0 +1,141 @@
+package com.library.books.service.search;
+
+import com.library.books.config.BooksProperties;
+import com.library.books.service.search.BookSearchIndex.SearchHits;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTests {
+
+	private final BookSearchIndex index = new BookSearchIndex(new BooksProperties());
+
+	@Test
+	void tokenizesIntoLowerCaseWordsWithoutAccents() {
+		assertEquals(List.of("emile", "zola", "s", "l", "assommoir", "2nd", "ed"),
+				BookSearchIndex.tokenize("Émile Zola's L'Assommoir, 2nd-ed."));
+		assertEquals(List.of(), BookSearchIndex.tokenize(" -- "));
+		assertEquals(List.of(), BookSearchIndex.tokenize(null));
+	}
+
+	@Test
+	void everyQueryTermMustMatch() {
+		index.put("1", "Programming Pearls", "Jon Bentley", "Addison-Wesley");
+		index.put("2", "Programming Rust", "Jim Blandy", "O'Reilly");
+		assertEquals(List.of("1"), search("programming bentley"));
+		assertEquals(List.of(), search("programming knuth"));
+		assertEquals(List.of("2"), search("PROGRAMMING, rust!"));
+	}
+
+	@Test
+	void matchesPrefixesOfTheMinimumLength() {
+		index.put("1", "Programming Pearls", "Jon Bentley", "Addison-Wesley");
+		assertEquals(List.of("1"), search("progr"));
+		assertEquals(List.of("1"), search("pea"));
+		assertEquals(List.of(), search("pe")); // shorter than the minimum prefix length
+	}
+
+	@Test
+	void matchesTyposWithinTheEditDistance() {
+		index.put("1", "Programming Pearls", "Jon Bentley", "Addison-Wesley");
+		assertEquals(List.of("1"), search("perls")); // a letter left out
+		assertEquals(List.of("1"), search("bentlei")); // a letter replaced
+		assertEquals(List.of(), search("bentlye")); // two edits, only one allowed below 8 letters
+		assertEquals(List.of("1"), search("programmnig")); // two edits, allowed from 8 letters
+		assertEquals(List.of(), search("programmingxyz")); // three letters more than any indexed term
+		assertEquals(List.of(), search("ventley")); // the first letter is taken as right
+		assertEquals(List.of(), search("sol")); // too short to be corrected
+	}
+
+	@Test
+	void ranksExactMatchesAndTitlesFirst() {
+		index.put("publisher", "Lake Song", "Ann Lee", "River Press");
+		index.put("authors", "Sea Song", "Tom River", "North Press");
+		index.put("title", "River Song", "Ann Lee", "North Press");
+		assertEquals(List.of("title", "authors", "publisher"), search("river"));
+
+		index.put("prefix", "Stonehenge", "Ann Lee", "North Press");
+		index.put("exact", "Stone", "Ann Lee", "North Press");
+		assertEquals(List.of("exact", "prefix"), search("stone"));
+	}
+
+	@Test
+	void pagesFollowTheRanking() {
+		for (int i = 0; i < 5; i++) {
+			index.put(String.valueOf(i), "Paged " + i, "Ann Lee", "North Press");
+		}
+		List<String> all = search("paged");
+		assertEquals(List.of("0", "1", "2", "3", "4"), all); // equal scores, in the order the books were indexed
+
+		List<String> paged = new ArrayList<>();
+		for (long offset = 0; offset < 6; offset += 2) {
+			SearchHits hits = index.search("paged", offset, 2);
+			assertEquals(5, hits.totalHits());
+			paged.addAll(hits.isbns());
+		}
+		assertEquals(all, paged);
+		assertEquals(List.of(), index.search("paged", 5, 2).isbns());
+	}
+
+	@Test
+	void removedBooksLeaveNoTermsBehindWhenTheirNumberIsReused() {
+		index.put("1", "Alpha", "Ann Lee", "North Press");
+		index.put("2", "Beta", "Bob Ray", "South Press");
+		index.remove("1");
+		index.put("3", "Gamma", "Cy Young", "East Press"); // takes the number of the removed book
+		assertEquals(2, index.size());
+		assertEquals(List.of(), search("alpha"));
+		assertEquals(List.of(), search("north"));
+		assertEquals(List.of("3"), search("gamma"));
+		assertEquals(List.of("2"), search("beta"));
+
+		index.put("2", "Delta", "Bob Ray", "South Press"); // replaced, not added twice
+		assertEquals(2, index.size());
+		assertEquals(List.of(), search("beta"));
+		assertEquals(List.of("2"), search("delta"));
+	}
+
+	@Test
+	void loadedRowsDoNotOverwriteNewerWrites() {
+		index.startLoading();
+		index.put("1", "New Title", "Ann Lee", "North Press");
+		index.load("1", "Old Title", "Ann Lee", "North Press"); // read before the write
+		index.put("2", "Removed", "Ann Lee", "North Press");
+		index.remove("2");
+		index.load("2", "Removed", "Ann Lee", "North Press");
+		index.load("3", "Loaded", "Ann Lee", "North Press");
+		index.finishLoading();
+
+		assertEquals(List.of("1"), search("new"));
+		assertEquals(List.of(), search("old"));
+		assertEquals(List.of(), search("removed"));
+		assertEquals(List.of("3"), search("loaded"));
+	}
+
+	@Test
+	void rowsLoadedAfterAClearAreDropped() {
+		index.startLoading();
+		index.load("1", "Before", "Ann Lee", "North Press");
+		index.clear(); // every book deleted while the catalog is loaded
+		index.load("2", "Stale", "Ann Lee", "North Press"); // read before the delete
+		index.put("3", "Added", "Ann Lee", "North Press");
+		index.finishLoading();
+
+		assertEquals(1, index.size());
+		assertEquals(List.of("3"), search("added"));
+		assertEquals(List.of(), search("stale"));
+
+		index.startLoading(); // the next load starts over
+		index.load("4", "Reloaded", "Ann Lee", "North Press");
+		index.finishLoading();
+		assertEquals(List.of("4"), search("reloaded"));
+	}
+
+	private List<String> search(String query) {
+		return index.search(query, 0, 10).isbns();
+	}
+
+}
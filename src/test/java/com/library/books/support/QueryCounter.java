@@ -0,0 +1,70 @@
+package com.library.books.support;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/*
+ * Test support counting the JDBC round trips of the application: wraps the application DataSource in a
+ * datasource-proxy and records every statement executed through it, by JPA, Spring Data and JdbcTemplate alike.
+ * A JDBC batch counts as one round trip. The sequence calls of the id generator are left out: Hibernate takes
+ * a block of ids at a time, so whether a request pays for one depends on the requests before it.
+ * Import it into a Spring Boot test with @Import(QueryCounter.class).
+ * Statements of every thread are recorded, as streamed responses are written by the task executor.
+ */
+public class QueryCounter implements BeanPostProcessor, QueryExecutionListener {
+
+	private final List<String> statements = new CopyOnWriteArrayList<>();
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+			return ProxyDataSourceBuilder.create(beanName, dataSource)
+					.listener(this)
+					.build();
+		}
+		return bean;
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		String sql = queryInfoList.stream().map(QueryInfo::getQuery).distinct().collect(Collectors.joining("; "));
+		if (sql.contains("next value for")) {
+			return; // id block of the sequence generator
+		}
+		statements.add(execInfo.isBatch() ? sql + " [batch of " + execInfo.getBatchSize() + "]" : sql);
+	}
+
+	// forget the statements recorded so far
+	public void reset() {
+		statements.clear();
+	}
+
+	public List<String> statements() {
+		return List.copyOf(statements);
+	}
+
+	// fail, listing them, unless exactly the expected number of statements ran since the last reset
+	public void assertStatements(int expected) {
+		List<String> executed = statements();
+		if (executed.size() != expected) {
+			fail("Expected " + expected + " statement(s) but " + executed.size() + " ran:\n  "
+					+ String.join("\n  ", executed));
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.library.books.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.library.books.utility.AuthorNames.split;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthorNamesTests {
+
+	@Test
+	void splitsCoAuthors() {
+		assertEquals(List.of("Jane Austen", "Charles Dickens", "Mary Shelley"),
+				List.copyOf(split("Jane Austen; Charles Dickens & Mary Shelley").values()));
+		assertEquals(List.of("Brian Kernighan", "Dennis Ritchie"), List.copyOf(split("Brian Kernighan & Dennis Ritchie").values()));
+	}
+
+	@Test
+	void splitsCommaSeparatedCoAuthors() {
+		assertEquals(List.of("Terry Pratchett", "Neil Gaiman"), List.copyOf(split("Terry Pratchett, Neil Gaiman").values()));
+		assertEquals(List.of("Jane Austen", "Charles Dickens", "Mary Shelley"),
+				List.copyOf(split("Jane Austen, Charles Dickens, Mary Shelley").values()));
+	}
+
+	@Test
+	void keepsTheCommaOfALastNameFirstOrASuffix() {
+		assertEquals(List.of("Tolkien, J.R.R."), List.copyOf(split("Tolkien, J.R.R.").values()));
+		assertEquals(List.of("Austen, Jane", "Brontë, Charlotte"), List.copyOf(split("Austen, Jane; Brontë, Charlotte").values()));
+		assertEquals(List.of("Martin Luther King, Jr.", "Coretta Scott King"),
+				List.copyOf(split("Martin Luther King, Jr., Coretta Scott King").values()));
+	}
+
+	@Test
+	void keysIgnoreCaseAndSpacing() {
+		assertEquals(Map.of("jane austen", "Jane Austen"), split("  Jane   Austen "));
+		assertEquals(split("jane austen").keySet(), split("JANE\tAUSTEN").keySet());
+	}
+
+	@Test
+	void dropsRepeatedAndEmptyNames() {
+		assertEquals(Map.of("jane austen", "Jane Austen"), split("Jane Austen; jane  austen; ;"));
+		assertEquals(Map.of("jane austen", "Jane Austen"), split("Jane Austen, jane  austen, ,"));
+		assertTrue(split(" & ; , ").isEmpty());
+		assertTrue(split(null).isEmpty());
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.library.books.utility;
+
+import com.library.books.service.dto.BookDTO;
+import com.library.books.service.dto.BookPageDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookColumnsTests {
+
+	@Test
+	void pageRoundTrips() throws IOException {
+		List<BookDTO> books = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			// few publishers and authors, as dictionaries, unique titles and ISBNs, written as is
+			books.add(book("Title " + i + " é", i % 7 == 0 ? null : "Author " + i % 3, "Publisher " + i % 4,
+					"978-0-0000-00" + String.format("%02d", i) + "-0", 2024 - i * 37 % 300, 0.1 * i));
+		}
+		BookPageDTO page = new BookPageDTO(books, null, 50, true, "cursor==");
+
+		BookPageDTO read = BookColumns.read(new ByteArrayInputStream(write(page)));
+
+		assertEquals(fields(books), fields(read.getContent()));
+		assertNull(read.getPage());
+		assertEquals(50, read.getSize());
+		assertTrue(read.isHasNext());
+		assertEquals("cursor==", read.getNextCursor());
+	}
+
+	@Test
+	void listRoundTripsWithoutPageFields() throws IOException {
+		List<BookDTO> books = List.of(book("Only", "Author", "Publisher", 1999, 12.5));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BookColumns.write(books, out);
+
+		BookPageDTO read = BookColumns.read(new ByteArrayInputStream(out.toByteArray()));
+
+		assertEquals(fields(books), fields(read.getContent()));
+		assertNull(read.getPage());
+		assertFalse(read.isHasNext());
+		assertTrue(BookColumns.read(new ByteArrayInputStream(write(new BookPageDTO(List.of(), 3, 20, false, null)))).getContent().isEmpty());
+	}
+
+	@Test
+	void rejectsForgedBodies() throws IOException {
+		byte[] body = write(new BookPageDTO(List.of(book("A", "B", "C", "978-0-0000-0000-0", 2000, 1), book("D", "B", "C", "978-0-0000-0001-0", 2001, 2),
+				book("E", "B", "C", "978-0-0000-0002-0", 2002, 3)), 0, 3, false, null));
+
+		assertThrows(IOException.class, () -> BookColumns.read(new ByteArrayInputStream("[{}]".getBytes())));
+		assertThrows(IOException.class, () -> BookColumns.read(new ByteArrayInputStream(Arrays.copyOf(body, body.length - 5))));
+		byte[] huge = body.clone();
+		huge[4] = (byte) 0xFF; // a count of books that does not fit the body
+		assertThrows(IOException.class, () -> BookColumns.read(new ByteArrayInputStream(huge)));
+	}
+
+	private static byte[] write(BookPageDTO page) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BookColumns.write(page, out);
+		return out.toByteArray();
+	}
+
+	private static BookDTO book(String title, String authors, String publisher, String isbn, int year, double price) {
+		BookDTO book = new BookDTO();
+		book.setBookTitle(title);
+		book.setAuthors(authors);
+		book.setPublisher(publisher);
+		book.setIsbn(isbn);
+		book.setYearPublished(year);
+		book.setPrice(price);
+		return book;
+	}
+
+	private static BookDTO book(String title, String authors, String publisher, int year, double price) {
+		return book(title, authors, publisher, "978-0-0000-0000-0", year, price);
+	}
+
+	private static List<List<Object>> fields(List<BookDTO> books) {
+		return books.stream().map(book -> Arrays.<Object>asList(book.getBookTitle(), book.getAuthors(), book.getPublisher(),
+				book.getIsbn(), book.getYearPublished(), book.getPrice())).toList();
+	}
+
+}
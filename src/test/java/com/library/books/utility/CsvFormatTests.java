@@ -0,0 +1,34 @@
+package com.library.books.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvFormatTests {
+
+	@Test
+	void splitsOnCommas() {
+		assertEquals(List.of("a", "b", "", "d"), CsvFormat.split("a,b,,d"));
+		assertEquals(List.of(""), CsvFormat.split(""));
+		assertEquals(List.of("", ""), CsvFormat.split(","));
+	}
+
+	@Test
+	void unquotesQuotedFields() {
+		assertEquals(List.of("Lee, Ann; Ray, Bob", "North Press"), CsvFormat.split("\"Lee, Ann; Ray, Bob\",North Press"));
+		assertEquals(List.of("The \"Best\" Book", "x"), CsvFormat.split("\"The \"\"Best\"\" Book\",x"));
+		assertEquals(List.of("\"", ""), CsvFormat.split("\"\"\"\","));
+		assertEquals(List.of("first line\nsecond line", "x"), CsvFormat.split("\"first line\nsecond line\",x"));
+	}
+
+	@Test
+	void findsRecordsGoingOnAfterALineBreak() {
+		assertTrue(CsvFormat.hasOpenQuote("\"first line"));
+		assertTrue(CsvFormat.hasOpenQuote("a,\"He said \"\"hi"));
+		assertFalse(CsvFormat.hasOpenQuote("a,\"He said \"\"hi\"\"\""));
+		assertFalse(CsvFormat.hasOpenQuote("a,b"));
+	}
+
+}
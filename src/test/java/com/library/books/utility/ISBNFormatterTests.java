@@ -0,0 +1,47 @@
+package com.library.books.utility;
+
+import com.library.books.controller.exception.BookISBNInvalidException;
+import org.junit.jupiter.api.Test;
+
+import static com.library.books.utility.ISBNFormatter.formatISBN;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ISBNFormatterTests {
+
+	@Test
+	void formatsIsbn13() {
+		assertEquals("978-0-3064-0615-7", formatISBN("9780306406157"));
+		assertEquals("978-0-3064-0615-7", formatISBN("978-0-306-40615-7"));
+		assertEquals("979-1-0000-0000-8", formatISBN("979 10000 0000 8"));
+	}
+
+	@Test
+	void returnsCanonicalIsbnUnchanged() {
+		String canonical = "978-0-3064-0615-7";
+		assertSame(canonical, formatISBN(canonical));
+	}
+
+	@Test
+	void convertsIsbn10ToIsbn13() {
+		assertEquals("978-0-3064-0615-7", formatISBN("0-306-40615-2"));
+		assertEquals("978-0-8044-2957-3", formatISBN("080442957X"));
+		assertEquals("978-0-8044-2957-3", formatISBN("0-8044-2957-x"));
+	}
+
+	@Test
+	void rejectsInvalidIsbns() {
+		assertThrows(BookISBNInvalidException.class, () -> formatISBN("9780306406158")); // wrong check digit
+		assertThrows(BookISBNInvalidException.class, () -> formatISBN("0-306-40615-3")); // wrong check digit
+		assertThrows(BookISBNInvalidException.class, () -> formatISBN("9770306406157")); // not a 978/979 prefix
+		assertThrows(BookISBNInvalidException.class, () -> formatISBN("12345"));
+		assertThrows(BookISBNInvalidException.class, () -> formatISBN("97803064061X7"));
+		assertThrows(BookISBNInvalidException.class, () -> formatISBN("978-0-306-40615-7a"));
+		assertThrows(BookISBNInvalidException.class, () -> formatISBN(""));
+	}
+
+	@Test
+	void keepsNull() {
+		assertNull(formatISBN(null));
+	}
+
+}